@@ -0,0 +1,119 @@
+package Client;
+
+import bench.Bench;
+import maze_game.MakeMaze;
+import maze_game.MazeGrid;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 클라이언트 쪽 벤치마크: 좌표 줄 / 텍스트 MAZE 파싱, GamePanel 한 프레임 그리기 (화면 없이 BufferedImage 에).
+ * paint/view, paint/scroll 은 큰 미로를 스크롤 화면 하나 크기로만 그린다.
+ * -Djava.awt.headless=true 로 돌려도 된다.
+ */
+public final class ClientBench {
+
+    private ClientBench() {}
+
+    public static void run(Bench b) {
+        // 게임 중 계속 오는 좌표 줄 (수신 스레드에서 String 없이 읽는다)
+        ByteBuffer pos = ByteBuffer.wrap("P1_POS|123|45".getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer snap = ByteBuffer.wrap("SNAP|123|45|678|9".getBytes(StandardCharsets.US_ASCII));
+        byte[] posPrefix = TextLine.ascii("P1_POS|");
+        byte[] snapPrefix = TextLine.ascii("SNAP|");
+        TextLine text = new TextLine();
+        b.run("decode/text/pos", () -> {
+            TextLine t = text.reset(pos);
+            return t.startsWith(posPrefix) ? t.nextInt() + t.nextInt() : -1;
+        });
+        b.run("decode/text/snap", () -> {
+            TextLine t = text.reset(snap);
+            return t.startsWith(snapPrefix) ? t.nextInt() + t.nextInt() + t.nextInt() + t.nextInt() : -1;
+        });
+
+        for (int[] s : new int[][]{ {41, 31}, {201, 201} }) {
+            String size = s[0] + "x" + s[1];
+            if (!b.enabled("parseMaze/" + size) && !b.enabled("paint/GamePanel/" + size)) continue;
+
+            MakeMaze mk = new MakeMaze(s[0], s[1], 42);
+            MazeGrid maze = mk.make();
+
+            // 서버가 보내는 것과 같은 MAZE|W|H|0,1,... 줄
+            StringBuilder sb = new StringBuilder("MAZE|" + s[0] + "|" + s[1] + "|");
+            for (int y = 0; y < s[1]; y++) {
+                for (int x = 0; x < s[0]; x++) {
+                    if (x > 0 || y > 0) sb.append(',');
+                    sb.append(maze.isOpen(x, y) ? '1' : '0');
+                }
+            }
+            String line = sb.toString();
+            b.run("parseMaze/" + size, () -> MazeRunnerClient.parseMaze(line).height());
+
+            // 패널 전체를 한 번 그린다 (41x31 은 게임 창 크기, 201x201 은 큰 미로를 통째로)
+            if (!b.enabled("paint/GamePanel/" + size)) continue;
+
+            GamePanel panel = new GamePanel(null);
+            panel.setMaze(maze);
+            panel.setExit(mk.getExitX(), mk.getExitY());
+            panel.updatePlayer1Position(1, 1);
+            panel.updatePlayer2Position(1, 1);
+            panel.setSize(panel.getPreferredSize());
+
+            BufferedImage canvas = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            b.run("paint/GamePanel/" + size, () -> {
+                Graphics2D g = canvas.createGraphics();
+                try {
+                    panel.paintComponent(g);
+                } finally {
+                    g.dispose();
+                }
+                return canvas.getRGB(0, 0);
+            });
+        }
+
+        // JScrollPane 화면 하나(1280x800)만: 미로 크기와 상관없이 화면 크기만큼의 비용이어야 한다
+        for (int n : new int[]{ 201, 1001, 2001 }) {
+            String size = n + "x" + n;
+            if (!b.enabled("paint/view/" + size) && !b.enabled("paint/scroll/" + size)) continue;
+
+            MakeMaze mk = new MakeMaze(n, n, 42);
+            GamePanel panel = new GamePanel(null);
+            panel.setMaze(mk.make());
+            panel.setExit(mk.getExitX(), mk.getExitY());
+            panel.updatePlayer1Position(n / 2, n / 2);
+            panel.updatePlayer2Position(n / 2 + 4, n / 2);
+            panel.setSize(panel.getPreferredSize());
+
+            BufferedImage canvas = new BufferedImage(VIEW_W, VIEW_H, BufferedImage.TYPE_INT_RGB);
+            int cx = n / 2 * 24 - VIEW_W / 2;
+            int cy = n / 2 * 24 - VIEW_H / 2;
+            b.run("paint/view/" + size, () -> paintView(panel, canvas, cx, cy));
+
+            // 프레임마다 대각선으로 8px 스크롤 (새 조각 그리기 + LRU 교체 포함)
+            int range = n * 24 - Math.max(VIEW_W, VIEW_H);
+            int[] step = {0};
+            b.run("paint/scroll/" + size, () -> {
+                int d = (step[0] += 8) % range;
+                return paintView(panel, canvas, d, d);
+            });
+        }
+    }
+
+    private static final int VIEW_W = 1280, VIEW_H = 800;
+
+    /* 뷰포트가 하는 것처럼 (x, y) 에서 시작하는 화면 크기만큼만 clip 해서 그린다 */
+    private static long paintView(GamePanel panel, BufferedImage canvas, int x, int y) {
+        Graphics2D g = canvas.createGraphics();
+        try {
+            g.translate(-x, -y);
+            g.clipRect(x, y, VIEW_W, VIEW_H);
+            panel.paintComponent(g);
+        } finally {
+            g.dispose();
+        }
+        return canvas.getRGB(0, 0);
+    }
+}
@@ -0,0 +1,159 @@
+package Server;
+
+import maze_game.DistanceField;
+import maze_game.MazeAlgorithm;
+import maze_game.MazeSolver;
+import maze_game.Player;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GameState.move 의 CAS 를 여러 스레드로 두드려 본다 (벤치마크가 아니라 검사, 하나라도 틀리면 종료 코드 1).
+ *
+ * 판마다 플레이어당 스레드 여러 개가 출구 거리 표를 따라 동시에 move 하고, 읽는 스레드 하나가 그동안 state() 를 계속 본다.
+ *
+ *  - WON 을 돌려받은 스레드는 판마다 정확히 하나 (둘이거나 없으면 실패)
+ *  - state() 의 승자는 WON 을 받은 플레이어이고 바뀌지 않는다. 승자가 정해진 뒤 move 는 모두 FINISHED
+ *  - 어느 시점에 읽어도 두 좌표는 열린 칸이다 (찢어진 값이 없다). 승자의 좌표는 출구
+ *
+ *   java -cp out:bench-out Server.GameStateStress [판 수 (2000)] [플레이어당 스레드 (4)] [미로 한 변 (15)]
+ */
+public final class GameStateStress {
+
+    private GameStateStress() {}
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int perPlayer = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int side = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+
+        int movers = 2 * perPlayer;
+        ExecutorService pool = Executors.newFixedThreadPool(movers + 1);
+        int failures = 0;
+        long moves = 0;
+        long t0 = System.nanoTime();
+
+        try {
+            for (int g = 0; g < games; g++) {
+                GameState gs = new GameState(side, side, MazeAlgorithm.DFS);
+                gs.generateMaze();
+                DistanceField field = MazeSolver.distanceField(gs.maze, gs.exitX, gs.exitY);
+
+                CountDownLatch go = new CountDownLatch(1);
+                AtomicInteger wins = new AtomicInteger();
+                AtomicInteger winnerSeen = new AtomicInteger();     // WON 을 받은 플레이어
+                AtomicBoolean done = new AtomicBoolean();
+                AtomicInteger moved = new AtomicInteger();
+                StringBuffer errors = new StringBuffer();
+
+                Future<?> checker = pool.submit(() -> check(gs, go, done, errors));
+
+                Future<?>[] f = new Future<?>[movers];
+                for (int i = 0; i < movers; i++) {
+                    int player = i % 2 + 1;
+                    f[i] = pool.submit(() -> race(gs, field, player, go, wins, winnerSeen, moved, errors));
+                }
+                go.countDown();
+                for (Future<?> x : f) x.get(30, TimeUnit.SECONDS);
+                done.set(true);
+                checker.get(30, TimeUnit.SECONDS);
+
+                long st = gs.state();
+                int w = GameState.winner(st);
+                if (wins.get() != 1) errors.append("WON returned ").append(wins.get()).append(" times; ");
+                if (w != winnerSeen.get()) errors.append("state winner ").append(w)
+                        .append(" but WON went to ").append(winnerSeen.get()).append("; ");
+
+                for (int p = 1; p <= 2; p++) {
+                    for (Player.Direction d : Player.Direction.values()) {
+                        if (gs.move(p, d) != GameState.MoveResult.FINISHED) errors.append("move after WIN not FINISHED; ");
+                    }
+                }
+                if (gs.state() != st) errors.append("state changed after WIN; ");
+
+                moves += moved.get();
+                if (errors.length() > 0) {
+                    failures++;
+                    System.out.println("game " + g + " FAILED: " + errors);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        System.out.printf("%d games, %d threads per player, %dx%d, %d moves, %d ms: %s%n",
+                games, perPlayer, side, side, moves, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0),
+                failures == 0 ? "OK" : failures + " FAILED");
+        if (failures > 0) System.exit(1);
+    }
+
+    /* 출구 쪽으로 move 를 끝날 때까지. 다른 스레드가 같은 플레이어를 옮기므로 가끔 헛걸음한다 */
+    private static void race(GameState gs, DistanceField field, int player, CountDownLatch go,
+                             AtomicInteger wins, AtomicInteger winnerSeen, AtomicInteger moved, StringBuffer errors) {
+        await(go);
+        while (true) {
+            long st = gs.state();
+            Player.Direction d = field.nextStep(GameState.x(st, player), GameState.y(st, player));
+            if (d == null) d = Player.Direction.values()[(int) (System.nanoTime() & 3)];
+
+            GameState.MoveResult r = gs.move(player, d);
+            switch (r) {
+                case WON:
+                    wins.incrementAndGet();
+                    winnerSeen.set(player);
+                    return;
+                case FINISHED:
+                    return;
+                case MOVED:
+                    moved.incrementAndGet();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /* 도는 동안 state() 를 계속 읽어 찢어진 좌표 / 바뀌는 승자가 없는지 본다 */
+    private static void check(GameState gs, CountDownLatch go, AtomicBoolean done, StringBuffer errors) {
+        await(go);
+        int winner = 0;
+        while (true) {
+            boolean last = done.get();
+            long st = gs.state();
+            for (int p = 1; p <= 2; p++) {
+                if (!gs.maze.isOpen(GameState.x(st, p), GameState.y(st, p))) {
+                    errors.append("torn/invalid position P").append(p).append(' ')
+                            .append(GameState.x(st, p)).append(',').append(GameState.y(st, p)).append("; ");
+                    return;
+                }
+            }
+            int w = GameState.winner(st);
+            if (winner != 0 && w != winner) {
+                errors.append("winner changed ").append(winner).append(" -> ").append(w).append("; ");
+                return;
+            }
+            if (w != 0 && winner == 0) {
+                winner = w;
+                if (GameState.x(st, w) != gs.exitX || GameState.y(st, w) != gs.exitY) {
+                    errors.append("winner P").append(w).append(" not on the exit; ");
+                    return;
+                }
+            }
+            if (last) return;
+        }
+    }
+
+    private static void await(CountDownLatch go) {
+        try {
+            go.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package Server;
+
+import bench.Bench;
+import maze_game.MakeMaze;
+import maze_game.MazeGrid;
+import maze_game.Player;
+import maze_game.ReplayLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 서버 쪽 벤치마크: 미로 메시지 인코딩, GameState.move, 방 브로드캐스트 fan-out (전송 큐 / 관전 방송),
+ * 판 기록 (샤드가 MOVE 하나를 기록하는 비용, 기록 파일 seek).
+ * 소켓 없이 Client 의 전송 큐까지만 잰다 (실제 쓰기는 OS / 네트워크 몫).
+ */
+public final class ServerBench {
+
+    private ServerBench() {}
+
+    /* 보내는 대로 큐를 비우는 클라이언트 (소켓 없음) */
+    private static final class NullClient extends Client {
+        NullClient(boolean binary) {
+            super(new ServerOptions().maxOutbound, new ServerMetrics());
+            this.binary = binary;
+        }
+
+        int drain() {
+            int n = 0;
+            for (byte[] b; (b = outbound.poll()) != null; ) n += b.length;
+            return n;
+        }
+
+        @Override
+        void close() {}
+    }
+
+    public static void run(Bench b) {
+        // 미로 전체 메시지 인코딩 (MAZE). Message 는 인코딩 결과를 캐시하므로 연산마다 새로 만든다
+        for (int[] s : new int[][]{ {41, 31}, {201, 201}, {1001, 1001} }) {
+            String size = s[0] + "x" + s[1];
+            if (!b.enabled("/" + size)) continue;
+
+            MazeGrid maze = new MakeMaze(s[0], s[1], 42).make();
+            b.run("message/maze/text/" + size, () -> Message.maze(maze).line().length);
+            b.run("message/maze/frame/" + size, () -> Message.maze(maze).frame().length);
+        }
+
+        // GameState.move: 열린 칸을 왔다 갔다 (MOVED), 벽으로 (BLOCKED). 같은 미로로 판 기록도
+        if (b.enabled("move/") || b.enabled("replay/")) {
+            GameState gs = new GameState();
+            gs.generateMaze();
+
+            Player.Direction there = null, blocked = null;
+            for (Player.Direction d : Player.Direction.values()) {
+                int nx = 1, ny = 1;
+                switch (d) {
+                    case UP:    ny--; break;
+                    case DOWN:  ny++; break;
+                    case LEFT:  nx--; break;
+                    case RIGHT: nx++; break;
+                }
+                if (gs.maze.isOpen(nx, ny)) there = d;
+                else blocked = d;
+            }
+            Player.Direction go = there;
+            Player.Direction back = opposite(there);
+            Player.Direction wall = blocked;
+
+            boolean[] away = {false};
+            b.run("move/GameState/moved", () -> {
+                away[0] = !away[0];
+                return gs.move(1, away[0] ? go : back).ordinal();
+            });
+            if (away[0]) gs.move(1, back);
+            b.run("move/GameState/blocked", () -> gs.move(1, wall).ordinal());
+
+            if (b.enabled("replay/")) replay(b, gs, go, back);
+        }
+
+        // 브로드캐스트: 좌표 메시지 하나를 만들어 N 명에게 넣고, 큐를 비운다
+        for (boolean binary : new boolean[]{ true, false }) {
+            for (int n : new int[]{ 2, 64, 1024 }) {
+                String name = "broadcast/pos/" + (binary ? "frame" : "text") + "/" + n;
+                if (!b.enabled(name)) continue;
+
+                NullClient[] clients = new NullClient[n];
+                for (int i = 0; i < n; i++) clients[i] = new NullClient(binary);
+
+                int[] x = {0};
+                b.run(name, () -> {
+                    Message m = Message.pos(1, x[0]++ & 1023, 1);
+                    for (NullClient c : clients) c.send(m);
+                    int bytes = 0;
+                    for (NullClient c : clients) bytes += c.drain();
+                    return bytes;
+                });
+            }
+        }
+
+        // 관전 방송: 좌표 메시지 하나를 feed 에 한 번 넣고, N 명이 각자 같은 읽기 전용 버퍼를 duplicate 해 간다
+        for (int n : new int[]{ 64, 1024 }) {
+            String name = "broadcast/watch/frame/" + n;
+            if (!b.enabled(name)) continue;
+
+            SpectatorFeed feed = new SpectatorFeed(true, new ServerMetrics());
+            for (int i = 0; i < n; i++) feed.watch(true);
+
+            int[] x = {0};
+            b.run(name, () -> {
+                long seq = feed.published();
+                feed.publish(Message.pos(1, x[0]++ & 1023, 1));
+                int bytes = 0;
+                for (int i = 0; i < n; i++) bytes += feed.buffer(seq, true).remaining();
+                return bytes;
+            });
+        }
+    }
+
+    /*
+     * 판 기록: 샤드 쪽 MOVE 하나 (ReplayRecorder.move, 쓰기 스레드는 임시 디렉터리에 실제로 쓴다)와
+     * 그렇게 남긴 파일을 매핑해 아무 시각으로나 seek.
+     */
+    private static void replay(Bench b, GameState gs, Player.Direction go, Player.Direction back) {
+        Path dir;
+        try {
+            dir = Files.createTempDirectory("maze-replay-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ServerOptions options = new ServerOptions();
+        options.replayDir = dir.toString();
+        ServerMetrics metrics = new ServerMetrics();
+        ReplayWriter writer = new ReplayWriter(options, metrics);
+
+        // 1M 이동마다 판을 닫고 새로 (파일 하나가 끝없이 커지지 않게)
+        ReplayRecorder[] rec = { new ReplayRecorder(writer, metrics, 1, gs) };
+        int[] n = {0};
+        b.run("replay/record/move", () -> {
+            if ((++n[0] & ((1 << 20) - 1)) == 0) {
+                rec[0].end();
+                rec[0] = new ReplayRecorder(writer, metrics, 1, gs);
+            }
+            rec[0].move(1, (n[0] & 1) != 0 ? go : back, gs.state());
+            return n[0];
+        });
+        rec[0].end();
+
+        if (b.enabled("replay/seek")) {
+            // 10 만 이동짜리 판 하나: 쓰기 스레드가 닫을 때까지 기다렸다가 연다
+            ReplayRecorder one = new ReplayRecorder(writer, metrics, 2, gs);
+            for (int i = 0; i < 100_000; i++) {
+                one.move(1, (i & 1) == 0 ? go : back, gs.state());
+                if ((i & 1023) == 0) LockSupport.parkNanos(200_000);    // 시각이 퍼지도록
+            }
+            one.end();
+
+            ReplayLog log = openWhenComplete(dir.resolve(one.fileName));
+            Random rnd = new Random(42);
+            b.run("replay/seek/" + log.keyframes() + "keys", () -> log.seek(rnd.nextInt(log.duration() + 1)).x(1));
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) Files.deleteIfExists(f);
+            Files.deleteIfExists(dir);
+        } catch (IOException ignored) {
+            // 열린 파일 등: 임시 디렉터리에 남는다
+        }
+    }
+
+    private static ReplayLog openWhenComplete(Path file) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (true) {
+            try {
+                ReplayLog log = ReplayLog.open(file);
+                if (log.isComplete()) return log;
+            } catch (IOException e) {
+                // 아직 없거나 머리도 안 썼다
+            }
+            if (System.nanoTime() > deadline) throw new IllegalStateException("replay not written: " + file);
+            LockSupport.parkNanos(10_000_000);
+        }
+    }
+
+    private static Player.Direction opposite(Player.Direction d) {
+        switch (d) {
+            case UP:    return Player.Direction.DOWN;
+            case DOWN:  return Player.Direction.UP;
+            case LEFT:  return Player.Direction.RIGHT;
+            default:    return Player.Direction.LEFT;
+        }
+    }
+}
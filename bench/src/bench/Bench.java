@@ -0,0 +1,139 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 아주 작은 마이크로벤치마크 도구 (JMH 의 Mode.AverageTime 흉내).
+ *
+ * 벤치마크 하나 = warmup 반복 몇 번 + 측정 반복 몇 번. 반복 하나는 정해진 시간(-t) 동안
+ * 연산을 묶음으로 돌려 ns/op 를 잰다. 연산의 반환값은 sink 에 모아 JIT 가 계산을 지우지 못하게 한다.
+ * 스레드 할당량을 잴 수 있는 JVM 이면 연산당 할당 바이트(B/op)도 같이 적는다.
+ *
+ *   java -cp out:resources:bench-out bench.BenchMain [-wi 3] [-i 5] [-t 500] [이름 정규식]
+ *
+ * 같은 장비, 같은 옵션으로 돌린 결과끼리만 비교한다.
+ */
+public final class Bench {
+
+    /* 측정할 연산 한 번. 결과값은 아무거나 돌려주면 된다 */
+    public interface Op {
+        long run() throws Exception;
+    }
+
+    private int warmups = 3;
+    private int iterations = 5;
+    private long iterationMs = 500;
+    private Pattern filter = null;
+
+    private final List<String> results = new ArrayList<>();
+    private long sink;
+
+    private final com.sun.management.ThreadMXBean threads;
+
+    public Bench(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-wi": warmups = Integer.parseInt(args[++i]); break;
+                case "-i":  iterations = Integer.parseInt(args[++i]); break;
+                case "-t":  iterationMs = Long.parseLong(args[++i]); break;
+                default:    filter = Pattern.compile(args[i]);
+            }
+        }
+        if (iterations < 1 || warmups < 0 || iterationMs < 1) {
+            throw new IllegalArgumentException("bad options");
+        }
+
+        java.lang.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        threads = (mx instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) mx).isThreadAllocatedMemorySupported())
+                ? (com.sun.management.ThreadMXBean) mx : null;
+        if (threads != null) threads.setThreadAllocatedMemoryEnabled(true);
+
+        System.out.printf("# warmup %d x %d ms, measure %d x %d ms, JDK %s, %d cpu%n",
+                warmups, iterationMs, iterations, iterationMs,
+                System.getProperty("java.version"), Runtime.getRuntime().availableProcessors());
+    }
+
+    /* 이름이 필터에 걸리는지 (준비 비용이 큰 벤치마크는 먼저 물어보고 건너뛴다) */
+    public boolean enabled(String name) {
+        return filter == null || filter.matcher(name).find();
+    }
+
+    public void run(String name, Op op) {
+        if (!enabled(name)) return;
+
+        try {
+            for (int i = 0; i < warmups; i++) iteration(op);
+
+            double[] ns = new double[iterations];
+            double bytes = 0;
+            for (int i = 0; i < iterations; i++) {
+                double[] r = iteration(op);
+                ns[i] = r[0];
+                bytes += r[1];
+            }
+            report(name, ns, bytes / iterations);
+        } catch (Exception e) {
+            System.out.println(name + " FAILED: " + e);
+            results.add(String.format("%-44s FAILED", name));
+        }
+    }
+
+    /* 반복 하나: {ns/op, B/op} */
+    private double[] iteration(Op op) throws Exception {
+        long deadline = System.nanoTime() + iterationMs * 1_000_000L;
+        long batch = 1;
+        long ops = 0;
+        long s = 0;
+
+        long alloc0 = allocated();
+        long t0 = System.nanoTime();
+        long now;
+        do {
+            for (long i = 0; i < batch; i++) s += op.run();
+            ops += batch;
+            now = System.nanoTime();
+            if (now - t0 < 10_000_000L) batch *= 2;     // 시간 재는 비용이 묻히도록 묶음을 키운다
+        } while (now < deadline);
+        long alloc1 = allocated();
+
+        sink += s;
+        return new double[]{ (double) (now - t0) / ops, alloc0 < 0 ? -1 : (double) (alloc1 - alloc0) / ops };
+    }
+
+    private long allocated() {
+        return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void report(String name, double[] ns, double bytesPerOp) {
+        double mean = 0;
+        for (double v : ns) mean += v;
+        mean /= ns.length;
+
+        double var = 0;
+        for (double v : ns) var += (v - mean) * (v - mean);
+        double sd = ns.length > 1 ? Math.sqrt(var / (ns.length - 1)) : 0;
+
+        String line = String.format(Locale.ROOT, "%-44s %14s +- %-10s ns/op %12s ops/s %12s B/op",
+                name, fmt(mean), fmt(sd), fmt(1e9 / mean), bytesPerOp < 0 ? "?" : fmt(bytesPerOp));
+        System.out.println(line);
+        results.add(line);
+    }
+
+    private static String fmt(double v) {
+        if (v >= 100) return String.format(Locale.ROOT, "%,.0f", v);
+        if (v >= 1)   return String.format(Locale.ROOT, "%.2f", v);
+        return String.format(Locale.ROOT, "%.3f", v);
+    }
+
+    /* 끝에 결과를 한 번 더 모아서 출력 */
+    public void summary() {
+        System.out.println();
+        System.out.println("# summary (sink " + (sink & 0xFF) + ")");
+        for (String r : results) System.out.println(r);
+    }
+}
@@ -0,0 +1,22 @@
+package bench;
+
+import Client.ClientBench;
+import Server.ServerBench;
+import maze_game.MazeBench;
+
+/**
+ * 벤치마크 전체 실행. 인자는 Bench 참고 (예: "make/dfs" 로 그 이름이 들어간 것만).
+ * 성능에 손대는 변경은 전후로 같은 옵션으로 돌려서 비교한다.
+ */
+public class BenchMain {
+
+    public static void main(String[] args) {
+        Bench b = new Bench(args);
+
+        MazeBench.run(b);
+        ServerBench.run(b);
+        ClientBench.run(b);
+
+        b.summary();
+    }
+}
@@ -0,0 +1,528 @@
+package bench;
+
+import maze_game.LatencyHistogram;
+import maze_game.MakeMaze;
+import maze_game.MazeAlgorithm;
+import maze_game.MazeGrid;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 화면 없는 부하 생성 봇. 텍스트 프로토콜(JOIN / READY / START / MOVE)로 서버에 붙는다.
+ *
+ * 봇 둘이 한 방에 들어가고, ROLE 1 봇이 START 를 보낸다. 봇은 MAZEGEN 으로 SEED 를 받아
+ * 같은 미로를 만들고, 벽이 아닌 칸으로만 움직인다. 그래서 MOVE 마다 도착할 좌표를 알고,
+ * 그 좌표가 담긴 P?_POS (틱 모드면 SNAP) 이 돌아올 때까지의 시간을 그 MOVE 의 지연으로 잰다.
+ * 봇 하나는 답이 오기 전에는 다음 MOVE 를 보내지 않는다 (닫힌 루프, 최대 --rate 번/초).
+ *
+ * 연결은 --loops 개의 selector 스레드가 나눠 맡으므로 봇 수천 개도 스레드 몇 개로 돈다.
+ * 서버를 --mode=nio 로 띄우면 서버 쪽도 스레드가 늘지 않는다.
+ *
+ *   java -cp out:bench-out bench.LoadBot --bots=2000 --rate=10 --duration=30
+ *
+ *   --host=H          (기본: 127.0.0.1)
+ *   --port=N          (기본: 5000)
+ *   --bots=N          봇 수, 짝수 (기본: 200)
+ *   --rate=N          봇 하나의 초당 MOVE 수 (기본: 10)
+ *   --duration=N      측정 시간, 초. 모든 봇이 붙은 뒤부터 센다 (기본: 30)
+ *   --loops=N         selector 스레드 수 (기본: 코어 수)
+ *   --connect-rate=N  초당 새 연결 수 (기본: 500, 서버 accept backlog 를 넘치지 않게)
+ *   --timeout=N       MOVE 답을 기다리는 최대 시간, ms. 넘으면 timeout 으로 센다 (기본: 2000)
+ */
+public class LoadBot {
+
+    /* ============================ 옵션 ============================ */
+
+    private String host = "127.0.0.1";
+    private int port = 5000;
+    private int bots = 200;
+    private double rate = 10;
+    private int duration = 30;
+    private int loops = Runtime.getRuntime().availableProcessors();
+    private int connectRate = 500;
+    private long timeoutNanos = 2_000_000_000L;
+
+    private static LoadBot parse(String[] args) {
+        LoadBot o = new LoadBot();
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+            String key = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+
+            switch (key) {
+                case "host":         o.host = value; break;
+                case "port":         o.port = Integer.parseInt(value); break;
+                case "bots":         o.bots = Integer.parseInt(value); break;
+                case "rate":         o.rate = Double.parseDouble(value); break;
+                case "duration":     o.duration = Integer.parseInt(value); break;
+                case "loops":        o.loops = Integer.parseInt(value); break;
+                case "connect-rate": o.connectRate = Integer.parseInt(value); break;
+                case "timeout":      o.timeoutNanos = Long.parseLong(value) * 1_000_000L; break;
+                default: throw new IllegalArgumentException("Unknown option: --" + key);
+            }
+        }
+
+        if (o.bots < 2 || o.bots % 2 != 0) throw new IllegalArgumentException("--bots must be even: " + o.bots);
+        if (o.rate <= 0 || o.loops < 1 || o.connectRate < 1 || o.duration < 1) {
+            throw new IllegalArgumentException("bad options");
+        }
+        return o;
+    }
+
+
+    /* ============================ 통계 ============================ */
+
+    private final LatencyHistogram moveLatency = new LatencyHistogram();     // 측정 구간 전체
+    private final LatencyHistogram intervalLatency = new LatencyHistogram(); // 진행 보고 사이
+    private final LatencyHistogram startLatency = new LatencyHistogram();    // START → START 응답
+
+    private final AtomicLong connected = new AtomicLong();
+    private final AtomicLong movesSent = new AtomicLong();
+    private final AtomicLong echoes = new AtomicLong();
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong connectErrors = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();         // FULL
+
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        parse(args).run();
+    }
+
+    private void run() throws Exception {
+        InetSocketAddress addr = new InetSocketAddress(host, port);
+
+        Loop[] ls = new Loop[loops];
+        for (int i = 0; i < loops; i++) {
+            ls[i] = new Loop(i);
+            ls[i].start();
+        }
+
+        System.out.printf("[LoadBot] %d bots -> %s, %.1f moves/s each, %d loops%n", bots, addr, rate, loops);
+
+        // 연결: connectRate 에 맞춰 천천히
+        long t0 = System.nanoTime();
+        long gap = 1_000_000_000L / connectRate;
+        for (int i = 0; i < bots; i++) {
+            long due = t0 + i * gap;
+            long wait = due - System.nanoTime();
+            if (wait > 0) Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+
+            try {
+                SocketChannel ch = SocketChannel.open();
+                ch.configureBlocking(false);
+                ch.socket().setTcpNoDelay(true);
+                ch.connect(addr);
+                ls[i % loops].add(new Bot(i, ch));
+            } catch (IOException e) {
+                connectErrors.incrementAndGet();
+            }
+        }
+
+        // 다 붙을 때까지 (실패한 것은 빼고) 기다렸다가 측정 시작
+        while (connected.get() + connectErrors.get() + rejected.get() < bots
+                && System.nanoTime() - t0 < 30_000_000_000L) {
+            Thread.sleep(50);
+        }
+        System.out.printf("[LoadBot] connected %d in %.1fs (errors %d, full %d)%n",
+                connected.get(), (System.nanoTime() - t0) / 1e9, connectErrors.get(), rejected.get());
+
+        moveLatency.reset();
+        intervalLatency.reset();
+        long sent0 = movesSent.get(), echo0 = echoes.get(), games0 = games.get(), timeouts0 = timeouts.get();
+        long start = System.nanoTime();
+        long end = start + duration * 1_000_000_000L;
+
+        long lastEcho = echo0;
+        long last = start;
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.min(5000, Math.max(1, (end - System.nanoTime()) / 1_000_000)));
+
+            long now = System.nanoTime();
+            long e = echoes.get();
+            System.out.printf("[LoadBot] %4.0fs conns=%d echo/s=%.0f move %s timeouts=%d%n",
+                    (now - start) / 1e9, connected.get(), (e - lastEcho) / ((now - last) / 1e9),
+                    intervalLatency.summary(), timeouts.get() - timeouts0);
+            intervalLatency.reset();
+            lastEcho = e;
+            last = now;
+        }
+
+        long conns = connected.get();
+        running = false;
+        for (Loop l : ls) l.selector.wakeup();
+        for (Loop l : ls) l.join(2000);
+
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.println();
+        System.out.printf("bots        %d connected, %d connect errors, %d rejected (FULL), %d disconnects%n",
+                conns, connectErrors.get(), rejected.get(), disconnects.get());
+        System.out.printf("moves       %d sent, %d echoed (%.0f/s), %d timeouts (> %d ms)%n",
+                movesSent.get() - sent0, echoes.get() - echo0, (echoes.get() - echo0) / secs,
+                timeouts.get() - timeouts0, timeoutNanos / 1_000_000);
+        System.out.printf("games       %d finished%n", games.get() - games0);
+        System.out.printf("move->pos   %s mean=%s%n", moveLatency.summary(), LatencyHistogram.format((long) moveLatency.mean()));
+        System.out.printf("start       %s%n", startLatency.summary());
+    }
+
+
+    /* ============================ 봇 하나 ============================ */
+
+    private static final int LOBBY = 0;      // 방에서 대기 (ROLE 1 이면 START 를 보낼 수 있을 때 보낸다)
+    private static final int STARTING = 1;   // START 를 보냄, 미로 / START 기다리는 중
+    private static final int PLAYING = 2;
+
+    private static final long START_RETRY_NANOS = 1_000_000_000L;
+    private static final long RESTART_DELAY_NANOS = 100_000_000L;   // WIN 뒤 다음 판까지
+    private static final long SWEEP_NANOS = 100_000_000L;           // timeout 검사 간격
+
+    private static final String[] DIR_NAMES = { "UP", "DOWN", "RIGHT", "LEFT" };  // Player.Direction 순서
+    private static final int[] DX = { 0, 0, 1, -1 };
+    private static final int[] DY = { -1, 1, 0, 0 };
+    private static final int[] BACK = { 1, 0, 3, 2 };
+
+    private final class Bot {
+        final int id;
+        final SocketChannel ch;
+        SelectionKey key;
+        boolean connected;
+
+        ByteBuffer in = ByteBuffer.allocate(4096);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+
+        int role;
+        int state = LOBBY;
+        boolean canStart;
+        long startSentAt;
+
+        MazeGrid maze;
+        int x, y;
+        int lastDir = -1;
+
+        boolean pending;          // 답을 기다리는 MOVE 가 있다
+        int expectX, expectY;
+        long sentAt;
+
+        long dueAt = Long.MAX_VALUE;   // 다음 행동(MOVE / START) 시각
+        boolean queued;
+
+        Bot(int id, SocketChannel ch) {
+            this.id = id;
+            this.ch = ch;
+        }
+    }
+
+
+    /* ============================ selector 스레드 ============================ */
+
+    private final class Loop extends Thread {
+
+        final Selector selector;
+        private final ConcurrentLinkedQueue<Bot> incoming = new ConcurrentLinkedQueue<>();
+        private final PriorityQueue<Bot> timers = new PriorityQueue<>((a, b) -> Long.compare(a.dueAt, b.dueAt));
+        private final List<Bot> all = new ArrayList<>();
+        private final SplittableRandom random;
+        private final long interval = (long) (1e9 / rate);
+        private long lastSweep = System.nanoTime();
+
+        Loop(int index) throws IOException {
+            super("bot-loop-" + index);
+            setDaemon(true);
+            this.selector = Selector.open();
+            this.random = new SplittableRandom(index * 0x9E3779B97F4A7C15L);
+        }
+
+        void add(Bot b) {
+            incoming.add(b);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    for (Bot b; (b = incoming.poll()) != null; ) {
+                        all.add(b);
+                        b.key = b.ch.register(selector, SelectionKey.OP_CONNECT, b);
+                    }
+
+                    long now = System.nanoTime();
+                    runTimers(now);
+                    if (now - lastSweep >= SWEEP_NANOS) {
+                        sweepTimeouts(now);
+                        lastSweep = now;
+                    }
+
+                    long wait = timers.isEmpty() ? 100 : Math.max(1, (timers.peek().dueAt - now) / 1_000_000);
+                    selector.select(Math.min(wait, 100));
+
+                    for (SelectionKey k : selector.selectedKeys()) {
+                        Bot b = (Bot) k.attachment();
+                        try {
+                            if (!k.isValid()) continue;
+                            if (k.isConnectable()) onConnect(b);
+                            if (k.isValid() && k.isReadable()) onReadable(b);
+                            if (k.isValid() && k.isWritable()) flush(b);
+                        } catch (IOException | RuntimeException e) {
+                            drop(b);
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                for (Bot b : all) closeQuietly(b);
+            }
+        }
+
+        private void onConnect(Bot b) throws IOException {
+            try {
+                b.ch.finishConnect();
+            } catch (IOException e) {
+                connectErrors.incrementAndGet();
+                closeQuietly(b);
+                return;
+            }
+            connected.incrementAndGet();
+            b.connected = true;
+            b.key.interestOps(SelectionKey.OP_READ);
+            send(b, "MAZEGEN " + MakeMaze.VERSION + "\nJOIN bot" + b.id + "\nREADY 1\n");
+        }
+
+        private void onReadable(Bot b) throws IOException {
+            int n = b.ch.read(b.in);
+            if (n < 0) {
+                drop(b);
+                return;
+            }
+
+            // 완성된 줄을 하나씩 처리하고 남은 조각은 앞으로 당긴다
+            ByteBuffer in = b.in;
+            int start = 0;
+            for (int i = 0; i < in.position(); i++) {
+                if (in.get(i) == '\n') {
+                    onLine(b, new String(in.array(), start, i - start, StandardCharsets.ISO_8859_1));
+                    start = i + 1;
+                    if (!b.ch.isOpen()) return;
+                }
+            }
+            in.limit(in.position()).position(start);
+            in.compact();
+
+            if (!in.hasRemaining()) {       // 줄 하나가 버퍼보다 길다 (MAZE 전체 등)
+                ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                bigger.put(in);
+                b.in = bigger;
+            }
+        }
+
+        private void onLine(Bot b, String line) {
+            long now = System.nanoTime();
+
+            if (line.startsWith("ROLE ")) {
+                b.role = Integer.parseInt(line.substring(5).trim());
+
+            } else if (line.startsWith("STATE|")) {
+                String[] sp = line.split("\\|", -1);
+                b.canStart = "1".equals(sp[7]);
+                if (b.role == 1 && b.state == LOBBY && b.canStart) schedule(b, now);
+
+            } else if (line.startsWith("SEED|")) {
+                String[] sp = line.split("\\|");
+                MazeAlgorithm algo = MazeAlgorithm.of(Integer.parseInt(sp[2]));
+                b.maze = new MakeMaze(algo, Integer.parseInt(sp[3]), Integer.parseInt(sp[4]),
+                        Long.parseLong(sp[5])).make();
+
+            } else if (line.startsWith("MAZE|")) {
+                b.maze = parseMaze(line);
+
+            } else if (line.equals("START")) {
+                if (b.role == 1 && b.state == STARTING) startLatency.record(now - b.startSentAt);
+                b.state = PLAYING;
+                b.x = b.y = 1;
+                b.lastDir = -1;
+                b.pending = false;
+                schedule(b, now + random.nextLong(interval));   // 봇마다 시작 시점을 흩어 놓는다
+
+            } else if (line.startsWith("P1_POS|") || line.startsWith("P2_POS|")) {
+                if (line.charAt(1) - '0' != b.role) return;
+                String[] sp = line.split("\\|");
+                onPosition(b, Integer.parseInt(sp[1]), Integer.parseInt(sp[2]), now);
+
+            } else if (line.startsWith("SNAP|")) {
+                String[] sp = line.split("\\|");
+                int i = (b.role == 1) ? 1 : 3;
+                onPosition(b, Integer.parseInt(sp[i]), Integer.parseInt(sp[i + 1]), now);
+
+            } else if (line.startsWith("WIN|")) {
+                b.state = LOBBY;
+                b.pending = false;
+                if (b.role == 1) {
+                    games.incrementAndGet();
+                    schedule(b, now + RESTART_DELAY_NANOS);
+                }
+
+            } else if (line.equals("FULL")) {
+                rejected.incrementAndGet();
+                closeQuietly(b);
+            }
+        }
+
+        private void onPosition(Bot b, int x, int y, long now) {
+            b.x = x;
+            b.y = y;
+            if (b.pending && x == b.expectX && y == b.expectY) {
+                b.pending = false;
+                long latency = now - b.sentAt;
+                moveLatency.record(latency);
+                intervalLatency.record(latency);
+                echoes.incrementAndGet();
+                schedule(b, Math.max(now, b.sentAt + interval));
+            }
+        }
+
+        /* 때가 된 봇의 다음 행동 */
+        private void runTimers(long now) {
+            while (!timers.isEmpty() && timers.peek().dueAt <= now) {
+                Bot b = timers.poll();
+                b.queued = false;
+                if (!b.ch.isOpen()) continue;
+
+                if (b.state == PLAYING) {
+                    // 답을 기다리는 중이면 답(onPosition)이나 timeout(sweepTimeouts)이 다시 예약한다
+                    if (!b.pending && !move(b, now)) schedule(b, now + interval);
+
+                } else if (b.role == 1 && b.canStart
+                        && (b.state == LOBBY || now - b.startSentAt >= START_RETRY_NANOS)) {
+                    b.state = STARTING;
+                    b.startSentAt = now;
+                    send(b, "START\n");
+                    schedule(b, now + START_RETRY_NANOS);
+                }
+            }
+        }
+
+        /* 답이 안 온 MOVE 는 timeout 으로 세고 다음 MOVE 를 예약한다 */
+        private void sweepTimeouts(long now) {
+            for (Bot b : all) {
+                if (b.pending && now - b.sentAt >= timeoutNanos) {
+                    timeouts.incrementAndGet();
+                    b.pending = false;
+                    schedule(b, now);
+                }
+            }
+        }
+
+        /* 막다른 길이 아니면 되돌아가지 않는 무작위 걷기. MOVE 를 보냈으면 true */
+        private boolean move(Bot b, long now) {
+            if (b.maze == null) return false;
+
+            int[] options = new int[4];
+            int n = 0;
+            for (int d = 0; d < 4; d++) {
+                if (d == (b.lastDir < 0 ? -1 : BACK[b.lastDir])) continue;
+                if (b.maze.isOpen(b.x + DX[d], b.y + DY[d])) options[n++] = d;
+            }
+            int d;
+            if (n > 0) d = options[random.nextInt(n)];
+            else if (b.lastDir >= 0 && b.maze.isOpen(b.x + DX[BACK[b.lastDir]], b.y + DY[BACK[b.lastDir]])) d = BACK[b.lastDir];
+            else return false;
+
+            b.lastDir = d;
+            b.expectX = b.x + DX[d];
+            b.expectY = b.y + DY[d];
+            b.pending = true;
+            b.sentAt = now;
+            movesSent.incrementAndGet();
+            send(b, "MOVE " + DIR_NAMES[d] + "\n");
+            return true;
+        }
+
+        private void schedule(Bot b, long at) {
+            if (b.queued) {
+                if (at >= b.dueAt) return;
+                timers.remove(b);
+            }
+            b.dueAt = at;
+            b.queued = true;
+            timers.add(b);
+        }
+
+        private void send(Bot b, String s) {
+            ByteBuffer buf = ByteBuffer.wrap(s.getBytes(StandardCharsets.ISO_8859_1));
+            b.out.add(buf);
+            try {
+                flush(b);
+            } catch (IOException e) {
+                drop(b);
+            }
+        }
+
+        private void flush(Bot b) throws IOException {
+            while (!b.out.isEmpty()) {
+                ByteBuffer buf = b.out.peek();
+                b.ch.write(buf);
+                if (buf.hasRemaining()) {
+                    b.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                b.out.poll();
+            }
+            if (b.key.isValid()) b.key.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void drop(Bot b) {
+            if (b.ch.isOpen() && running) disconnects.incrementAndGet();
+            closeQuietly(b);
+        }
+
+        private void closeQuietly(Bot b) {
+            if (b.connected) {
+                b.connected = false;
+                connected.decrementAndGet();
+            }
+            try {
+                b.ch.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /* MAZE|W|H|0,1,1,... (MAZEGEN 을 모르는 서버) */
+    private static MazeGrid parseMaze(String line) {
+        String[] parts = line.split("\\|");
+        int w = Integer.parseInt(parts[1]);
+        int h = Integer.parseInt(parts[2]);
+        String cells = parts[3];
+
+        MazeGrid maze = new MazeGrid(w, h);
+        for (int i = 0, c = 0; i < cells.length(); i++) {
+            char ch = cells.charAt(i);
+            if (ch == ',') continue;
+            if (ch != '0') maze.open(c % w, c / w);
+            c++;
+        }
+        return maze;
+    }
+}
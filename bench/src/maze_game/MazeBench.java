@@ -0,0 +1,71 @@
+package maze_game;
+
+import bench.Bench;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 미로 생성 / 직렬화 / 길 찾기 벤치마크.
+ * 생성은 연산마다 seed 를 바꿔서 같은 미로만 반복해 재지 않도록 한다.
+ */
+public final class MazeBench {
+
+    private static final int[][] SIZES = { {41, 31}, {201, 201}, {1001, 1001} };
+
+    private MazeBench() {}
+
+    public static void run(Bench b) {
+        // 생성: 알고리즘 x 크기 (seed 는 연산마다 다름)
+        for (MazeAlgorithm algo : MazeAlgorithm.values()) {
+            for (int[] s : SIZES) {
+                long[] seed = {1};
+                b.run("make/" + algo.id() + "/" + s[0] + "x" + s[1],
+                        () -> new MakeMaze(algo, s[0], s[1], seed[0]++).make().width());
+            }
+        }
+
+        // 직렬화: 비트 압축 프레임, checksum, 프레임 → MazeGrid
+        for (int[] s : SIZES) {
+            String size = s[0] + "x" + s[1];
+            if (!b.enabled("/" + size)) continue;
+
+            MazeGrid maze = new MakeMaze(s[0], s[1], 42).make();
+            byte[] frame = new BinaryProtocol.Writer(BinaryProtocol.S_MAZE).maze(maze).toFrame();
+
+            b.run("encode/frame/" + size,
+                    () -> new BinaryProtocol.Writer(BinaryProtocol.S_MAZE).maze(maze).toFrame().length);
+            b.run("decode/frame/" + size, () -> {
+                ByteBuffer buf = ByteBuffer.wrap(frame);
+                BinaryProtocol.getVarint(buf);                  // 길이 접두
+                buf.get();                                      // 타입
+                return BinaryProtocol.getMaze(buf).height();
+            });
+            b.run("checksum/" + size, maze::checksum);
+        }
+
+        // 길 찾기: 출구 거리 표 만들기 + 질의, A*
+        for (int[] s : SIZES) {
+            String size = s[0] + "x" + s[1];
+            if (!b.enabled("/" + size)) continue;
+
+            MakeMaze mk = new MakeMaze(s[0], s[1], 42);
+            MazeGrid maze = mk.make();
+            DistanceField field = MazeSolver.distanceField(maze, mk.getExitX(), mk.getExitY());
+            MazeSolver solver = new MazeSolver(maze);
+            int cellsX = (s[0] - 1) / 2, cellsY = (s[1] - 1) / 2;
+
+            b.run("solve/distanceField/" + size,
+                    () -> MazeSolver.distanceField(maze, mk.getExitX(), mk.getExitY()).maxDistance());
+
+            int[] i = {0};
+            b.run("solve/nextStep/" + size, () -> {
+                int k = i[0]++;
+                int x = 1 + 2 * ((k * 7919) % cellsX), y = 1 + 2 * ((k * 104729) % cellsY);
+                Player.Direction d = field.nextStep(x, y);
+                return field.distance(x, y) + (d == null ? 0 : d.ordinal());
+            });
+            b.run("solve/findPath/" + size,
+                    () -> solver.findPath(1, 1, mk.getExitX(), mk.getExitY()).length);
+        }
+    }
+}
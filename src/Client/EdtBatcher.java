@@ -0,0 +1,124 @@
+package Client;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayDeque;
+
+/**
+ * 수신 스레드 → EDT 전달.
+ *
+ * 좌표(P1_POS / P2_POS / SNAP)와 이동 확인(ACK)은 최신 값만 칸에 덮어쓰고, EDT 작업은 한 번만 예약한다.
+ * EDT 가 그 작업을 돌 때 그때까지 쌓인 최신 상태를 한꺼번에 반영하므로, 메시지가 몰려도
+ * EDT 에 쌓이는 작업은 많아야 하나이고 이미 지난 좌표는 그리지 않는다. 좌표만 오갈 때는 할당하지 않는다.
+ *
+ * 그 밖의 메시지(미로, 출구, 시작 ...)는 post() 로 순서대로 넘긴다. 그보다 먼저 온 좌표가 있으면
+ * 좌표를 먼저 반영해서 순서가 바뀌지 않게 한다.
+ */
+final class EdtBatcher {
+
+    private static final int P1 = 1, P2 = 1 << 1, ACK = 1 << 2;
+
+    private final GamePanel panel;
+    private final Runnable drain = this::drain;
+
+    /* 아래는 모두 lock 으로 보호 */
+    private final Object lock = new Object();
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private int dirty;
+    private int p1x, p1y, p2x, p2y;
+    private int ackSeq, ackX, ackY;
+    private boolean scheduled;
+
+    /* EDT 에서 반영할 때 쓰는 사본 (EDT 전용) */
+    private int d, a1x, a1y, a2x, a2y, aSeq, aX, aY;
+
+    EdtBatcher(GamePanel panel) {
+        this.panel = panel;
+    }
+
+    /* ===================== 수신 스레드 ===================== */
+    void player1(int x, int y) {
+        synchronized (lock) {
+            p1x = x;
+            p1y = y;
+            dirty |= P1;
+            schedule();
+        }
+    }
+
+    void player2(int x, int y) {
+        synchronized (lock) {
+            p2x = x;
+            p2y = y;
+            dirty |= P2;
+            schedule();
+        }
+    }
+
+    void snapshot(int x1, int y1, int x2, int y2) {
+        synchronized (lock) {
+            p1x = x1;
+            p1y = y1;
+            p2x = x2;
+            p2y = y2;
+            dirty |= P1 | P2;
+            schedule();
+        }
+    }
+
+    void ack(int seq, int x, int y) {
+        synchronized (lock) {
+            ackSeq = seq;
+            ackX = x;
+            ackY = y;
+            dirty |= ACK;
+            schedule();
+        }
+    }
+
+    void post(Runnable task) {
+        synchronized (lock) {
+            if (dirty != 0) {
+                // 이 작업보다 먼저 온 좌표: 그 값 그대로 작업으로 만들어 앞에 둔다 (드문 경우라 할당해도 된다)
+                int f = dirty, x1 = p1x, y1 = p1y, x2 = p2x, y2 = p2y, s = ackSeq, ax = ackX, ay = ackY;
+                tasks.add(() -> apply(f, x1, y1, x2, y2, s, ax, ay));
+                dirty = 0;
+            }
+            tasks.add(task);
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            SwingUtilities.invokeLater(drain);
+        }
+    }
+
+    /* ===================== EDT ===================== */
+    private void drain() {
+        while (true) {
+            Runnable task;
+            synchronized (lock) {
+                task = tasks.poll();
+                if (task == null) {
+                    d = dirty;
+                    a1x = p1x; a1y = p1y; a2x = p2x; a2y = p2y;
+                    aSeq = ackSeq; aX = ackX; aY = ackY;
+                    dirty = 0;
+                    scheduled = false;
+                    break;
+                }
+            }
+            task.run();
+        }
+        apply(d, a1x, a1y, a2x, a2y, aSeq, aX, aY);
+    }
+
+    /* ACK 를 먼저: 예측이 맞춰진 뒤에 같은 묶음의 좌표를 반영한다 */
+    private void apply(int flags, int x1, int y1, int x2, int y2, int seq, int ax, int ay) {
+        if ((flags & ACK) != 0) panel.acknowledgeMove(seq, ax, ay);
+        if ((flags & P1) != 0) panel.updatePlayer1Position(x1, y1);
+        if ((flags & P2) != 0) panel.updatePlayer2Position(x2, y2);
+    }
+}
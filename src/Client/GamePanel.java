@@ -1,5 +1,9 @@
 package Client;
 
+import maze_game.BinaryProtocol;
+import maze_game.FieldOfView;
+import maze_game.MazeGrid;
+import maze_game.MazeSolver;
 import maze_game.Player;
 
 import javax.imageio.ImageIO;
@@ -7,13 +11,15 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.awt.geom.Ellipse2D;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.io.PrintWriter;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 
 public class GamePanel extends JPanel implements KeyListener {
 
-    private int[][] maze;
+    private MazeGrid maze;
     private int cellSize = 24;
 
     private int exitX = -1, exitY = -1;
@@ -25,6 +31,61 @@ public class GamePanel extends JPanel implements KeyListener {
     private BufferedImage wallTile;
     private BufferedImage flag;
 
+    /*
+     * 미로 타일(바닥 / 벽 / 출구)은 CHUNK x CHUNK 칸 조각으로 미리 그려 두고, 프레임마다 화면(clip)에
+     * 걸치는 조각만 복사한 뒤 움직이는 것(플레이어, 힌트, 시야)만 새로 그린다.
+     * 조각은 처음 보일 때 그리고, 최대 MAX_CHUNKS 개까지만 들고 있다가 가장 오래 안 쓴 것(LRU)의
+     * 이미지를 새 조각에 다시 쓴다. 그래서 미로가 아무리 커도 메모리와 프레임 비용은 화면 크기만큼이다.
+     * 미로가 바뀐 칸(ROWS, 출구)은 이미 그려 둔 조각에서 그 칸만 다시 그린다.
+     */
+    private static final int CHUNK = 16;                // 칸 (24px 칸이면 384px 조각)
+    private static final int MAX_CHUNKS = 64;           // 384px 조각 64개 = 약 38 MB
+
+    private int chunksX, chunksY;
+    private BufferedImage[] chunks = new BufferedImage[0];   // 조각 번호(cy * chunksX + cx) → 그려 둔 이미지
+    private long[] chunkUsed = new long[0];                  // 조각을 마지막으로 그린 프레임 번호
+    private final int[] resident = new int[MAX_CHUNKS];      // 지금 들고 있는 조각 번호들
+    private int residentCount;
+    private final BufferedImage[] spare = new BufferedImage[MAX_CHUNKS];   // 이전 미로에서 남은 이미지
+    private int spareCount;
+    private long frame;
+
+    /* 화면이 따라갈 내 캐릭터 (1 = player1, 2 = player2) */
+    private int localPlayer = 1;
+
+    /* 내 캐릭터는 서버 답을 기다리지 않고 바로 움직인다 (ACK 로 맞춤) */
+    private final MovePredictor predictor = new MovePredictor();
+
+    /*
+     * 상대 캐릭터 보간: 서버 좌표가 오면 지금 그려진 자리에서 새 칸까지 TWEEN_STEPS 단계에 걸쳐 미끄러지듯 그린다.
+     * 단계는 고정 시간 간격(STEP_MS)으로 도는 애니메이션 루프(Swing Timer, EDT)가 올리고, 움직일 것이 없으면 루프를 멈춘다.
+     * 두 칸 넘게 떨어진 곳(새 판 등)으로는 보간하지 않고 바로 옮긴다.
+     */
+    private static final int STEP_MS = 16;
+    private static final long STEP_NANOS = STEP_MS * 1_000_000L;
+    private static final int TWEEN_STEPS = 4;           // 약 67 ms
+    private final Timer animator = new Timer(STEP_MS, e -> animate());
+    private long animLast, animBehind;
+    private int tweenFromX, tweenFromY, tweenToX, tweenToY;     // 픽셀
+    private int tweenStep = TWEEN_STEPS;
+
+    /*
+     * 경로 이동 (PATH / GOTO): 방향키를 누르고 있으면 첫 칸은 MOVE, 그 뒤 키 반복은 갈림길까지 복도를 따라가는
+     * PATH 하나로 보내고, 보이는 칸을 누르면 GOTO 로 보낸다. 두 캐릭터 모두 서버와 같은 속도로 tracks 를 따라 그린다.
+     * 내 경로를 다 갈 때까지는 방향키를 받지 않는다.
+     */
+    private final PathTrack[] tracks = { new PathTrack(), new PathTrack() };
+    private int pathStepMillis = 1000 / 15;     // 서버가 PATH 에 실어 보내는 값으로 맞춘다
+    /*
+     * 누르고 있는 방향키 (키 반복 판별). X11 의 AWT 는 자동 반복마다 KEY_RELEASED 를 먼저 보내고 바로 KEY_PRESSED 를
+     * 보내므로 (둘의 getWhen() 이 같거나 거의 같다), 놓은 직후 REPEAT_GAP_MS 안에 같은 키가 다시 눌리면 놓지 않은 것으로 본다.
+     */
+    private static final long REPEAT_GAP_MS = 10;
+    private int heldKey = -1;
+    private int releasedKey = -1;
+    private long releasedAt;
+    private MazeSolver solver;                  // GOTO 경로 (서버와 같은 길 찾기)
+
     // --- 플레이어 1 이미지 ---
     private BufferedImage p1_stand;
     private BufferedImage p1_walk_l;
@@ -41,11 +102,37 @@ public class GamePanel extends JPanel implements KeyListener {
     private long lastFrameTime = 0;
     private boolean walkFrame = false;   // true면 walk, false면 stand
 
-    private PrintWriter out;
+    private ServerConnection out;
 
     private int visibileRadius = 140;
 
-    public GamePanel(PrintWriter out) {
+    /*
+     * 시야. 플레이어마다 벽에 가리지 않고 보이는 칸(FieldOfView)을 움직였을 때만 다시 구한다.
+     * 어둡기는 칸 하나 = 픽셀 하나인 작은 ARGB 이미지(fogCells)에 칸 단위로 적어 두고, 프레임마다
+     * 그것을 cellSize 배로 늘려 한 번에 그린다. 이미지는 재사용하고 누가 움직였을 때만 다시 채운다.
+     * fogMask 는 시야 가장자리를 부드럽게 하는 원형 단계표 (0 = 밝음 .. FOG_DARK).
+     */
+    private static final int FOG_DARK = 8;
+    private static final int[] FOG_ARGB = new int[FOG_DARK + 1];
+    private static final Color FOG_COLOR = new Color(0, 0, 0, 200);
+    static {
+        for (int i = 0; i <= FOG_DARK; i++) FOG_ARGB[i] = (200 * i / FOG_DARK) << 24;
+    }
+
+    private FieldOfView view1, view2;
+    private byte[] fogMask;              // (2 * reach + 1)^2, 시야 중심 기준 칸마다의 단계
+
+    private BufferedImage fogCells;
+    private int[] fogPixels;
+    private int fogX0, fogY0, fogW, fogH = -1;   // 지금 fogCells 에 담긴 칸 범위
+
+    /* 서버가 알려 준 힌트 (H 키). 누군가 움직이면 지운다 */
+    private int hintX = -1, hintY = -1;
+    private int hintDistance, hintOtherDistance;
+    private boolean hintPending;    // 서버가 거리 표를 만드는 중
+    private boolean hintUnavailable;    // 이번 판은 서버가 힌트를 줄 수 없다
+
+    public GamePanel(ServerConnection out) {
         this.out = out;
 
         setBackground(new Color(0xF7EEDB));
@@ -54,6 +141,13 @@ public class GamePanel extends JPanel implements KeyListener {
 
         setFocusable(true);
         addKeyListener(this);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                goTo(e.getX() / cellSize, e.getY() / cellSize);
+            }
+        });
 
         requestFocusInWindow();
     }
@@ -84,62 +178,619 @@ public class GamePanel extends JPanel implements KeyListener {
     public void keyPressed(KeyEvent e) {
         if (out == null) return;
 
-        p1Walking = true;
+        boolean repeat = e.getKeyCode() == heldKey
+                || (e.getKeyCode() == releasedKey && e.getWhen() - releasedAt <= REPEAT_GAP_MS);
+        heldKey = e.getKeyCode();
+        releasedKey = -1;
 
+        Player.Direction dir;
         switch (e.getKeyCode()) {
-            case KeyEvent.VK_UP:    out.println("MOVE UP");    break;
-            case KeyEvent.VK_DOWN:  out.println("MOVE DOWN");  break;
-            case KeyEvent.VK_LEFT:  out.println("MOVE LEFT");  break;
-            case KeyEvent.VK_RIGHT: out.println("MOVE RIGHT"); break;
+            case KeyEvent.VK_UP:    dir = Player.Direction.UP;    break;
+            case KeyEvent.VK_DOWN:  dir = Player.Direction.DOWN;  break;
+            case KeyEvent.VK_LEFT:  dir = Player.Direction.LEFT;  break;
+            case KeyEvent.VK_RIGHT: dir = Player.Direction.RIGHT; break;
+            case KeyEvent.VK_H:     out.sendHint();               return;
+            default:                return;
+        }
+
+        Player me = localPlayer == 1 ? player1 : player2;
+        if (me == null || tracks[localPlayer - 1].active()) return;
+
+        // 누르고 있으면 (키 반복) 갈림길까지 한 번에
+        if (repeat) {
+            Player.Direction[] run = corridorRun(me.getX(), me.getY(), dir);
+            if (run.length > 1) {
+                startPath(me, run, -1, -1);
+                return;
+            }
         }
+        setWalking(localPlayer, true);
+
+        // 예측: 보내기 전에 내 미로에서 먼저 움직인다
+        int ox = me.getX(), oy = me.getY();
+        out.sendMove(dir, predictor.input(me, dir));
+        if (me.getX() != ox || me.getY() != oy) {
+            hintX = hintY = -1;
+            follow(me);
+            repaint();
+        }
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        if (e.getKeyCode() != heldKey) return;
+        heldKey = -1;
+        releasedKey = e.getKeyCode();
+        releasedAt = e.getWhen();
     }
 
-    @Override public void keyReleased(KeyEvent e) {}
     @Override public void keyTyped(KeyEvent e) {}
 
-    public void setNetworkOutput(PrintWriter out) {
+    public void setNetworkOutput(ServerConnection out) {
         this.out = out;
     }
 
-    /* ===================== 서버 좌표 반영 ===================== */
-    public void updatePlayer1Position(int x, int y) {
-        if (player1 != null) {
-            p1Walking = (player1.getX() != x || player1.getY() != y);
-            player1.setPosition(x, y);
+    /* ===================== 경로 이동 ===================== */
+
+    /* 보이는 칸이면 그 칸까지 GOTO */
+    private void goTo(int x, int y) {
+        Player me = localPlayer == 1 ? player1 : player2;
+        if (out == null || me == null || tracks[localPlayer - 1].active()) return;
+        if (!(localPlayer == 1 ? view1 : view2).isVisible(x, y)) return;
+
+        if (solver == null) solver = new MazeSolver(maze);
+        Player.Direction[] steps = solver.findSteps(me.getX(), me.getY(), x, y, BinaryProtocol.MAX_PATH);
+        if (steps != null && steps.length > 0) startPath(me, steps, x, y);
+    }
+
+    /* 내 경로: 예측으로 me 는 끝 칸에 두고, 화면은 서버와 같은 속도로 따라간다. gotoX < 0 이면 PATH */
+    private void startPath(Player me, Player.Direction[] dirs, int gotoX, int gotoY) {
+        int ox = me.getX(), oy = me.getY();
+        int seq = predictor.input(me, dirs);
+        if (gotoX < 0) out.sendPath(dirs, seq);
+        else out.sendGoto(gotoX, gotoY, seq);
+
+        if (predictor.active()) {
+            tracks[localPlayer - 1].play(ox, oy, dirs, stepsPerCell(pathStepMillis));
+            setWalking(localPlayer, true);
+            hintX = hintY = -1;
+            startAnimator();
             repaint();
         }
     }
 
+    /* (x, y) 에서 dir 로 들어가 갈림길, 막다른 길, 출구를 만날 때까지 복도를 따라간 방향들 */
+    private Player.Direction[] corridorRun(int x, int y, Player.Direction dir) {
+        Player.Direction[] run = new Player.Direction[BinaryProtocol.MAX_PATH];
+        int n = 0;
+
+        while (n < run.length && maze.isOpen(x + dx(dir), y + dy(dir))) {
+            x += dx(dir);
+            y += dy(dir);
+            run[n++] = dir;
+            if (x == exitX && y == exitY) break;
+
+            // 왔던 쪽을 빼고 열린 쪽이 하나뿐이면 그쪽으로 꺾는다
+            Player.Direction next = null;
+            int open = 0;
+            for (Player.Direction d : Player.Direction.values()) {
+                if (dx(d) == -dx(dir) && dy(d) == -dy(dir)) continue;
+                if (maze.isOpen(x + dx(d), y + dy(d))) {
+                    open++;
+                    next = d;
+                }
+            }
+            if (open != 1) break;
+            dir = next;
+        }
+        return Arrays.copyOf(run, n);
+    }
+
+    private static int dx(Player.Direction d) {
+        return d == Player.Direction.RIGHT ? 1 : d == Player.Direction.LEFT ? -1 : 0;
+    }
+
+    private static int dy(Player.Direction d) {
+        return d == Player.Direction.DOWN ? 1 : d == Player.Direction.UP ? -1 : 0;
+    }
+
+    /* 서버가 알린 경로 (빈 경로면 (x0, y0) 에서 멈춤) */
+    public void playPath(int role, int x0, int y0, int stepMillis, Player.Direction[] dirs) {
+        Player p = role == 1 ? player1 : player2;
+        if (p == null) return;
+        pathStepMillis = stepMillis;
+
+        // 예측 중인 내 경로는 보낼 때 이미 그리기 시작했다 (맞지 않으면 ACK 로 맞춘다)
+        if (role == localPlayer && predictor.active()) return;
+
+        PathTrack track = tracks[role - 1];
+        if (dirs.length == 0) {
+            track.stop();
+            updatePosition(role, p, x0, y0);
+            return;
+        }
+
+        track.play(x0, y0, dirs, stepsPerCell(stepMillis));
+        p.setPosition(track.endX(), track.endY());
+        setWalking(role, true);
+        hintX = hintY = -1;
+        startAnimator();
+        repaint();
+    }
+
+    private static int stepsPerCell(int stepMillis) {
+        return Math.max(1, (stepMillis + STEP_MS / 2) / STEP_MS);
+    }
+
+    /* ===================== 서버 좌표 반영 ===================== */
+    public void updatePlayer1Position(int x, int y) {
+        updatePosition(1, player1, x, y);
+    }
+
     public void updatePlayer2Position(int x, int y) {
-        if (player2 != null) {
-            p2Walking = (player2.getX() != x || player2.getY() != y);
-            player2.setPosition(x, y);
+        updatePosition(2, player2, x, y);
+    }
+
+    private void updatePosition(int role, Player p, int x, int y) {
+        if (p == null) return;
+
+        // 경로를 따라가는 중에는 PATH 가 알려 준 대로 (끝나거나 멈추라고 할 때까지)
+        if (tracks[role - 1].active()) return;
+
+        // 예측 중인 내 캐릭터는 ACK 로만 맞춘다 (답이 안 온 입력이 없으면 서버 좌표 그대로)
+        if (role == localPlayer && predictor.active() && predictor.pending() > 0) return;
+
+        boolean moved = p.getX() != x || p.getY() != y;
+        setWalking(role, moved);
+        if (moved) hintX = hintY = -1;
+
+        if (role != localPlayer) tweenTo(x, y);
+        p.setPosition(x, y);
+        if (role == localPlayer) follow(p);
+        repaint();
+    }
+
+    /* 서버가 내 seq 번 입력까지 처리했고 그때 내 좌표가 (x, y): 남은 입력을 다시 적용 */
+    public void acknowledgeMove(int seq, int x, int y) {
+        Player me = localPlayer == 1 ? player1 : player2;
+        if (me == null) return;
+
+        int ox = me.getX(), oy = me.getY();
+        predictor.acknowledge(me, seq, x, y);
+        if (me.getX() != ox || me.getY() != oy) {
+            tracks[localPlayer - 1].stop();         // 서버가 경로를 받지 않았다
+            hintX = hintY = -1;
+            follow(me);
             repaint();
         }
     }
 
+    private void setWalking(int role, boolean walking) {
+        if (role == 1) p1Walking = walking;
+        else p2Walking = walking;
+    }
+
+    /* role 0 = 관전: 입력 없이(setNetworkOutput(null)) 화면만 P1 을 따라간다 */
+    public void setLocalPlayer(int role) {
+        localPlayer = role == 0 ? 1 : role;
+        Player other = localPlayer == 1 ? player2 : player1;
+        if (other != null) snapRemote(other.getX(), other.getY());
+    }
+
+    /* ===================== 상대 캐릭터 보간 ===================== */
+    private void tweenTo(int x, int y) {
+        int fx = remotePixelX(), fy = remotePixelY();
+        int tx = x * cellSize, ty = y * cellSize;
+        if (Math.abs(tx - fx) + Math.abs(ty - fy) > 2 * cellSize) {
+            snapRemote(x, y);
+            return;
+        }
+
+        tweenFromX = fx;
+        tweenFromY = fy;
+        tweenToX = tx;
+        tweenToY = ty;
+        tweenStep = 0;
+        startAnimator();
+    }
+
+    private void startAnimator() {
+        if (!animator.isRunning()) {
+            animLast = System.nanoTime();
+            animBehind = 0;
+            animator.start();
+        }
+    }
+
+    private void snapRemote(int x, int y) {
+        tweenFromX = tweenToX = x * cellSize;
+        tweenFromY = tweenToY = y * cellSize;
+        tweenStep = TWEEN_STEPS;
+    }
+
+    /* 고정 시간 간격: 타이머가 늦게 불려도 지난 시간만큼 단계를 올린다 */
+    private void animate() {
+        long now = System.nanoTime();
+        animBehind += now - animLast;
+        animLast = now;
+
+        while (animBehind >= STEP_NANOS && animating()) {
+            animBehind -= STEP_NANOS;
+            if (tweenStep < TWEEN_STEPS) tweenStep++;
+            for (int i = 0; i < 2; i++) {
+                PathTrack t = tracks[i];
+                if (t.active() && !t.advance()) arrived(i + 1, t);
+            }
+        }
+        if (!animating()) animator.stop();
+
+        PathTrack mine = tracks[localPlayer - 1];
+        if (mine.active()) follow(mine.cellX(), mine.cellY());
+        repaint();
+    }
+
+    private boolean animating() {
+        return tweenStep < TWEEN_STEPS || tracks[0].active() || tracks[1].active();
+    }
+
+    /* 경로 끝: 상대면 보간 자리를 끝 칸에 둔다 */
+    private void arrived(int role, PathTrack t) {
+        setWalking(role, false);
+        if (role != localPlayer) snapRemote(t.endX(), t.endY());
+    }
+
+    private int remotePixelX() {
+        return tweenFromX + (tweenToX - tweenFromX) * tweenStep / TWEEN_STEPS;
+    }
+
+    private int remotePixelY() {
+        return tweenFromY + (tweenToY - tweenFromY) * tweenStep / TWEEN_STEPS;
+    }
+
+    /*
+     * 카메라: 내 캐릭터가 화면 가운데 절반을 벗어나면 캐릭터가 가운데 오도록 스크롤한다
+     * (JScrollPane 안에 있을 때만 의미가 있다). 가운데에서 조금씩 움직일 때는 화면이 흔들리지 않는다.
+     */
+    private void follow(Player p) {
+        follow(p.getX(), p.getY());
+    }
+
+    private void follow(int cx, int cy) {
+        Rectangle view = getVisibleRect();
+        if (view.isEmpty()) return;
+
+        int px = cx * cellSize + cellSize / 2;
+        int py = cy * cellSize + cellSize / 2;
+        if (px >= view.x + view.width / 4 && px < view.x + view.width * 3 / 4
+                && py >= view.y + view.height / 4 && py < view.y + view.height * 3 / 4) {
+            return;
+        }
+
+        int x = Math.max(0, Math.min(px - view.width / 2, getWidth() - view.width));
+        int y = Math.max(0, Math.min(py - view.height / 2, getHeight() - view.height));
+        scrollRectToVisible(new Rectangle(x, y, view.width, view.height));
+    }
+
+    /* 출구 쪽 다음 칸 표시 + 남은 거리 (나 / 상대). x 가 -1 이면 아직 준비 중, -2 면 이번 판은 힌트 없음 */
+    public void showHint(int x, int y, int distance, int otherDistance) {
+        hintPending = x == -1;
+        hintUnavailable = x == -2;
+        hintX = x < 0 ? -1 : x;
+        hintY = x < 0 ? -1 : y;
+        hintDistance = distance;
+        hintOtherDistance = otherDistance;
+        repaint();
+    }
+
     /* ===================== 미로 설정 ===================== */
-    public void setMaze(int[][] maze) {
+    public void setMaze(MazeGrid maze) {
         this.maze = maze;
+        hintX = hintY = -1;
+        hintPending = false;
+        hintUnavailable = false;
+        resetChunks();
+        buildFog();
 
         player1 = new Player(1, 1, maze);
         player2 = new Player(1, 1, maze);
+        predictor.reset();
+        tracks[0].stop();
+        tracks[1].stop();
+        solver = null;
+        snapRemote(1, 1);
 
         setPreferredSize(
-                new Dimension(maze[0].length * cellSize, maze.length * cellSize)
+                new Dimension(maze.width() * cellSize, maze.height() * cellSize)
         );
 
         requestFocusInWindow();
         revalidate();
+        scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+        repaint();
+    }
+
+    /*
+     * 서버가 행 단위(ROWS)로 보내는 미로. y0 == 0 이거나 크기가 다르면 새 미로로 시작한다.
+     * 아직 안 온 행은 벽으로 그려진다.
+     */
+    public void setRows(int height, int y0, MazeGrid rows) {
+        if (maze == null || y0 == 0 || maze.width() != rows.width() || maze.height() != height) {
+            exitX = exitY = -1;
+            setMaze(new MazeGrid(rows.width(), height));
+        }
+        maze.copyRows(rows, 0, y0, rows.height());
+        renderLayer(0, y0, maze.width(), y0 + rows.height());
+        view1.invalidate();
+        view2.invalidate();
         repaint();
     }
 
     public void setExit(int x, int y) {
+        int oldX = exitX, oldY = exitY;
         this.exitX = x;
         this.exitY = y;
+
+        // ROWS 로 받은 미로는 출구 칸이 아직 벽이다
+        if (maze != null && x >= 0 && y >= 0 && x < maze.width() && y < maze.height()) maze.open(x, y);
+
+        if (oldX != -1) renderLayer(oldX, oldY, oldX + 1, oldY + 1);
+        renderLayer(x, y, x + 1, y + 1);
+        if (view1 != null) {
+            view1.invalidate();
+            view2.invalidate();
+        }
         repaint();
     }
 
+    /* ===================== 타일 조각 ===================== */
+    private void resetChunks() {
+        // 들고 있던 이미지는 다음 조각에 다시 쓴다
+        for (int i = 0; i < residentCount && spareCount < spare.length; i++) {
+            spare[spareCount++] = chunks[resident[i]];
+        }
+        residentCount = 0;
+
+        chunksX = (maze.width() + CHUNK - 1) / CHUNK;
+        chunksY = (maze.height() + CHUNK - 1) / CHUNK;
+        chunks = new BufferedImage[chunksX * chunksY];
+        chunkUsed = new long[chunks.length];
+    }
+
+    /* 조각 (cx, cy) 의 이미지. 없으면 그린다 (꽉 찼으면 가장 오래 안 쓴 조각의 이미지를 가져온다) */
+    private BufferedImage chunk(int cx, int cy) {
+        int id = cy * chunksX + cx;
+        chunkUsed[id] = frame;
+        if (chunks[id] != null) return chunks[id];
+
+        BufferedImage img;
+        if (residentCount < MAX_CHUNKS) {
+            img = spareCount > 0 ? spare[--spareCount] : newChunkImage();
+            resident[residentCount++] = id;
+        } else {
+            int victim = 0;
+            for (int i = 1; i < residentCount; i++) {
+                if (chunkUsed[resident[i]] < chunkUsed[resident[victim]]) victim = i;
+            }
+            img = chunks[resident[victim]];
+            chunks[resident[victim]] = null;
+            resident[victim] = id;
+        }
+        chunks[id] = img;
+
+        int x0 = cx * CHUNK, y0 = cy * CHUNK;
+        Graphics2D g = img.createGraphics();
+        try {
+            g.translate(-x0 * cellSize, -y0 * cellSize);
+            drawTiles(g, x0, y0, x0 + CHUNK, y0 + CHUNK);
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    private BufferedImage newChunkImage() {
+        int size = CHUNK * cellSize;
+        // 화면과 같은 픽셀 형식이면 그리기가 단순 복사가 되고, 자바2D 가 VRAM 에 올려 둘 수도 있다
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        return (gc != null)
+                ? gc.createCompatibleImage(size, size, Transparency.OPAQUE)
+                : new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /* 칸 [x0, x1) x [y0, y1) 이 바뀌었다: 이미 그려 둔 조각에서 그 칸만 다시 그린다 */
+    private void renderLayer(int x0, int y0, int x1, int y1) {
+        if (maze == null) return;
+
+        for (int i = 0; i < residentCount; i++) {
+            int id = resident[i];
+            int cx0 = (id % chunksX) * CHUNK;
+            int cy0 = (id / chunksX) * CHUNK;
+            if (x1 <= cx0 || x0 >= cx0 + CHUNK || y1 <= cy0 || y0 >= cy0 + CHUNK) continue;
+
+            Graphics2D g = chunks[id].createGraphics();
+            try {
+                g.translate(-cx0 * cellSize, -cy0 * cellSize);
+                drawTiles(g, Math.max(x0, cx0), Math.max(y0, cy0),
+                        Math.min(x1, cx0 + CHUNK), Math.min(y1, cy0 + CHUNK));
+            } finally {
+                g.dispose();
+            }
+        }
+    }
+
+    private void drawTiles(Graphics2D g2, int x0, int y0, int x1, int y1) {
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(maze.width(), x1);
+        y1 = Math.min(maze.height(), y1);
+
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                BufferedImage tile = maze.isOpen(x, y) ? floor : wallTile;
+                g2.drawImage(tile, x * cellSize, y * cellSize, cellSize, cellSize, null);
+            }
+        }
+
+        if (exitX >= x0 && exitX < x1 && exitY >= y0 && exitY < y1) {
+            g2.drawImage(flag, exitX * cellSize, exitY * cellSize, cellSize, cellSize, null);
+        }
+    }
+
+    private void drawChunks(Graphics2D g2) {
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        int span = CHUNK * cellSize;
+        int mw = maze.width() * cellSize;
+        int mh = maze.height() * cellSize;
+        int cx0 = Math.max(0, clip.x / span);
+        int cy0 = Math.max(0, clip.y / span);
+        int cx1 = Math.min(chunksX - 1, (Math.min(clip.x + clip.width, mw) - 1) / span);
+        int cy1 = Math.min(chunksY - 1, (Math.min(clip.y + clip.height, mh) - 1) / span);
+
+        frame++;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                BufferedImage img = chunk(cx, cy);
+                // 오른쪽 / 아래 끝 조각은 미로 안쪽만
+                int px = cx * span, py = cy * span;
+                int pw = Math.min(span, mw - px), ph = Math.min(span, mh - py);
+                g2.drawImage(img, px, py, px + pw, py + ph, 0, 0, pw, ph, null);
+            }
+        }
+    }
+
+    /* 내 캐릭터는 칸 위치 그대로, 상대는 보간 중인 위치 */
+    private int pixelX(int role, Player p) {
+        PathTrack t = tracks[role - 1];
+        if (t.active()) return t.pixelX(cellSize);
+        return role == localPlayer ? p.getX() * cellSize : remotePixelX();
+    }
+
+    private int pixelY(int role, Player p) {
+        PathTrack t = tracks[role - 1];
+        if (t.active()) return t.pixelY(cellSize);
+        return role == localPlayer ? p.getY() * cellSize : remotePixelY();
+    }
+
+    /* 시야 중심 칸: 경로를 따라가는 중이면 지금 그려진 칸 (p 는 이미 경로 끝에 있다) */
+    private int cellX(int role, Player p) {
+        PathTrack t = tracks[role - 1];
+        return t.active() ? t.cellX() : p.getX();
+    }
+
+    private int cellY(int role, Player p) {
+        PathTrack t = tracks[role - 1];
+        return t.active() ? t.cellY() : p.getY();
+    }
+
+    private Player.Direction heading(int role, Player p) {
+        PathTrack t = tracks[role - 1];
+        return t.active() ? t.heading() : p.getDirection();
+    }
+
+    /* ===================== 시야 ===================== */
+    private void buildFog() {
+        double radius = (double) visibileRadius / cellSize;       // 칸 단위
+        view1 = new FieldOfView(maze, radius);
+        view2 = new FieldOfView(maze, radius);
+        fogH = -1;
+
+        // 중심에서 (반지름 - 한 칸) 까지는 밝고, 마지막 한 칸 폭에서 점점 어두워진다
+        int reach = view1.reach();
+        int side = 2 * reach + 1;
+        fogMask = new byte[side * side];
+        for (int dy = -reach; dy <= reach; dy++) {
+            for (int dx = -reach; dx <= reach; dx++) {
+                double d = Math.sqrt(dx * dx + dy * dy) * cellSize;
+                double t = (d - (visibileRadius - cellSize)) / cellSize;
+                int level = t <= 0 ? 0 : Math.min(FOG_DARK, (int) Math.ceil(t * FOG_DARK));
+                fogMask[(dy + reach) * side + dx + reach] = (byte) level;
+            }
+        }
+    }
+
+    private void drawFog(Graphics2D g2) {
+        boolean moved = view1.update(cellX(1, player1), cellY(1, player1));
+        moved |= view2.update(cellX(2, player2), cellY(2, player2));
+
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        int x0 = Math.max(0, clip.x / cellSize);
+        int y0 = Math.max(0, clip.y / cellSize);
+        int x1 = Math.min(maze.width(), (clip.x + clip.width + cellSize - 1) / cellSize);
+        int y1 = Math.min(maze.height(), (clip.y + clip.height + cellSize - 1) / cellSize);
+        int w = x1 - x0, h = y1 - y0;
+
+        if (w > 0 && h > 0) {
+            if (fogCells == null || fogCells.getWidth() < w || fogCells.getHeight() < h) {
+                int cw = Math.max(w, fogCells == null ? 0 : fogCells.getWidth());
+                int ch = Math.max(h, fogCells == null ? 0 : fogCells.getHeight());
+                fogCells = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_ARGB);
+                fogPixels = ((DataBufferInt) fogCells.getRaster().getDataBuffer()).getData();
+                fogH = -1;
+            }
+            if (moved || x0 != fogX0 || y0 != fogY0 || w != fogW || h != fogH) {
+                fillFog(x0, y0, w, h);
+            }
+            // 기본 보간(nearest neighbor)이라 칸 경계가 그대로 유지된다
+            g2.drawImage(fogCells,
+                    x0 * cellSize, y0 * cellSize, x1 * cellSize, y1 * cellSize,
+                    0, 0, w, h, null);
+        }
+
+        // 패널이 미로보다 크면 남는 곳도 어둡게
+        int mw = maze.width() * cellSize;
+        int mh = maze.height() * cellSize;
+        g2.setColor(FOG_COLOR);
+        if (getWidth() > mw) g2.fillRect(mw, 0, getWidth() - mw, getHeight());
+        if (getHeight() > mh) g2.fillRect(0, mh, Math.min(mw, getWidth()), getHeight() - mh);
+    }
+
+    /* 칸 [x0, x0 + w) x [y0, y0 + h) 의 어둡기를 fogCells 에 적는다. 시야 창 밖은 통째로 어둡게 */
+    private void fillFog(int x0, int y0, int w, int h) {
+        fogX0 = x0;
+        fogY0 = y0;
+        fogW = w;
+        fogH = h;
+
+        int stride = fogCells.getWidth();
+        int reach = view1.reach();
+        for (int row = 0; row < h; row++) {
+            int y = y0 + row;
+            int base = row * stride;
+            Arrays.fill(fogPixels, base, base + w, FOG_ARGB[FOG_DARK]);
+
+            // 이 행에서 시야 창이 걸치는 가로 범위만 칸마다 본다
+            int lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+            if (Math.abs(y - view1.originY()) <= reach) {
+                lo = view1.originX() - reach;
+                hi = view1.originX() + reach;
+            }
+            if (Math.abs(y - view2.originY()) <= reach) {
+                lo = Math.min(lo, view2.originX() - reach);
+                hi = Math.max(hi, view2.originX() + reach);
+            }
+            lo = Math.max(lo, x0);
+            hi = Math.min(hi, x0 + w - 1);
+            for (int x = lo; x <= hi; x++) {
+                fogPixels[base + x - x0] = FOG_ARGB[fogLevel(x, y)];
+            }
+        }
+    }
+
+    /* 두 플레이어 중 더 밝게 보는 쪽의 단계 */
+    private int fogLevel(int x, int y) {
+        return Math.min(fogLevel(view1, x, y), fogLevel(view2, x, y));
+    }
+
+    private int fogLevel(FieldOfView view, int x, int y) {
+        if (!view.isVisible(x, y)) return FOG_DARK;
+        int reach = view.reach();
+        return fogMask[(y - view.originY() + reach) * (2 * reach + 1) + x - view.originX() + reach];
+    }
+
     /* ===================== 렌더링 ===================== */
     @Override
     protected void paintComponent(Graphics g) {
@@ -148,21 +799,13 @@ public class GamePanel extends JPanel implements KeyListener {
 
         Graphics2D g2 = (Graphics2D) g;
 
-        // === 1) 미로 타일 ===
-        for (int y = 0; y < maze.length; y++) {
-            for (int x = 0; x < maze[0].length; x++) {
+        // === 1) 미로 타일 + 출구 (화면에 걸치는 조각만) ===
+        drawChunks(g2);
 
-                if (maze[y][x] == 1) {
-                    g2.drawImage(floor, x * cellSize, y * cellSize, cellSize, cellSize, null);
-                } else {
-                    g2.drawImage(wallTile, x * cellSize, y * cellSize, cellSize, cellSize, null);
-                }
-            }
-        }
-
-        // === 2) 출구 ===
-        if (exitX != -1 && exitY != -1) {
-            g2.drawImage(flag, exitX * cellSize, exitY * cellSize, cellSize, cellSize, null);
+        // === 2-1) 힌트 칸 ===
+        if (hintX != -1 && hintY != -1) {
+            g2.setColor(new Color(255, 220, 0, 120));
+            g2.fillRect(hintX * cellSize, hintY * cellSize, cellSize, cellSize);
         }
 
         // === 3) 애니메이션 프레임 업데이트 ===
@@ -178,15 +821,13 @@ public class GamePanel extends JPanel implements KeyListener {
             if (!walkFrame) {
                 img1 = p1_stand;
             } else {
-                img1 = (player1.getDirection() == Player.Direction.LEFT) ? p1_walk_l : p1_walk_r;
+                img1 = (heading(1, player1) == Player.Direction.LEFT) ? p1_walk_l : p1_walk_r;
             }
         } else {
             img1 = p1_stand;
         }
 
-        g2.drawImage(img1,
-                player1.getX() * cellSize, player1.getY() * cellSize,
-                cellSize, cellSize, null);
+        g2.drawImage(img1, pixelX(1, player1), pixelY(1, player1), cellSize, cellSize, null);
 
         // === 5) 플레이어2 이미지 선택 ===
         BufferedImage img2;
@@ -194,48 +835,39 @@ public class GamePanel extends JPanel implements KeyListener {
             if (!walkFrame) {
                 img2 = p2_stand;
             } else {
-                img2 = (player2.getDirection() == Player.Direction.LEFT) ? p2_walk_l : p2_walk_r;
+                img2 = (heading(2, player2) == Player.Direction.LEFT) ? p2_walk_l : p2_walk_r;
             }
         } else {
             img2 = p2_stand;
         }
 
-        g2.drawImage(img2,
-                player2.getX() * cellSize, player2.getY() * cellSize,
-                cellSize, cellSize, null);
+        g2.drawImage(img2, pixelX(2, player2), pixelY(2, player2), cellSize, cellSize, null);
 
         // === 6) 시야 (플레이어1 + 플레이어2) ===
-        BufferedImage fog = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-        Graphics2D fg = fog.createGraphics();
-
-        // 전체 어둡게
-        fg.setColor(new Color(0, 0, 0, 200));
-        fg.fillRect(0, 0, getWidth(), getHeight());
-        fg.setComposite(AlphaComposite.DstOut);
-
-        // p1 시야
-        int p1x = player1.getX() * cellSize + cellSize / 2;
-        int p1y = player1.getY() * cellSize + cellSize / 2;
-
-        fg.fill(new Ellipse2D.Float(
-                p1x - visibileRadius,
-                p1y - visibileRadius,
-                visibileRadius * 2,
-                visibileRadius * 2
-        ));
-
-        // p2 시야
-        int p2x = player2.getX() * cellSize + cellSize / 2;
-        int p2y = player2.getY() * cellSize + cellSize / 2;
-
-        fg.fill(new Ellipse2D.Float(
-                p2x - visibileRadius,
-                p2y - visibileRadius,
-                visibileRadius * 2,
-                visibileRadius * 2
-        ));
-
-        fg.dispose();
-        g2.drawImage(fog, 0, 0, null);
+        drawFog(g2);
+
+        // === 7) 힌트 거리 (시야 위에, 보이는 화면의 왼쪽 위) ===
+        String text = hintText();
+        if (text != null) {
+            Rectangle view = getVisibleRect();
+            g2.setColor(Color.WHITE);
+            g2.drawString(text, view.x + 8, view.y + 16);
+        }
+    }
+
+    /* 화면 왼쪽 위에 띄울 힌트 글씨. 없으면 null */
+    private String hintText() {
+        if (hintX != -1 && hintY != -1) return "출구까지 " + hintDistance + " / 상대 " + hintOtherDistance;
+        if (hintPending) return "힌트 준비 중...";
+        if (hintUnavailable) return "이번 판은 힌트를 쓸 수 없습니다";
+        return null;
+    }
+
+    /*
+     * 감싼 JViewport 가 스크롤됐을 때. 뷰포트는 이미 그린 화면을 옮겨 놓고(blit) 새로 드러난 곳만 다시 그리므로,
+     * 화면에 붙어 있어야 하는 힌트 글씨가 있으면 보이는 곳 전체를 다시 그린다 (글씨가 지도와 같이 밀려가지 않게).
+     */
+    public void viewScrolled() {
+        if (hintText() != null) repaint(getVisibleRect());
     }
 }
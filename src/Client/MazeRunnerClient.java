@@ -1,14 +1,19 @@
 package Client;
 
+import maze_game.BinaryProtocol;
+import maze_game.MakeMaze;
+import maze_game.MazeAlgorithm;
+import maze_game.MazeGrid;
 import maze_game.Player;
+import maze_game.ReplayLog;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
-import java.io.*;
-import java.net.Socket;
-import java.net.URL;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 /**
  * Maze Runner 클라이언트
@@ -33,9 +38,22 @@ public class MazeRunnerClient extends JFrame {
     private static final int START_BTN_H = 120;
 
     // ===== 네트워크 =====
-    private Socket socket;
-    private BufferedReader in;
-    private PrintWriter out;
+    // -Dmaze.protocol=text 로 실행하면 기존 텍스트 프로토콜만 사용
+    private static final boolean USE_BINARY =
+            !"text".equals(System.getProperty("maze.protocol", "bin"));
+
+    // -Dmaze.sync=rows 로 실행하면 seed 로 직접 만들지 않고 서버가 만드는 대로 행 단위로 받는다
+    private static final boolean MAZE_ROWS =
+            "rows".equals(System.getProperty("maze.sync", "seed"));
+
+    // 관전 포트 (서버의 --watch-port). -Dmaze.watchPort=N 으로 바꾼다
+    private static final int WATCH_PORT = Integer.getInteger("maze.watchPort", 5001);
+
+    // -Dmaze.replay=파일.mzr 로 실행하면 접속하지 않고 그 기록을 재생한다 (-Dmaze.replaySpeed=배속, 기본 1)
+    private static final String REPLAY = System.getProperty("maze.replay");
+    private static final double REPLAY_SPEED = Double.parseDouble(System.getProperty("maze.replaySpeed", "1"));
+
+    private ServerConnection conn;
 
     private boolean connected = false;
     private boolean myReady   = false;
@@ -49,6 +67,7 @@ public class MazeRunnerClient extends JFrame {
     // ===== UI =====
     private JTextField tfName;
     private JTextField tfIp;
+    private JTextField tfWatch;
     private JLabel lblRole;
     private JLabel lblP1;
     private JLabel lblP2;
@@ -59,6 +78,14 @@ public class MazeRunnerClient extends JFrame {
 
     // ===== 게임 패널 =====
     private GamePanel gamePanel;
+    private EdtBatcher edt;      // 수신 스레드 → EDT (좌표는 최신 것만 묶어서)
+
+    // ===== 수신 (수신 스레드 전용) =====
+    private final TextLine text = new TextLine();
+    private static final byte[] T_P1_POS = TextLine.ascii("P1_POS|");
+    private static final byte[] T_P2_POS = TextLine.ascii("P2_POS|");
+    private static final byte[] T_SNAP   = TextLine.ascii("SNAP|");
+    private static final byte[] T_ACK    = TextLine.ascii("ACK|");
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new MazeRunnerClient().setVisible(true));
@@ -70,6 +97,7 @@ public class MazeRunnerClient extends JFrame {
 
         this.root = new JPanel(cards);
         this.gamePanel = new GamePanel(null);
+        this.edt = new EdtBatcher(gamePanel);
 
         setTitle("Maze Runner - Client");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -83,24 +111,46 @@ public class MazeRunnerClient extends JFrame {
 
         add(root);
         cards.show(root, "start");
+
+        if (REPLAY != null) startReplay(REPLAY);
+    }
+
+    /* 기록 파일 재생: 게임 화면으로 바로 가서 ReplayPlayer 가 좌표를 넣는다 (창 제목에 재생 상태) */
+    private void startReplay(String file) {
+        ReplayLog log;
+        try {
+            log = ReplayLog.open(Path.of(file));
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "기록을 열 수 없습니다: " + e.getMessage());
+            return;
+        }
+
+        ReplayPlayer player = new ReplayPlayer(log, gamePanel, REPLAY_SPEED,
+                s -> setTitle("Maze Runner - " + s));
+        if (!player.start()) {
+            JOptionPane.showMessageDialog(this, "이 클라이언트로는 기록된 미로를 만들 수 없습니다");
+            return;
+        }
+        cards.show(root, "game");
+        gamePanel.requestFocusInWindow();
     }
 
     //============================================================
     // Maze 데이터 파싱
     //============================================================
-    private int[][] parseMaze(String msg) {
+    static MazeGrid parseMaze(String msg) {
         String[] parts = msg.split("\\|");
 
         int W = Integer.parseInt(parts[1]);
         int H = Integer.parseInt(parts[2]);
         String[] cells = parts[3].split(",");
 
-        int[][] maze = new int[H][W];
+        MazeGrid maze = new MazeGrid(W, H);
         int idx = 0;
 
         for (int y = 0; y < H; y++)
             for (int x = 0; x < W; x++)
-                maze[y][x] = Integer.parseInt(cells[idx++]);
+                if (Integer.parseInt(cells[idx++]) != 0) maze.open(x, y);
 
         return maze;
     }
@@ -138,9 +188,11 @@ public class MazeRunnerClient extends JFrame {
         form.setOpaque(false);
         tfName = new JTextField("Player_" + (int)(Math.random()*9000+1000));
         tfIp   = new JTextField("127.0.0.1");
+        tfWatch = new JTextField("");
 
         form.add(labeled("닉네임", tfName));
         form.add(labeled("서버 IP", tfIp));
+        form.add(labeled("관전할 방 번호 (비우면 게임 참가)", tfWatch));
 
         AnimatedImageButton btnConnect =
                 new AnimatedImageButton(IMG_BTN_CONNECT, BTN_W, BTN_H);
@@ -197,13 +249,15 @@ public class MazeRunnerClient extends JFrame {
         btnReadyImg = new AnimatedImageButton(IMG_BTN_READY, BTN_W, BTN_H);
         btnReadyImg.addActionListener(e -> {
             myReady = !myReady;
-            send("READY " + (myReady ? "1" : "0"));
+            if (conn != null) conn.sendReady(myReady);
         });
 
         // START 버튼
         btnStartImg = new AnimatedImageButton(IMG_BTN_START, BTN_W, BTN_H);
         btnStartImg.setEnabled(false);
-        btnStartImg.addActionListener(e -> send("START"));
+        btnStartImg.addActionListener(e -> {
+            if (conn != null) conn.sendStart();
+        });
 
         JPanel players = new JPanel(new GridLayout(0, 1));
         players.setOpaque(false);
@@ -233,6 +287,7 @@ public class MazeRunnerClient extends JFrame {
         JScrollPane scroll = new JScrollPane(gamePanel);
         scroll.getVerticalScrollBar().setUnitIncrement(16);
         scroll.getHorizontalScrollBar().setUnitIncrement(16);
+        scroll.getViewport().addChangeListener(e -> gamePanel.viewScrolled());
 
         panel.add(scroll, BorderLayout.CENTER);
         return panel;
@@ -244,22 +299,40 @@ public class MazeRunnerClient extends JFrame {
     private void doConnect() {
         String ip   = tfIp.getText().trim();
         String name = tfName.getText().trim();
+        String watch = tfWatch.getText().trim();
+
+        int watchRoom;
+        try {
+            watchRoom = watch.isEmpty() ? 0 : Integer.parseInt(watch);
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "방 번호는 숫자로: " + watch);
+            return;
+        }
 
         new Thread(() -> {
             try {
-                socket = new Socket(ip, 5000);
+                // 관전: 관전 포트로 붙어 방만 고른다 (입력은 보내지 않는다)
+                if (watchRoom > 0) {
+                    conn = new ServerConnection(ip, WATCH_PORT, USE_BINARY);
+                    connected = true;
+                    gamePanel.setNetworkOutput(null);
+                    new Thread(this::recvLoop).start();
+                    conn.sendWatch(watchRoom);
+
+                    SwingUtilities.invokeLater(() -> cards.show(root, "lobby"));
+                    return;
+                }
 
-                in  = new BufferedReader(new InputStreamReader(
-                        socket.getInputStream(), "UTF-8"));
-                out = new PrintWriter(new OutputStreamWriter(
-                        socket.getOutputStream(), "UTF-8"), true);
+                conn = new ServerConnection(ip, 5000, USE_BINARY);
 
                 connected = true;
 
-                gamePanel.setNetworkOutput(out);
+                gamePanel.setNetworkOutput(conn);
                 new Thread(this::recvLoop).start();
 
-                send("JOIN " + name);
+                conn.sendMazeGen(MakeMaze.VERSION);
+                if (MAZE_ROWS) conn.sendMazeRows();
+                conn.sendJoin(name);
 
                 SwingUtilities.invokeLater(() -> {
                     JOptionPane.showMessageDialog(this, "서버 연결 성공!");
@@ -273,61 +346,25 @@ public class MazeRunnerClient extends JFrame {
         }).start();
     }
 
-    private void send(String msg) {
-        if (out != null) out.println(msg);
-    }
-
     //============================================================
     // 서버 메시지 루프
     //============================================================
     private void recvLoop() {
         try {
-            String line;
-            while ((line = in.readLine()) != null) {
-                String msg = line.trim();
-
-                if (msg.startsWith("ROLE")) {
-                    myRole = Integer.parseInt(msg.split("\\s+")[1]);
-                    isHost = (myRole == 1);
-
-                    SwingUtilities.invokeLater(() ->
-                            lblRole.setText("역할: " + (isHost ? "HOST" : "CLIENT"))
-                    );
-
-                } else if (msg.startsWith("STATE|")) {
-                    handleState(msg);
-
-                } else if (msg.startsWith("MAZE|")) {
-                    int[][] maze = parseMaze(msg);
-                    SwingUtilities.invokeLater(() -> gamePanel.setMaze(maze));
-
-                } else if (msg.startsWith("EXIT|")) {
-                    String[] sp = msg.split("\\|");
-                    int ex = Integer.parseInt(sp[1]);
-                    int ey = Integer.parseInt(sp[2]);
-                    SwingUtilities.invokeLater(() -> gamePanel.setExit(ex, ey));
-
-                } else if (msg.startsWith("P1_POS|")) {
-                    String[] sp = msg.split("\\|");
-                    SwingUtilities.invokeLater(() ->
-                            gamePanel.updatePlayer1Position(
-                                    Integer.parseInt(sp[1]),
-                                    Integer.parseInt(sp[2])
-                            ));
-
-                } else if (msg.startsWith("P2_POS|")) {
-                    String[] sp = msg.split("\\|");
-                    SwingUtilities.invokeLater(() ->
-                            gamePanel.updatePlayer2Position(
-                                    Integer.parseInt(sp[1]),
-                                    Integer.parseInt(sp[2])
-                            ));
-
-                } else if (msg.equals("START")) {
-                    SwingUtilities.invokeLater(() -> {
-                        cards.show(root, "game");
-                        gamePanel.requestFocusInWindow();
-                    });
+            while (true) {
+                if (conn.isBinaryIn()) {
+                    ByteBuffer frame = conn.readFrame();
+                    if (frame == null) break;
+                    handleFrame(frame);
+
+                } else {
+                    ByteBuffer line = conn.readLineBuffer();
+                    if (line == null) break;
+                    if (handleHotLine(text.reset(line))) continue;
+
+                    String msg = text.toString().trim();
+                    if (msg.equals(BinaryProtocol.ACK)) conn.switchToFrames();
+                    else handleLine(msg);
                 }
             }
         } catch (Exception e) {
@@ -335,22 +372,275 @@ public class MazeRunnerClient extends JFrame {
         }
     }
 
+    /*
+     * 게임 중 계속 오는 좌표 / ACK 줄은 String 없이 제자리에서 읽는다. 그런 줄이 아니면 false
+     * (나머지는 handleLine 이 String 으로 처리)
+     */
+    private boolean handleHotLine(TextLine t) {
+        if (t.startsWith(T_P1_POS)) {
+            edt.player1(t.nextInt(), t.nextInt());
+        } else if (t.startsWith(T_P2_POS)) {
+            edt.player2(t.nextInt(), t.nextInt());
+        } else if (t.startsWith(T_SNAP)) {
+            edt.snapshot(t.nextInt(), t.nextInt(), t.nextInt(), t.nextInt());
+        } else if (t.startsWith(T_ACK)) {
+            edt.ack(t.nextInt(), t.nextInt(), t.nextInt());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /* 텍스트 프로토콜 한 줄 */
+    private void handleLine(String msg) {
+        if (msg.startsWith("ROLE")) {
+            handleRole(Integer.parseInt(msg.split("\\s+")[1]));
+
+        } else if (msg.startsWith("STATE|")) {
+            handleState(msg);
+
+        } else if (msg.startsWith("MAZE|")) {
+            MazeGrid maze = parseMaze(msg);
+            edt.post(() -> gamePanel.setMaze(maze));
+
+        } else if (msg.startsWith("ROWS|")) {
+            String[] sp = msg.split("\\|");
+            int w  = Integer.parseInt(sp[1]);
+            int y0 = Integer.parseInt(sp[3]);
+            int n  = Integer.parseInt(sp[4]);
+
+            MazeGrid rows = new MazeGrid(w, n);
+            String cells = sp[5];
+            for (int i = 0; i < cells.length(); i++) {
+                if (cells.charAt(i) == '1') rows.open(i % w, i / w);
+            }
+            handleRows(Integer.parseInt(sp[2]), y0, rows);
+
+        } else if (msg.startsWith("SEED|")) {
+            String[] sp = msg.split("\\|");
+            int version = Integer.parseInt(sp[1]);
+            if (version != MakeMaze.VERSION) {
+                conn.sendMazeCheck(0);   // 형식을 모르는 버전: 서버가 미로 전체를 보내 준다
+            } else {
+                handleSeed(
+                        Integer.parseInt(sp[2]),
+                        Integer.parseInt(sp[3]),
+                        Integer.parseInt(sp[4]),
+                        Long.parseLong(sp[5]),
+                        Integer.parseInt(sp[6]));
+            }
+
+        } else if (msg.startsWith("EXIT|")) {
+            String[] sp = msg.split("\\|");
+            int ex = Integer.parseInt(sp[1]);
+            int ey = Integer.parseInt(sp[2]);
+            edt.post(() -> gamePanel.setExit(ex, ey));
+
+        } else if (msg.startsWith("HINT|")) {
+            String[] sp = msg.split("\\|");
+            handleHint(
+                    Integer.parseInt(sp[1]), Integer.parseInt(sp[2]),
+                    Integer.parseInt(sp[3]), Integer.parseInt(sp[4]));
+
+        } else if (msg.startsWith("PATH|")) {
+            String[] sp = msg.split("\\|");
+            Player.Direction[] dirs = BinaryProtocol.parseDirs(sp.length > 5 ? sp[5] : "");
+            if (dirs != null) {
+                handlePath(Integer.parseInt(sp[1]), Integer.parseInt(sp[2]), Integer.parseInt(sp[3]),
+                        Integer.parseInt(sp[4]), dirs);
+            }
+
+        } else if (msg.equals("START")) {
+            handleStart();
+
+        } else if (msg.equals("NOROOM")) {
+            SwingUtilities.invokeLater(() -> {
+                JOptionPane.showMessageDialog(this, "그런 방이 없습니다");
+                cards.show(root, "connect");
+            });
+        }
+    }
+
+    /* 바이너리 프로토콜 프레임 하나 (frame 은 다음 읽기 전까지만 유효) */
+    private void handleFrame(ByteBuffer frame) {
+        switch (frame.get()) {
+            case BinaryProtocol.S_ROLE:
+                handleRole(BinaryProtocol.getVarint(frame));
+                break;
+
+            case BinaryProtocol.S_STATE: {
+                int flags = frame.get();
+                String p1Name = BinaryProtocol.getString(frame);
+                String p2Name = BinaryProtocol.getString(frame);
+                applyState(
+                        (flags & BinaryProtocol.STATE_P1_PRESENT) != 0, p1Name,
+                        (flags & BinaryProtocol.STATE_P1_READY) != 0,
+                        (flags & BinaryProtocol.STATE_P2_PRESENT) != 0, p2Name,
+                        (flags & BinaryProtocol.STATE_P2_READY) != 0,
+                        (flags & BinaryProtocol.STATE_CAN_START) != 0);
+                break;
+            }
+
+            case BinaryProtocol.S_MAZE: {
+                MazeGrid maze = BinaryProtocol.getMaze(frame);
+                edt.post(() -> gamePanel.setMaze(maze));
+                break;
+            }
+
+            case BinaryProtocol.S_SEED: {
+                int version = BinaryProtocol.getVarint(frame);
+                if (version != MakeMaze.VERSION) {
+                    conn.sendMazeCheck(0);   // 형식을 모르는 버전: 서버가 미로 전체를 보내 준다
+                    break;
+                }
+                int algorithm = frame.get();
+                int w = BinaryProtocol.getVarint(frame);
+                int h = BinaryProtocol.getVarint(frame);
+                handleSeed(algorithm, w, h, frame.getLong(), frame.getInt());
+                break;
+            }
+
+            case BinaryProtocol.S_ROWS: {
+                int w  = BinaryProtocol.getVarint(frame);
+                int h  = BinaryProtocol.getVarint(frame);
+                int y0 = BinaryProtocol.getVarint(frame);
+                int n  = BinaryProtocol.getVarint(frame);
+                handleRows(h, y0, BinaryProtocol.getCells(frame, w, n));
+                break;
+            }
+
+            case BinaryProtocol.S_EXIT: {
+                int ex = BinaryProtocol.getVarint(frame);
+                int ey = BinaryProtocol.getVarint(frame);
+                edt.post(() -> gamePanel.setExit(ex, ey));
+                break;
+            }
+
+            case BinaryProtocol.S_POS: {
+                int player = frame.get();
+                int x = BinaryProtocol.getVarint(frame);
+                int y = BinaryProtocol.getVarint(frame);
+                if (player == 1) edt.player1(x, y);
+                else edt.player2(x, y);
+                break;
+            }
+
+            case BinaryProtocol.S_SNAP: {
+                int p1x = BinaryProtocol.getVarint(frame);
+                int p1y = BinaryProtocol.getVarint(frame);
+                int p2x = BinaryProtocol.getVarint(frame);
+                int p2y = BinaryProtocol.getVarint(frame);
+                edt.snapshot(p1x, p1y, p2x, p2y);
+                break;
+            }
+
+            case BinaryProtocol.S_ACK: {
+                int seq = BinaryProtocol.getVarint(frame);
+                int x = BinaryProtocol.getVarint(frame);
+                int y = BinaryProtocol.getVarint(frame);
+                edt.ack(seq, x, y);
+                break;
+            }
+
+            case BinaryProtocol.S_PATH: {
+                int player = frame.get();
+                int x0 = BinaryProtocol.getVarint(frame);
+                int y0 = BinaryProtocol.getVarint(frame);
+                int stepMillis = BinaryProtocol.getVarint(frame);
+                handlePath(player, x0, y0, stepMillis, BinaryProtocol.getDirs(frame));
+                break;
+            }
+
+            case BinaryProtocol.S_HINT: {
+                int nx = BinaryProtocol.getVarint(frame);
+                int ny = BinaryProtocol.getVarint(frame);
+                int dist = BinaryProtocol.getVarint(frame);
+                int other = BinaryProtocol.getVarint(frame);
+                handleHint(nx, ny, dist, other);
+                break;
+            }
+
+            case BinaryProtocol.S_START:
+                handleStart();
+                break;
+
+            default:
+                // ROOM, WIN 등은 아직 화면에서 쓰지 않음
+        }
+    }
+
+    /*
+     * 서버가 미로 대신 보낸 생성 파라미터로 직접 미로를 만든다.
+     * 만든 결과의 checksum 을 서버에 알려 주고, 서버 값과 다르면 서버가 미로 전체를 다시 보낸다.
+     */
+    private void handleSeed(int algorithmCode, int w, int h, long seed, int checksum) {
+        MazeGrid maze = null;
+        int mine = 0;
+
+        MazeAlgorithm algorithm = MazeAlgorithm.of(algorithmCode);
+        if (algorithm != null) {
+            maze = new MakeMaze(algorithm, w, h, seed).make();
+            mine = MakeMaze.checksum(maze);
+        }
+        conn.sendMazeCheck(mine);
+
+        if (maze != null && mine == checksum) {
+            MazeGrid m = maze;
+            edt.post(() -> gamePanel.setMaze(m));
+        }
+    }
+
+    /* 서버가 만드는 중인 미로의 y0 행부터 rows.height() 행 */
+    private void handleRows(int height, int y0, MazeGrid rows) {
+        edt.post(() -> gamePanel.setRows(height, y0, rows));
+    }
+
+
+    /* player 가 (x0, y0) 에서 dirs 를 따라 stepMillis 마다 한 칸씩 (빈 경로면 거기서 멈춤) */
+    private void handlePath(int player, int x0, int y0, int stepMillis, Player.Direction[] dirs) {
+        edt.post(() -> gamePanel.playPath(player, x0, y0, stepMillis, dirs));
+    }
+
+    /* 출구 쪽 다음 칸 (nx, ny) 과 나 / 상대의 남은 거리 */
+    /* 다음 칸이 -1 이면 서버가 아직 거리 표를 만드는 중 (다 되면 다시 보낸다), -2 면 이번 판은 힌트 없음 */
+    private void handleHint(int nx, int ny, int distance, int otherDistance) {
+        edt.post(() -> gamePanel.showHint(nx, ny, distance, otherDistance));
+    }
+
+    /* role 0 = 관전 */
+    private void handleRole(int role) {
+        myRole = role;
+        isHost = (myRole == 1);
+
+        edt.post(() -> {
+            lblRole.setText("역할: " + (role == 0 ? "관전" : isHost ? "HOST" : "CLIENT"));
+            btnReadyImg.setEnabled(role != 0);
+            gamePanel.setLocalPlayer(role);
+        });
+    }
+
+    private void handleStart() {
+        edt.post(() -> {
+            cards.show(root, "game");
+            gamePanel.requestFocusInWindow();
+        });
+    }
+
     //============================================================
     // STATE 처리
     //============================================================
     private void handleState(String msg) {
         String[] sp = msg.split("\\|");
 
-        boolean p1Present = sp[1].equals("1");
-        String  p1Name    = sp[2];
-        boolean p1Ready   = sp[3].equals("1");
-
-        boolean p2Present = sp[4].equals("1");
-        String  p2Name    = sp[5];
-        boolean p2Ready   = sp[6].equals("1");
-
-        boolean canStart  = sp[7].equals("1");
+        applyState(
+                sp[1].equals("1"), sp[2], sp[3].equals("1"),
+                sp[4].equals("1"), sp[5], sp[6].equals("1"),
+                sp[7].equals("1"));
+    }
 
+    private void applyState(boolean p1Present, String p1Name, boolean p1Ready,
+                            boolean p2Present, String p2Name, boolean p2Ready,
+                            boolean canStart) {
         SwingUtilities.invokeLater(() -> {
             lblP1.setText("PLAYER 1: " + (p1Present ? p1Name : "미접속") + (p1Ready ? " [READY]" : ""));
             lblP2.setText("PLAYER 2: " + (p2Present ? p2Name : "미접속") + (p2Ready ? " [READY]" : ""));
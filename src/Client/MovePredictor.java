@@ -0,0 +1,97 @@
+package Client;
+
+import maze_game.BinaryProtocol;
+import maze_game.Player;
+
+/**
+ * 내 캐릭터 이동 예측 (client-side prediction).
+ *
+ * 키를 누르면 서버 답을 기다리지 않고 내 미로 사본에서 바로 움직이고(Player.move), 그 입력에 번호(seq)를 붙여
+ * MOVE 와 같이 보낸다. 서버는 입력을 처리한 뒤 ACK(seq, x, y) 로 그때의 내 좌표를 알려 준다.
+ * ACK 가 오면 그 좌표에서 시작해 아직 답이 안 온 입력들을 다시 적용한다 (reconciliation).
+ * 예측이 맞았으면 화면은 그대로고, 틀렸으면(상대 / 틱 입력 한도 / 아직 안 온 ROWS 행) 서버 쪽으로 맞춰진다.
+ *
+ * PATH / GOTO 는 경로 하나에 번호 하나를 붙이고, 방향마다 그 번호로 기억한다 (서버는 경로 끝에서 ACK).
+ *
+ * ACK 를 한 번도 받지 못했으면(번호를 모르는 서버) 예측하지 않고 예전처럼 서버 좌표만 따른다.
+ * EDT 에서만 쓴다.
+ */
+final class MovePredictor {
+
+    /* 답을 못 받은 입력이 이만큼 쌓이면 가장 오래된 것부터 잊는다 (경로 두 개는 들어간다) */
+    private static final int MAX_PENDING = 2 * BinaryProtocol.MAX_PATH;
+
+    private final int[] seqs = new int[MAX_PENDING];
+    private final Player.Direction[] dirs = new Player.Direction[MAX_PENDING];
+    private int head, count;
+
+    private int lastSeq;        // 마지막으로 붙인 번호 (게임이 바뀌어도 이어서 올린다)
+    private int lastAck;
+    private boolean serverAcks;
+
+    /* 서버가 ACK 를 보내 주는지 (그래야 예측한다) */
+    boolean active() {
+        return serverAcks;
+    }
+
+    /* 아직 답이 안 온 입력 수 */
+    int pending() {
+        return count;
+    }
+
+    /* 입력 하나에 번호를 붙여 기억한다. 예측 중이면 me 를 바로 움직인다 */
+    int input(Player me, Player.Direction dir) {
+        int seq = ++lastSeq;
+        remember(me, seq, dir);
+        return seq;
+    }
+
+    /* 경로 하나(PATH / GOTO)에 번호 하나. 예측 중이면 me 를 경로 끝으로 옮긴다 */
+    int input(Player me, Player.Direction[] path) {
+        int seq = ++lastSeq;
+        for (Player.Direction dir : path) remember(me, seq, dir);
+        return seq;
+    }
+
+    private void remember(Player me, int seq, Player.Direction dir) {
+        if (count == MAX_PENDING) {
+            dirs[head] = null;
+            head = (head + 1) % MAX_PENDING;
+            count--;
+        }
+        int i = (head + count) % MAX_PENDING;
+        seqs[i] = seq;
+        dirs[i] = dir;
+        count++;
+
+        if (serverAcks) me.move(dir);
+    }
+
+    /*
+     * 서버가 seq 번 입력까지 처리했고 그때 내 좌표가 (x, y).
+     * 그 입력들을 지우고, 남은 입력을 서버 좌표 위에 다시 적용한다. 늦게 온 옛 ACK 는 무시.
+     */
+    void acknowledge(Player me, int seq, int x, int y) {
+        if (seq <= lastAck) return;
+        lastAck = seq;
+        serverAcks = true;
+
+        while (count > 0 && seqs[head] <= seq) {
+            dirs[head] = null;
+            head = (head + 1) % MAX_PENDING;
+            count--;
+        }
+
+        me.setPosition(x, y);
+        for (int k = 0; k < count; k++) {
+            me.move(dirs[(head + k) % MAX_PENDING]);
+        }
+    }
+
+    /* 새 미로: 남은 입력은 버리고, 그 입력들에 대한 ACK 는 옛 판의 것이므로 무시한다 */
+    void reset() {
+        for (int k = 0; k < count; k++) dirs[(head + k) % MAX_PENDING] = null;
+        head = count = 0;
+        lastAck = lastSeq;
+    }
+}
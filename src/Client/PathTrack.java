@@ -0,0 +1,112 @@
+package Client;
+
+import maze_game.BinaryProtocol;
+import maze_game.Player;
+
+/**
+ * PATH 로 받은(내가 보낸) 경로를 화면에서 따라가는 캐릭터 하나의 위치.
+ *
+ * 서버와 같은 속도로 칸마다 stepsPerCell 단계씩, 칸 사이는 픽셀 단위로 미끄러지듯 그린다.
+ * 단계는 GamePanel 의 애니메이션 루프가 고정 시간 간격으로 올린다 (advance).
+ * 가는 중에 같은 플레이어의 PATH 가 또 오면, 그 출발 칸이 지금 경로의 끝일 때 뒤에 잇는다.
+ * 칸 배열은 미리 잡아 두므로 경로가 바뀌어도 할당하지 않는다. EDT 에서만 쓴다.
+ */
+final class PathTrack {
+
+    private static final int CAPACITY = 2 * BinaryProtocol.MAX_PATH + 1;
+
+    private final int[] xs = new int[CAPACITY];     // xs[0] 은 출발 칸
+    private final int[] ys = new int[CAPACITY];
+    private final Player.Direction[] headings = new Player.Direction[CAPACITY];
+    private int length;                             // 칸 수
+    private int stepsPerCell = 1;
+    private int step;                               // 지나간 단계 (0 .. length * stepsPerCell)
+
+    boolean active() {
+        return step < length * stepsPerCell;
+    }
+
+    /* (x0, y0) 에서 dirs 를 따라간다. 가는 중인 경로 끝에서 시작하면 뒤에 잇고, 아니면 새로 */
+    void play(int x0, int y0, Player.Direction[] dirs, int stepsPerCell) {
+        if (active() && x0 == xs[length] && y0 == ys[length] && stepsPerCell == this.stepsPerCell) {
+            // 지나간 칸을 앞으로 당겨 자리를 만든다
+            int done = step / stepsPerCell;
+            if (length - done + dirs.length < CAPACITY) {
+                System.arraycopy(xs, done, xs, 0, length - done + 1);
+                System.arraycopy(ys, done, ys, 0, length - done + 1);
+                System.arraycopy(headings, done, headings, 0, length - done + 1);
+                length -= done;
+                step -= done * stepsPerCell;
+                append(dirs);
+                return;
+            }
+        }
+
+        xs[0] = x0;
+        ys[0] = y0;
+        headings[0] = dirs.length > 0 ? dirs[0] : Player.Direction.DOWN;
+        length = 0;
+        step = 0;
+        this.stepsPerCell = Math.max(1, stepsPerCell);
+        append(dirs);
+    }
+
+    private void append(Player.Direction[] dirs) {
+        for (int k = 0; k < dirs.length && length + 1 < CAPACITY; k++) {
+            int x = xs[length], y = ys[length];
+            switch (dirs[k]) {
+                case UP:    y--; break;
+                case DOWN:  y++; break;
+                case LEFT:  x--; break;
+                case RIGHT: x++; break;
+            }
+            length++;
+            xs[length] = x;
+            ys[length] = y;
+            headings[length] = dirs[k];
+        }
+    }
+
+    void stop() {
+        step = length * stepsPerCell;
+    }
+
+    /* 한 단계. 아직 가는 중이면 true */
+    boolean advance() {
+        if (active()) step++;
+        return active();
+    }
+
+    /* 경로 끝 칸 */
+    int endX() { return xs[length]; }
+    int endY() { return ys[length]; }
+
+    /* 지금 들어가 있는 칸 (시야, 카메라용) */
+    int cellX() { return xs[current()]; }
+    int cellY() { return ys[current()]; }
+
+    /* 지금 가는 방향 (걷는 그림용) */
+    Player.Direction heading() {
+        return headings[Math.min(length, step / stepsPerCell + 1)];
+    }
+
+    int pixelX(int cellSize) {
+        return pixel(xs, cellSize);
+    }
+
+    int pixelY(int cellSize) {
+        return pixel(ys, cellSize);
+    }
+
+    /* 칸 사이를 반 넘게 지나면 다음 칸으로 본다 */
+    private int current() {
+        return Math.min(length, (step + stepsPerCell / 2) / stepsPerCell);
+    }
+
+    private int pixel(int[] cells, int cellSize) {
+        int i = step / stepsPerCell;
+        if (i >= length) return cells[length] * cellSize;
+        int f = step % stepsPerCell;
+        return cells[i] * cellSize + (cells[i + 1] - cells[i]) * cellSize * f / stepsPerCell;
+    }
+}
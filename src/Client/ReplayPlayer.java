@@ -0,0 +1,127 @@
+package Client;
+
+import maze_game.MazeGrid;
+import maze_game.ReplayLog;
+
+import javax.swing.Timer;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.util.function.Consumer;
+
+/**
+ * 기록 파일(.mzr) 재생. 서버 대신 ReplayLog 커서가 GamePanel 에 좌표를 넣는다 (관전과 같은 화면, 입력 없음).
+ *
+ * 프레임(FRAME_MS)마다 재생 시각을 지난 실제 시간 x 배속만큼 올리고 그때까지의 기록을 적용한다.
+ * 배속이 아무리 커도 프레임마다 그리는 것은 마지막 좌표 하나다. 되감기 / 건너뛰기는 ReplayLog.seek (키프레임 이분 탐색).
+ *
+ *   + / -    배속 두 배 / 반 (MIN_SPEED .. MAX_SPEED)
+ *   스페이스  멈춤 / 계속
+ *   ← / →    SEEK_MS 뒤로 / 앞으로
+ *   Home     처음부터
+ *
+ * EDT 에서만 쓴다.
+ */
+final class ReplayPlayer implements KeyListener {
+
+    private static final int FRAME_MS = 16;
+    private static final int SEEK_MS = 5000;
+    private static final double MIN_SPEED = 1.0 / 8, MAX_SPEED = 64;
+
+    private final ReplayLog log;
+    private final GamePanel panel;
+    private final Consumer<String> status;     // 창 제목 등에 보여 줄 재생 상태
+    private final Timer timer = new Timer(FRAME_MS, e -> frame());
+
+    private ReplayLog.Cursor cursor;
+    private double at;              // 재생 시각 (ms)
+    private double speed;
+    private boolean paused;
+    private long last;
+
+    /* 화면에 넣은 좌표 (바뀐 캐릭터만 다시 넣는다) */
+    private final int[] shownX = new int[2], shownY = new int[2];
+    private String shownStatus;
+
+    ReplayPlayer(ReplayLog log, GamePanel panel, double speed, Consumer<String> status) {
+        this.log = log;
+        this.panel = panel;
+        this.speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+        this.status = status;
+    }
+
+    /* 기록된 seed 로 미로를 만들어 처음부터 재생한다. 이 클라이언트로 같은 미로를 만들 수 없으면 false */
+    boolean start() {
+        MazeGrid maze = log.rebuildMaze();
+        if (maze == null) return false;
+
+        panel.setNetworkOutput(null);
+        panel.setMaze(maze);
+        panel.setExit(log.exitX, log.exitY);
+        panel.setLocalPlayer(0);
+        panel.addKeyListener(this);
+
+        seek(0);
+        last = System.nanoTime();
+        timer.start();
+        return true;
+    }
+
+    private void frame() {
+        long now = System.nanoTime();
+        if (!paused) at = Math.min(log.duration(), at + (now - last) / 1e6 * speed);
+        last = now;
+
+        cursor.advanceTo((int) at);
+        show();
+    }
+
+    private void seek(double ms) {
+        at = Math.max(0, Math.min(log.duration(), ms));
+        cursor = log.seek((int) at);
+        show();
+    }
+
+    private void show() {
+        for (int p = 1; p <= 2; p++) {
+            int x = cursor.x(p), y = cursor.y(p);
+            if (x == shownX[p - 1] && y == shownY[p - 1]) continue;
+            shownX[p - 1] = x;
+            shownY[p - 1] = y;
+            if (p == 1) panel.updatePlayer1Position(x, y);
+            else panel.updatePlayer2Position(x, y);
+        }
+
+        String s = String.format("리플레이 %.1f / %.1f s  x%s%s%s",
+                at / 1000, log.duration() / 1000.0, speedText(),
+                paused ? "  (멈춤)" : "",
+                cursor.winner() != 0 ? "  P" + cursor.winner() + " 승리" : log.isComplete() ? "" : "  (끊긴 기록)");
+        if (!s.equals(shownStatus)) {
+            shownStatus = s;
+            status.accept(s);
+        }
+    }
+
+    private String speedText() {
+        return speed >= 1 ? String.valueOf((int) speed) : "1/" + (int) Math.round(1 / speed);
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_PLUS:
+            case KeyEvent.VK_EQUALS:
+            case KeyEvent.VK_ADD:      speed = Math.min(MAX_SPEED, speed * 2); break;
+            case KeyEvent.VK_MINUS:
+            case KeyEvent.VK_SUBTRACT: speed = Math.max(MIN_SPEED, speed / 2); break;
+            case KeyEvent.VK_SPACE:    paused = !paused; break;
+            case KeyEvent.VK_LEFT:     seek(at - SEEK_MS); return;
+            case KeyEvent.VK_RIGHT:    seek(at + SEEK_MS); return;
+            case KeyEvent.VK_HOME:     seek(0); return;
+            default:                   return;
+        }
+        show();
+    }
+
+    @Override public void keyReleased(KeyEvent e) {}
+    @Override public void keyTyped(KeyEvent e) {}
+}
@@ -0,0 +1,144 @@
+package Client;
+
+import maze_game.BinaryProtocol;
+import maze_game.Player;
+import maze_game.WireReader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 서버와의 연결 하나.
+ * 바이너리 프로토콜을 쓰면 접속 직후 HELLO 를 보내고, 그 다음부터 보내는 명령은 모두 프레임이다.
+ * 받는 쪽은 서버가 ACK 줄을 보낸 뒤부터 프레임으로 바뀐다 (recvLoop 에서 switchToFrames 호출).
+ */
+class ServerConnection {
+
+    private final Socket socket;
+    private final WireReader reader;
+    private final OutputStream out;
+
+    private final boolean binaryOut;
+    private boolean binaryIn = false;   // 수신 스레드 전용
+
+    ServerConnection(String host, int port, boolean binary) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+
+        this.reader = new WireReader(socket.getInputStream());
+        this.out = socket.getOutputStream();
+        this.binaryOut = binary;
+
+        if (binary) writeLine(BinaryProtocol.HELLO);
+    }
+
+    /* ========================= 수신 (수신 스레드 전용) ========================= */
+    boolean isBinaryIn() {
+        return binaryIn;
+    }
+
+    void switchToFrames() {
+        binaryIn = true;
+    }
+
+    String readLine() throws IOException {
+        return reader.readLine();
+    }
+
+    /* 줄 하나를 String 없이 (다음 읽기 전까지만 유효) */
+    ByteBuffer readLineBuffer() throws IOException {
+        return reader.readLineBuffer();
+    }
+
+    ByteBuffer readFrame() throws IOException {
+        return reader.readFrame();
+    }
+
+    /* ========================= 송신 ========================= */
+    void sendJoin(String name) {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_JOIN).string(name));
+        else writeLine("JOIN " + name);
+    }
+
+    void sendReady(boolean ready) {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_READY).put(ready ? 1 : 0));
+        else writeLine("READY " + (ready ? "1" : "0"));
+    }
+
+    void sendStart() {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_START));
+        else writeLine("START");
+    }
+
+    /* seq 는 이 입력의 번호 (서버가 ACK 로 돌려준다) */
+    void sendMove(Player.Direction dir, int seq) {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_MOVE).put(BinaryProtocol.dirCode(dir)).varint(seq));
+        else writeLine("MOVE " + dir.name() + " " + seq);
+    }
+
+    /* 지금 칸에서 dirs 를 차례로 (서버가 경로 끝에서 seq 로 ACK) */
+    void sendPath(Player.Direction[] dirs, int seq) {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_PATH).varint(seq).dirs(dirs));
+        else writeLine("PATH " + BinaryProtocol.dirsText(dirs) + " " + seq);
+    }
+
+    /* (x, y) 까지 서버가 찾은 최단 경로로 */
+    void sendGoto(int x, int y, int seq) {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_GOTO).varint(x).varint(y).varint(seq));
+        else writeLine("GOTO " + x + " " + y + " " + seq);
+    }
+
+    /* 관전 포트로 붙은 연결: roomId 번 방을 본다 */
+    void sendWatch(int roomId) {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_WATCH).varint(roomId));
+        else writeLine("WATCH " + roomId);
+    }
+
+    /* 이 클라이언트가 seed 로 미로를 다시 만들 수 있음을 알림 */
+    void sendMazeGen(int version) {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_MAZEGEN).varint(version));
+        else writeLine("MAZEGEN " + version);
+    }
+
+    /* seed 로 만들지 않고, 서버가 만드는 대로 행 단위(ROWS)로 받겠다고 알림 */
+    void sendMazeRows() {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_MAZEROWS));
+        else writeLine("MAZEROWS");
+    }
+
+    /* 출구 쪽 다음 칸 요청 (서버가 HINT 로 답함) */
+    void sendHint() {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_HINT));
+        else writeLine("HINT");
+    }
+
+    void sendMazeCheck(int checksum) {
+        if (binaryOut) writeFrame(new BinaryProtocol.Writer(BinaryProtocol.C_MAZECHK).putInt(checksum));
+        else writeLine("MAZECHK " + checksum);
+    }
+
+    private void writeLine(String line) {
+        write((line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeFrame(BinaryProtocol.Writer w) {
+        write(w.toFrame());
+    }
+
+    /* EDT 와 접속 스레드에서 같이 부르므로 동기화 */
+    private synchronized void write(byte[] bytes) {
+        try {
+            out.write(bytes);
+            out.flush();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    void close() {
+        try { socket.close(); } catch (IOException ignored) {}
+    }
+}
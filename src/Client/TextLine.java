@@ -0,0 +1,72 @@
+package Client;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 텍스트 프로토콜 한 줄("P1_POS|3|5" 처럼 '|' 로 구분된 필드)을 String 을 만들지 않고 제자리에서 읽는다.
+ * reset() 으로 WireReader 가 준 줄 버퍼를 받아, 앞에서부터 접두사 / 정수 필드를 차례로 꺼낸다.
+ * 버퍼는 다음 읽기 전까지만 유효하므로 인스턴스 하나를 수신 스레드에서만 다시 쓴다.
+ */
+final class TextLine {
+
+    private ByteBuffer buf;
+    private int pos, end;
+
+    TextLine reset(ByteBuffer line) {
+        this.buf = line;
+        this.pos = line.position();
+        this.end = line.limit();
+        return this;
+    }
+
+    /* 줄이 prefix 로 시작하면 그 뒤로 넘어가고 true */
+    boolean startsWith(byte[] prefix) {
+        if (end - pos < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(pos + i) != prefix[i]) return false;
+        }
+        pos += prefix.length;
+        return true;
+    }
+
+    /* 다음 정수 필드 (뒤의 '|' 하나까지 넘긴다). 숫자가 없거나 다른 글자가 섞였으면 NumberFormatException */
+    int nextInt() {
+        long v = nextLong();
+        if (v != (int) v) throw new NumberFormatException("int overflow");
+        return (int) v;
+    }
+
+    long nextLong() {
+        boolean negative = pos < end && buf.get(pos) == '-';
+        if (negative) pos++;
+
+        int start = pos;
+        long v = 0;
+        while (pos < end) {
+            int c = buf.get(pos);
+            if (c == '|') break;
+            if (c < '0' || c > '9' || pos - start >= 18) throw new NumberFormatException("bad field");
+            v = v * 10 + (c - '0');
+            pos++;
+        }
+        if (pos == start) throw new NumberFormatException("empty field");
+        if (pos < end) pos++;           // '|'
+        return negative ? -v : v;
+    }
+
+    /* 줄 전체 (자주 오지 않는 메시지는 String 으로 처리한다) */
+    @Override
+    public String toString() {
+        int from = buf.position();
+        if (buf.hasArray()) return new String(buf.array(), buf.arrayOffset() + from, end - from, StandardCharsets.UTF_8);
+
+        byte[] bytes = new byte[end - from];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = buf.get(from + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,111 @@
+package Server;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 서버에 접속한 클라이언트 한 명.
+ * 보낼 메시지는 모두 outbound 큐에 넣고 바로 돌아간다. 큐를 비우는 쪽(쓰기 스레드 / 이벤트 루프)과
+ * close 구현만 전송 방식(블로킹 소켓 / NIO 채널)에 따라 달라진다.
+ * room, role 은 RoomRegistry 가 자리를 배정할 때 정해진다.
+ *
+ * 관전 포트로 들어온 접속(spectator)은 자리 없이 WATCH 로 고른 방을 본다 (role 0).
+ * 방이 따라잡을 상태를 outbound 로 보낸 뒤 FEED_MARKER 를 넣으면, 쓰는 쪽은 그 뒤부터
+ * outbound 대신 방의 SpectatorFeed 를 feedCursor 부터 읽어 보낸다.
+ */
+abstract class Client {
+    volatile Room room;
+    volatile int role;
+
+    final OutboundQueue outbound;
+    final ServerMetrics metrics;
+
+    /* 관전 접속이면 WATCH 로 방을 찾을 곳, 아니면 null */
+    final RoomRegistry watchRooms;
+
+    /* outbound 에서 이것을 꺼내면 그 뒤로는 feed 를 읽는다 (크기 0, 같은 배열인지로만 비교) */
+    static final byte[] FEED_MARKER = new byte[0];
+
+    /* 샤드가 FEED_MARKER 를 넣기 전에 정하고, 쓰는 쪽은 마커를 꺼낸 뒤에만 읽는다 */
+    SpectatorFeed feed;
+    long feedCursor;            // 다음에 보낼 feed 번호 (쓰는 쪽 전용)
+    boolean feedBinary;
+
+    /* 읽는 스레드(핸들러 스레드 또는 이벤트 루프)에서만 사용 */
+    final InboundDecoder decoder = new InboundDecoder(new CommandDispatcher(this));
+
+    /* 아래는 방의 샤드 스레드에서만 사용 */
+    String name = "";
+    boolean ready = false;
+    boolean binary = false;     // HELLO 협상 이후 바이너리 프레임으로 전송
+    int mazeGen = 0;            // 클라이언트가 가진 MakeMaze.VERSION (0 이면 미로 전체를 보낸다)
+    boolean mazeRows = false;   // MAZEROWS: 미로를 만들어지는 대로 ROWS 로 받는다
+    int moveSeq = 0;            // 마지막으로 받은 MOVE 번호 (0 = 번호 없이 보내는 클라이언트)
+    int ackedSeq = 0;           // 마지막으로 ACK 를 보낸 번호
+
+    Client(long maxOutboundBytes, ServerMetrics metrics) {
+        this(maxOutboundBytes, metrics, null);
+    }
+
+    Client(long maxOutboundBytes, ServerMetrics metrics, RoomRegistry watchRooms) {
+        this.outbound = new OutboundQueue(maxOutboundBytes);
+        this.metrics = metrics;
+        this.watchRooms = watchRooms;
+    }
+
+    boolean spectator() {
+        return watchRooms != null;
+    }
+
+    /* 협상된 인코딩으로 전송 */
+    void send(Message m) {
+        byte[] bytes = binary ? m.frame() : m.line();
+        metrics.sent(m.type(), bytes.length);
+        enqueue(bytes, m.coalesceKey());
+    }
+
+    /* 협상과 무관하게 텍스트 한 줄 전송 (FULL, 협상 응답) */
+    void sendLine(String msg) {
+        byte[] bytes = (msg + "\n").getBytes(StandardCharsets.UTF_8);
+        metrics.sent(0, bytes.length);
+        enqueue(bytes, 0);
+    }
+
+    private void enqueue(byte[] bytes, int coalesceKey) {
+        long queued = outbound.offer(bytes, coalesceKey);
+        if (queued < 0) {
+            System.out.println("[Server] Slow consumer, closing (role " + role + ", "
+                    + outbound.bytes() + " bytes queued)");
+            metrics.slowConsumerClosed();
+            close();
+            return;
+        }
+        metrics.outboundBytes.record(queued);
+        onQueued();
+    }
+
+    /* 샤드 스레드: 지금까지 보낸 것 다음부터는 feed 에서 (그 사이의 방 소식은 feed 에 남아 있다) */
+    void watchFeed(SpectatorFeed feed) {
+        this.feed = feed;
+        this.feedCursor = feed.published();
+        this.feedBinary = binary;
+        enqueue(FEED_MARKER, 0);
+    }
+
+    /* feed 가 CAPACITY 넘게 밀려 보낼 칸이 이미 덮였다 (쓰는 쪽에서 호출) */
+    void feedOverrun() {
+        System.out.println("[Server] Spectator fell behind, closing (" + (feed.published() - feedCursor) + " messages)");
+        metrics.slowConsumerClosed();
+        close();
+    }
+
+    /* 큐에 새 메시지가 들어왔을 때 (NIO 는 이벤트 루프를 깨운다) */
+    void onQueued() {}
+
+    /* 남은 메시지를 다 보낸 뒤 닫는다 */
+    void closeAfterFlush() {
+        outbound.finish();
+        onQueued();
+    }
+
+    abstract void close();
+}
@@ -0,0 +1,267 @@
+package Server;
+
+import maze_game.BinaryProtocol;
+import maze_game.Player;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 클라이언트 한 명의 입력(텍스트 줄 / 바이너리 프레임)을 해석해서
+ * 그 클라이언트가 속한 방의 샤드 스레드로 명령을 넘긴다.
+ * 읽는 스레드에서 불리며, 방 상태는 직접 건드리지 않는다.
+ *
+ * 관전 접속은 HELLO 와 WATCH 만 받는다 (게임 명령은 무시). 아직 방이 없으므로 HELLO 응답도 여기서 보낸다.
+ */
+class CommandDispatcher implements InboundDecoder.Handler {
+
+    /* ServerMetrics 의 받은 명령 칸: HELLO 는 바이너리 타입 코드가 없어 C_* 바로 앞 번호를 쓴다 */
+    private static final int HELLO = 0x20;
+
+    private final Client c;
+
+    CommandDispatcher(Client c) {
+        this.c = c;
+    }
+
+    @Override
+    public void onLine(String line) {
+        if (c.spectator()) {
+            spectatorLine(line.trim());
+            return;
+        }
+
+        Room room = c.room;
+        if (room == null) return;
+
+        line = line.trim();
+        long receivedAt = System.nanoTime();
+
+        /* 바이너리 협상: 다음 바이트부터 프레임 */
+        if (line.equals(BinaryProtocol.HELLO)) {
+            c.metrics.received(HELLO);
+            c.decoder.switchToFrames();
+            room.execute(() -> room.onHello(c));
+        }
+
+        /* JOIN */
+        else if (line.startsWith("JOIN ")) {
+            String name = line.substring(5).trim();
+            c.metrics.received(BinaryProtocol.C_JOIN);
+            room.execute(() -> room.onJoin(c, name));
+        }
+
+        /* READY */
+        else if (line.startsWith("READY ")) {
+            boolean ready = "1".equals(line.substring(6).trim());
+            c.metrics.received(BinaryProtocol.C_READY);
+            room.execute(() -> room.onReady(c, ready));
+        }
+
+        /* START */
+        else if (line.equals("START")) {
+            c.metrics.received(BinaryProtocol.C_START);
+            room.execute(() -> room.onStart(c, receivedAt));
+        }
+
+        /* MOVE DIR [seq] */
+        else if (line.startsWith("MOVE ")) {
+            String[] args = line.substring(5).trim().split("\\s+");
+            Player.Direction dir = parseDir(args[0]);
+            int seq = 0;
+            if (args.length > 1) {
+                try {
+                    seq = Integer.parseInt(args[1]);
+                } catch (NumberFormatException e) {
+                    return;
+                }
+            }
+            c.metrics.received(BinaryProtocol.C_MOVE);
+            if (dir != null) move(room, dir, seq, receivedAt);
+        }
+
+        /* PATH DIRS [seq]: DIRS 는 U / D / R / L 글자들 */
+        else if (line.startsWith("PATH ")) {
+            String[] args = line.substring(5).trim().split("\\s+");
+            Player.Direction[] dirs = BinaryProtocol.parseDirs(args[0]);
+            int seq;
+            try {
+                seq = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+            } catch (NumberFormatException e) {
+                return;
+            }
+            c.metrics.received(BinaryProtocol.C_PATH);
+            if (dirs != null) room.execute(() -> room.onPath(c, dirs, seq));
+        }
+
+        /* GOTO x y [seq] */
+        else if (line.startsWith("GOTO ")) {
+            String[] args = line.substring(5).trim().split("\\s+");
+            int x, y, seq;
+            try {
+                x = Integer.parseInt(args[0]);
+                y = Integer.parseInt(args[1]);
+                seq = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+            } catch (RuntimeException e) {      // 숫자가 아니거나 모자람
+                return;
+            }
+            c.metrics.received(BinaryProtocol.C_GOTO);
+            room.execute(() -> room.onGoto(c, x, y, seq));
+        }
+
+        /* 클라이언트의 미로 생성기 버전 / 다시 만든 미로의 checksum */
+        else if (line.startsWith("MAZEGEN ") || line.startsWith("MAZECHK ")) {
+            int value;
+            try {
+                value = Integer.parseInt(line.substring(8).trim());
+            } catch (NumberFormatException e) {
+                return;
+            }
+            if (line.startsWith("MAZEGEN ")) {
+                c.metrics.received(BinaryProtocol.C_MAZEGEN);
+                room.execute(() -> room.onMazeGen(c, value));
+            } else {
+                c.metrics.received(BinaryProtocol.C_MAZECHK);
+                room.execute(() -> room.onMazeCheck(c, value));
+            }
+        }
+
+        /* seed 대신 만들어지는 대로 행 단위로 받기 */
+        else if (line.equals("MAZEROWS")) {
+            c.metrics.received(BinaryProtocol.C_MAZEROWS);
+            room.execute(() -> room.onMazeRows(c));
+        }
+
+        /* 출구 쪽 다음 칸 */
+        else if (line.equals("HINT")) {
+            c.metrics.received(BinaryProtocol.C_HINT);
+            room.execute(() -> room.onHint(c));
+        }
+    }
+
+    @Override
+    public void onFrame(ByteBuffer frame) {
+        if (c.spectator()) {
+            try {
+                if (frame.get() == BinaryProtocol.C_WATCH) watch(BinaryProtocol.getVarint(frame));
+            } catch (RuntimeException e) {
+                System.out.println("[Server] Bad frame from spectator: " + e);
+            }
+            return;
+        }
+
+        Room room = c.room;
+        if (room == null) return;
+
+        try {
+            dispatch(room, frame);
+        } catch (RuntimeException e) {
+            // 잘린 프레임, 잘못된 varint 등: 그 프레임만 버린다
+            System.out.println("[Server] Bad frame from role " + c.role + ": " + e);
+        }
+    }
+
+    private void dispatch(Room room, ByteBuffer frame) {
+        long receivedAt = System.nanoTime();
+        byte type = frame.get();
+        c.metrics.received(type);
+
+        switch (type) {
+            case BinaryProtocol.C_JOIN: {
+                String name = BinaryProtocol.getString(frame).trim();
+                room.execute(() -> room.onJoin(c, name));
+                break;
+            }
+            case BinaryProtocol.C_READY: {
+                boolean ready = frame.get() != 0;
+                room.execute(() -> room.onReady(c, ready));
+                break;
+            }
+            case BinaryProtocol.C_START:
+                room.execute(() -> room.onStart(c, receivedAt));
+                break;
+            case BinaryProtocol.C_MOVE: {
+                Player.Direction dir = BinaryProtocol.dirOf(frame.get());
+                int seq = frame.hasRemaining() ? BinaryProtocol.getVarint(frame) : 0;
+                if (dir != null) move(room, dir, seq, receivedAt);
+                break;
+            }
+            case BinaryProtocol.C_PATH: {
+                int seq = BinaryProtocol.getVarint(frame);
+                Player.Direction[] dirs = BinaryProtocol.getDirs(frame);
+                room.execute(() -> room.onPath(c, dirs, seq));
+                break;
+            }
+            case BinaryProtocol.C_GOTO: {
+                int x = BinaryProtocol.getVarint(frame);
+                int y = BinaryProtocol.getVarint(frame);
+                int seq = BinaryProtocol.getVarint(frame);
+                room.execute(() -> room.onGoto(c, x, y, seq));
+                break;
+            }
+            case BinaryProtocol.C_MAZEGEN: {
+                int version = BinaryProtocol.getVarint(frame);
+                room.execute(() -> room.onMazeGen(c, version));
+                break;
+            }
+            case BinaryProtocol.C_MAZECHK: {
+                int checksum = frame.getInt();
+                room.execute(() -> room.onMazeCheck(c, checksum));
+                break;
+            }
+            case BinaryProtocol.C_MAZEROWS:
+                room.execute(() -> room.onMazeRows(c));
+                break;
+            case BinaryProtocol.C_HINT:
+                room.execute(() -> room.onHint(c));
+                break;
+            default:
+                // 모르는 타입은 무시
+        }
+    }
+
+    /* 관전 접속: HELLO BIN / WATCH <방 번호> */
+    private void spectatorLine(String line) {
+        if (line.equals(BinaryProtocol.HELLO) && c.room == null && !c.binary) {
+            c.metrics.received(HELLO);
+            c.decoder.switchToFrames();
+            c.sendLine(BinaryProtocol.ACK);
+            c.binary = true;        // 방이 없으니 아직 이 스레드만 본다 (WATCH 이후로는 샤드로 넘어간다)
+        } else if (line.startsWith("WATCH ")) {
+            int id;
+            try {
+                id = Integer.parseInt(line.substring(6).trim());
+            } catch (NumberFormatException e) {
+                return;
+            }
+            watch(id);
+        }
+    }
+
+    /* 없는 방이면 (텍스트면 NOROOM 한 줄을 보내고) 끊는다. 두 번째 WATCH 는 무시 */
+    private void watch(int roomId) {
+        c.metrics.received(BinaryProtocol.C_WATCH);
+        if (c.room != null) return;
+        if (!c.watchRooms.watch(c, roomId)) {
+            if (!c.binary) c.sendLine("NOROOM");
+            c.closeAfterFlush();
+        }
+    }
+
+    /* MOVE 지연 = 읽은 시각부터 샤드에서 처리(브로드캐스트 포함)가 끝날 때까지. 틱 모드면 입력 큐에 넣을 때까지 */
+    private void move(Room room, Player.Direction dir, int seq, long receivedAt) {
+        room.execute(() -> {
+            room.onMove(c, dir, seq);
+            c.metrics.moveLatency.record(System.nanoTime() - receivedAt);
+        });
+    }
+
+    private static Player.Direction parseDir(String s) {
+        switch (s) {
+            case "UP":    return Player.Direction.UP;
+            case "DOWN":  return Player.Direction.DOWN;
+            case "LEFT":  return Player.Direction.LEFT;
+            case "RIGHT": return Player.Direction.RIGHT;
+            default:      return null;
+        }
+    }
+}
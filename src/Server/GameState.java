@@ -1,61 +1,274 @@
 package Server;
 
+import maze_game.DistanceField;
 import maze_game.MakeMaze;
+import maze_game.MazeAlgorithm;
+import maze_game.MazeGrid;
+import maze_game.MazeRowStream;
+import maze_game.MazeSolver;
+import maze_game.Player;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 미로 한 판의 상태.
+ *
+ * 두 플레이어 좌표와 승자를 long 하나에 묶어 AtomicLong 으로 들고 있고, 이동은 CAS 로만 바꾼다.
+ * 출구에 닿는 이동은 같은 CAS 안에서 승자까지 기록하므로, 여러 스레드가 동시에 move 해도
+ * 승자는 정확히 한 번만 정해진다 (둘 다 WIN 이거나 아무도 WIN 이 아닌 경우가 없다).
+ *
+ *   비트  0-14 p1x | 15-29 p1y | 30-44 p2x | 45-59 p2y | 60-61 winner (0 진행 중, 3 미로 준비 중)
+ *
+ * maze, exit 등은 미로를 만드는 쪽(beginMaze / generateRows)에서만 쓰고, 다 만든 뒤 state 를 set 해서 공개한다.
+ * 그러므로 move() 는 항상 state 를 먼저 읽는다.
+ *
+ * 한 행씩 만들 수 있는 알고리즘(Eller)은 beginMaze() 뒤 generateRows() 를 여러 번 불러 나눠 만들 수 있다.
+ * 그동안 maze 에는 rowsReady() 행까지만 채워져 있다.
+ */
 public class GameState {
 
-    private final int W = 41;
-    private final int H = 31;
+    public enum MoveResult {
+        MOVED,      // 이동함
+        BLOCKED,    // 벽이라 그대로
+        WON,        // 이 이동으로 출구 도착: 이 플레이어가 승자 (한 판에 한 번만)
+        FINISHED    // 이미 끝난 판
+    }
+
+    /* 좌표 하나가 쓸 수 있는 비트 수 → 미로 한 변 최대 32767 */
+    private static final int BITS = 15;
+    private static final long MASK = (1L << BITS) - 1;
+    public static final int MAX_SIDE = (int) MASK;
+
+    private static final int PREPARING = 3;
 
-    public int[][] maze;
+    /* 기본 미로 크기 (예전 고정값) */
+    public static final int DEFAULT_W = 41;
+    public static final int DEFAULT_H = 31;
+
+    public final int W;
+    public final int H;
+    public final MazeAlgorithm algorithm;
+
+    public MazeGrid maze;
     public int exitX, exitY;
 
-    public int p1x, p1y;
-    public int p2x, p2y;
+    public long seed;
+    public int mazeChecksum;
 
-    public void generateMaze() {
-        MakeMaze mk = new MakeMaze(W, H, System.currentTimeMillis());
-        maze = mk.make();
-        exitX = mk.getExitX();
-        exitY = mk.getExitY();
+    private final AtomicLong state = new AtomicLong(pack(0, 0, 0, 0, PREPARING));
+
+    /* 출구까지의 거리 표. 미로마다 처음 필요할 때 한 번 만든다 */
+    private DistanceField exitField;
+
+    /* GOTO 경로 찾기 (작업 배열을 들고 있어 미로마다 하나) */
+    private MazeSolver solver;
+
+    /* 행 단위로 만드는 중에만 쓴다 */
+    private MakeMaze maker;
+    private MazeRowStream rows;
+    private long[] rowBuf;
+    private int rowsReady;
+
+    public GameState() {
+        this(DEFAULT_W, DEFAULT_H, MazeAlgorithm.DFS);
+    }
+
+    /*
+     * 테두리 벽 + 칸 한 개는 있어야 하므로 한 변은 최소 3, 좌표 비트 때문에 최대 MAX_SIDE.
+     * 칸이 홀수 좌표에 놓이므로 짝수 크기면 오른쪽 테두리 안쪽이 모두 벽이라 출구를 낼 수 없다.
+     */
+    public GameState(int w, int h, MazeAlgorithm algorithm) {
+        if (w < 3 || h < 3 || w > MAX_SIDE || h > MAX_SIDE || w % 2 == 0 || h % 2 == 0) {
+            throw new IllegalArgumentException("maze size " + w + "x" + h);
+        }
+        this.W = w;
+        this.H = h;
+        this.algorithm = algorithm;
+    }
 
-        p1x = 1; p1y = 1;
-        p2x = 1; p2y = 1;
+    /* 미로를 한 번에 다 만든다 */
+    public void generateMaze() {
+        beginMaze();
+        generateRows(H);
     }
 
-    public void movePlayer1(String dir) { move(dir, true); }
-    public void movePlayer2(String dir) { move(dir, false); }
+    /**
+     * 새 판 준비: seed 를 정한다. 한 행씩 만들 수 있는 알고리즘이면 빈 미로만 잡아 두고,
+     * 아니면 여기서 다 만든다. 미로가 다 될 때까지(isMazeReady) move() 는 BLOCKED.
+     */
+    public void beginMaze() {
+        clear();
+        seed = System.currentTimeMillis();
 
-    private void move(String dir, boolean isP1) {
-        int x = isP1 ? p1x : p2x;
-        int y = isP1 ? p1y : p2y;
+        maker = new MakeMaze(algorithm, W, H, seed);
+        rows = maker.streamRows();
 
-        int nx = x, ny = y;
-        switch (dir) {
-            case "UP":    ny--; break;
-            case "DOWN":  ny++; break;
-            case "LEFT":  nx--; break;
-            case "RIGHT": nx++; break;
+        if (rows == null) {
+            maze = maker.make();
+            rowsReady = H;
+            finishMaze();
+        } else {
+            maze = new MazeGrid(W, H);
+            rowBuf = new long[maze.rowWords()];
+            rowsReady = 0;
         }
+    }
+
+    /* 최대 maxRows 행을 더 만든다. 미로가 다 만들어졌으면 true */
+    public boolean generateRows(int maxRows) {
+        if (rows != null) {
+            for (int i = 0; i < maxRows && rows.nextY() < H; i++) {
+                int y = rows.next(rowBuf);
+                maze.setRow(y, rowBuf);
+            }
+            rowsReady = rows.nextY();
 
-        if (maze[ny][nx] == 1) {
-            if (isP1) { p1x = nx; p1y = ny; }
-            else { p2x = nx; p2y = ny; }
+            if (rowsReady == H) {
+                rows = null;
+                rowBuf = null;
+                maker.finish(maze);
+                finishMaze();
+            }
         }
+        return isMazeReady();
+    }
+
+    /* 지난 판을 닫는다: 다음 미로가 준비될 때까지 move() 는 BLOCKED */
+    public void clear() {
+        state.set(pack(0, 0, 0, 0, PREPARING));
+        exitField = null;
+        solver = null;
     }
 
-    // ★★★ 여기 중요 ★★★
-    public String mazeToString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("MAZE|").append(W).append("|").append(H).append("|");
+    /* 미리 만들어 둔 미로로 새 판을 바로 시작한다 (MazePool) */
+    public void useMaze(PreparedMaze p) {
+        if (p.maze.width() != W || p.maze.height() != H || p.algorithm != algorithm) {
+            throw new IllegalArgumentException("maze " + p.maze.width() + "x" + p.maze.height());
+        }
+        rows = null;
+        rowBuf = null;
+        maker = null;
 
-        for (int y = 0; y < H; y++) {
-            for (int x = 0; x < W; x++) {
-                sb.append(maze[y][x]);
-                if (!(x == W - 1 && y == H - 1)) sb.append(",");
+        maze = p.maze;
+        seed = p.seed;
+        mazeChecksum = p.checksum;
+        exitX = p.exitX;
+        exitY = p.exitY;
+        rowsReady = H;
+        exitField = null;
+        solver = null;
+
+        state.set(pack(1, 1, 1, 1, 0));
+    }
+
+    private void finishMaze() {
+        mazeChecksum = MakeMaze.checksum(maze);
+        exitX = maker.getExitX();
+        exitY = maker.getExitY();
+        maker = null;
+
+        state.set(pack(1, 1, 1, 1, 0));
+    }
+
+    /* maze 에 채워진 행 수 (0 .. H) */
+    public int rowsReady() {
+        return rowsReady;
+    }
+
+    public boolean isMazeReady() {
+        return winner(state.get()) != PREPARING;
+    }
+
+    /*
+     * 출구까지의 거리 표 (힌트, 진행도 비교용). 아직 만들지 않았거나 미로가 준비되기 전이면 null.
+     * 여기서는 만들지 않는다: 큰 미로는 BFS 에 수백 ms 가 걸리므로 다른 스레드에서 만들어 setExitDistances 로 넣는다.
+     * 미로를 만드는 쪽과 같은 스레드에서 불러야 한다 (방이면 샤드 스레드).
+     */
+    public DistanceField exitDistances() {
+        return isMazeReady() ? exitField : null;
+    }
+
+    /* forMaze 로 만든 거리 표를 넣는다. 그 사이 다음 판으로 미로가 바뀌었으면 버리고 false. exitDistances() 와 같은 스레드에서만 */
+    public boolean setExitDistances(MazeGrid forMaze, DistanceField field) {
+        if (forMaze != maze || !isMazeReady()) return false;
+        exitField = field;
+        return true;
+    }
+
+    /* 이 미로의 길 찾기. 미로가 준비되기 전이면 null. exitDistances() 와 같은 스레드에서만 */
+    public MazeSolver solver() {
+        if (!isMazeReady()) return null;
+        if (solver == null) solver = new MazeSolver(maze);
+        return solver;
+    }
+
+    /* player 는 1 또는 2 */
+    public MoveResult move(int player, Player.Direction dir) {
+        while (true) {
+            long s = state.get();
+            int w = winner(s);
+            if (w == PREPARING) return MoveResult.BLOCKED;
+            if (w != 0) return MoveResult.FINISHED;
+
+            int x = x(s, player);
+            int y = y(s, player);
+
+            int nx = x, ny = y;
+            switch (dir) {
+                case UP:    ny--; break;
+                case DOWN:  ny++; break;
+                case LEFT:  nx--; break;
+                case RIGHT: nx++; break;
             }
+
+            if (!maze.isOpen(nx, ny)) return MoveResult.BLOCKED;   // 미로 밖도 벽
+
+            boolean won = (nx == exitX && ny == exitY);
+
+            long next = withPosition(s, player, nx, ny);
+            if (won) next |= (long) player << (BITS * 4);
+
+            if (state.compareAndSet(s, next)) {
+                return won ? MoveResult.WON : MoveResult.MOVED;
+            }
+            // 다른 스레드가 먼저 바꿨으면 새 값으로 다시
         }
+    }
+
+    /* 현재 상태 한 덩어리 (좌표 네 개 + 승자를 한 시점에 읽을 때) */
+    public long state() {
+        return state.get();
+    }
+
+    public int getX(int player) { return x(state.get(), player); }
+    public int getY(int player) { return y(state.get(), player); }
+    public int getWinner()      { int w = winner(state.get()); return w == PREPARING ? 0 : w; }
+
+
+    /* ================= state 값 풀기 / 묶기 ================= */
+    public static int x(long s, int player) {
+        return (int) ((s >>> (player == 1 ? 0 : BITS * 2)) & MASK);
+    }
+
+    public static int y(long s, int player) {
+        return (int) ((s >>> (player == 1 ? BITS : BITS * 3)) & MASK);
+    }
+
+    public static int winner(long s) {
+        return (int) ((s >>> (BITS * 4)) & 3);
+    }
+
+    private static long pack(int p1x, int p1y, int p2x, int p2y, int winner) {
+        return p1x
+                | (long) p1y << BITS
+                | (long) p2x << (BITS * 2)
+                | (long) p2y << (BITS * 3)
+                | (long) winner << (BITS * 4);
+    }
 
-        return sb.toString();
+    private static long withPosition(long s, int player, int x, int y) {
+        int shift = (player == 1) ? 0 : BITS * 2;
+        long cleared = s & ~(((1L << (BITS * 2)) - 1) << shift);
+        return cleared | ((long) x | (long) y << BITS) << shift;
     }
 }
@@ -0,0 +1,113 @@
+package Server;
+
+import maze_game.BinaryProtocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 클라이언트가 보낸 바이트를 줄('\n') 또는 바이너리 프레임 단위로 잘라주는 디코더.
+ * NIO 채널처럼 한 번에 몇 바이트가 들어올지 모르는 곳에서 사용한다.
+ *
+ * 처음에는 텍스트 모드이고, 핸들러가 switchToFrames() 를 부르면
+ * 바로 다음 바이트부터 프레임(varint 길이 + 본문)으로 읽는다.
+ */
+class InboundDecoder {
+
+    /* 한 줄이 이보다 길면 비정상 클라이언트로 본다 */
+    static final int MAX_LINE = 64 * 1024;
+
+    interface Handler {
+        void onLine(String line);
+
+        /* frame 은 타입 바이트부터 시작하는 본문. 호출이 끝나면 재사용되므로 보관하지 말 것 */
+        void onFrame(ByteBuffer frame);
+    }
+
+    private final Handler handler;
+
+    private byte[] buf = new byte[256];
+    private ByteBuffer view = ByteBuffer.wrap(buf);
+    private int len = 0;
+
+    private boolean frames = false;
+    private int frameLen = -1;      // 프레임 모드에서 본문 길이 (-1 이면 아직 길이를 읽는 중)
+    private int lenShift = 0;
+    private int lenAcc = 0;
+
+    InboundDecoder(Handler handler) {
+        this.handler = handler;
+    }
+
+    void switchToFrames() {
+        frames = true;
+    }
+
+    /**
+     * src 에 남은 바이트를 모두 소비하고, 완성된 줄/프레임마다 handler 를 호출한다.
+     * @return 길이 제한을 넘으면 false
+     */
+    boolean feed(ByteBuffer src) {
+        while (src.hasRemaining()) {
+            if (frames) {
+                if (!feedFrame(src)) return false;
+                continue;
+            }
+
+            byte b = src.get();
+
+            if (b == '\n') {
+                int end = len;
+                if (end > 0 && buf[end - 1] == '\r') end--;
+                String line = new String(buf, 0, end, StandardCharsets.UTF_8);
+                len = 0;
+                handler.onLine(line);
+                continue;
+            }
+
+            if (len >= MAX_LINE) return false;
+            ensure(len + 1);
+            buf[len++] = b;
+        }
+        return true;
+    }
+
+    private boolean feedFrame(ByteBuffer src) {
+        // 1) 길이 varint
+        if (frameLen < 0) {
+            int b = src.get();
+            lenAcc |= (b & 0x7F) << lenShift;
+            lenShift += 7;
+            if ((b & 0x80) != 0) return lenShift < 35;
+
+            if (lenAcc <= 0 || lenAcc > BinaryProtocol.MAX_FRAME) return false;
+            frameLen = lenAcc;
+            lenAcc = 0;
+            lenShift = 0;
+            len = 0;
+            ensure(frameLen);
+        }
+
+        // 2) 본문
+        int n = Math.min(frameLen - len, src.remaining());
+        src.get(buf, len, n);
+        len += n;
+
+        if (len == frameLen) {
+            view.limit(frameLen).position(0);
+            frameLen = -1;
+            len = 0;
+            handler.onFrame(view);
+        }
+        return true;
+    }
+
+    private void ensure(int size) {
+        if (size > buf.length) {
+            byte[] n = new byte[Math.max(size, buf.length * 2)];
+            System.arraycopy(buf, 0, n, 0, len);
+            buf = n;
+            view = ByteBuffer.wrap(buf);
+        }
+    }
+}
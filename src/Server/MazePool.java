@@ -0,0 +1,239 @@
+package Server;
+
+import maze_game.MazeAlgorithm;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 미리 만들어 둔 미로 풀.
+ *
+ * 크기 + 알고리즘(Key) 마다 target 개씩 쌓아 두고, 낮은 우선순위 스레드 하나가 모자란 만큼 채운다.
+ * 쌓아 둔 미로 전체가 maxBytes 를 넘지 않게 채운다.
+ *
+ * take() 는 쌓인 게 있으면 바로(O(1)) 넘겨준다. 비어 있으면 기다리는 줄에 올려 두고 풀 스레드가
+ * 다음에 만든 것을 넘겨준다. 어느 쪽이든 미로 생성은 풀 스레드에서만 돌고, 방(샤드)에서는 돌지 않는다.
+ * 그래서 방 여러 개가 한꺼번에 시작해도 요청 경로에 생성 CPU 가 몰리지 않는다.
+ */
+class MazePool {
+
+    static final class Key {
+        final int width;
+        final int height;
+        final MazeAlgorithm algorithm;
+
+        Key(int width, int height, MazeAlgorithm algorithm) {
+            this.width = width;
+            this.height = height;
+            this.algorithm = algorithm;
+        }
+
+        long bytes() {
+            return PreparedMaze.bytes(width, height);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return width == k.width && height == k.height && algorithm == k.algorithm;
+        }
+
+        @Override
+        public int hashCode() {
+            return (width * 31 + height) * 31 + algorithm.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return algorithm.id() + " " + width + "x" + height;
+        }
+    }
+
+    private static final class Waiter {
+        final Key key;
+        final Consumer<PreparedMaze> callback;
+
+        Waiter(Key key, Consumer<PreparedMaze> callback) {
+            this.key = key;
+            this.callback = callback;
+        }
+    }
+
+    private final int target;
+    private final long maxBytes;
+
+    /* 아래는 모두 lock 으로 보호 */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Map<Key, ArrayDeque<PreparedMaze>> ready = new LinkedHashMap<>();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private long bytes = 0;
+
+    /* 통계 */
+    private final Map<Key, long[]> hitsMisses = new HashMap<>();
+
+    /**
+     * @param target   Key 마다 쌓아 둘 미로 수
+     * @param maxBytes 쌓아 둔 미로 전체의 메모리 한도
+     */
+    MazePool(int target, long maxBytes) {
+        this.target = target;
+        this.maxBytes = maxBytes;
+
+        Thread t = new Thread(this::refillLoop, "maze-pool");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+
+    /* 이 Key 의 미로를 미리 채우기 시작한다 (서버 시작 시 한 번) */
+    void register(Key key) {
+        lock.lock();
+        try {
+            ready.computeIfAbsent(key, k -> new ArrayDeque<>());
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 미로 하나를 꺼내 callback 에 넘긴다. 쌓인 게 있으면 부른 스레드에서 바로,
+     * 없으면 나중에 풀 스레드에서 부른다 (callback 은 오래 붙잡지 말고 방 샤드로 넘길 것).
+     */
+    void take(Key key, Consumer<PreparedMaze> callback) {
+        PreparedMaze m;
+
+        lock.lock();
+        try {
+            ArrayDeque<PreparedMaze> q = ready.computeIfAbsent(key, k -> new ArrayDeque<>());
+            m = q.pollFirst();
+
+            long[] stat = hitsMisses.computeIfAbsent(key, k -> new long[2]);
+            if (m != null) {
+                bytes -= key.bytes();
+                stat[0]++;
+            } else {
+                waiters.addLast(new Waiter(key, callback));
+                stat[1]++;
+            }
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (m != null) callback.accept(m);
+    }
+
+    private void refillLoop() {
+        while (true) {
+            Waiter waiter = null;
+            Key key = null;
+
+            lock.lock();
+            try {
+                while (true) {
+                    // 기다리는 방이 먼저, 그 다음 모자란 Key 채우기
+                    waiter = waiters.pollFirst();
+                    if (waiter != null) {
+                        key = waiter.key;
+                        break;
+                    }
+                    key = nextToRefill();
+                    if (key != null) break;
+                    work.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            PreparedMaze m;
+            try {
+                m = PreparedMaze.generate(key.algorithm, key.width, key.height,
+                        ThreadLocalRandom.current().nextLong());
+            } catch (RuntimeException e) {
+                System.out.println("[MazePool] Failed to generate " + key + ": " + e);
+                if (waiter != null) requeue(waiter);
+                sleepQuietly();
+                continue;
+            }
+
+            if (waiter != null) {
+                waiter.callback.accept(m);
+                continue;
+            }
+
+            lock.lock();
+            try {
+                ready.get(key).addLast(m);
+                bytes += key.bytes();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /* 개수가 target 보다 적고 한도 안에 들어가는 Key 하나 (lock 안에서) */
+    private Key nextToRefill() {
+        for (Map.Entry<Key, ArrayDeque<PreparedMaze>> e : ready.entrySet()) {
+            Key k = e.getKey();
+            if (e.getValue().size() < target && bytes + k.bytes() <= maxBytes) return k;
+        }
+        return null;
+    }
+
+    private void requeue(Waiter w) {
+        lock.lock();
+        try {
+            waiters.addFirst(w);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* 쌓여 있는 개수 */
+    int size(Key key) {
+        lock.lock();
+        try {
+            ArrayDeque<PreparedMaze> q = ready.get(key);
+            return q == null ? 0 : q.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long bytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* {바로 꺼낸 수, 기다린 수} */
+    long[] hitsMisses(Key key) {
+        lock.lock();
+        try {
+            long[] s = hitsMisses.get(key);
+            return s == null ? new long[2] : s.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
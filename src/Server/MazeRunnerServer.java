@@ -1,195 +1,266 @@
 package Server;
 
-import maze_game.MakeMaze;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.ObjectName;
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
 import java.net.*;
-import java.util.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
 
 public class MazeRunnerServer {
-    private static final int PORT = 5000;
 
-    private final List<Client> clients = Collections.synchronizedList(new ArrayList<>(2));
-    private final GameState gameState = new GameState();
+    private final ServerOptions options;
+    final RoomRegistry rooms;
+    final ServerMetrics metrics = new ServerMetrics();
+
+    MazeRunnerServer(ServerOptions options) {
+        this.options = options;
+        this.rooms = new RoomRegistry(options, metrics);
+    }
 
     public static void main(String[] args) {
-        new MazeRunnerServer().start();
+        new MazeRunnerServer(ServerOptions.parse(args)).start();
     }
 
     void start() {
-        System.out.println("[Server] Listening on " + PORT);
-        try (ServerSocket ss = new ServerSocket(PORT)) {
-
-            while (true) {
-                Socket s = ss.accept();
-
-                if (clients.size() >= 2) {
-                    new PrintWriter(new OutputStreamWriter(s.getOutputStream(), "UTF-8"), true)
-                            .println("FULL");
-                    s.close();
-                    continue;
-                }
-
-                int role = clients.size() + 1;
-                Client c = new Client(s, role);
-                clients.add(c);
+        System.out.println("[Server] Listening on " + options.port
+                + " (" + options.shards + " shard(s))"
+                + (options.watchPort > 0 ? ", spectators on " + options.watchPort : ""));
+        try {
+            exportMetrics();
 
-                new Thread(() -> handle(c)).start();
+            switch (options.mode) {
+                case "nio":     new NioServer(this, options).start(); break;
+                case "virtual": startBlocking(virtualThreads()); break;
+                default:        startBlocking(r -> new Thread(r).start()); break;
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-
-    /* ============= 클라이언트 개별 처리 스레드 ============= */
-    private void handle(Client c) {
-        try {
-            c.out.println("ROLE " + c.role);
-            broadcastState();
-
-            String line;
-            while ((line = c.in.readLine()) != null) {
-                line = line.trim();
-
-                /* JOIN */
-                if (line.startsWith("JOIN ")) {
-                    c.name = line.substring(5).trim();
-                    broadcastState();
+    /* 접속마다 읽기 스레드 + 쓰기 스레드 (플랫폼 스레드 또는 가상 스레드). 관전 포트는 따로 받는 스레드 하나 */
+    private void startBlocking(Executor handlers) throws IOException {
+        if (options.watchPort > 0) {
+            ServerSocket watch = new ServerSocket(options.watchPort);
+            Thread t = new Thread(() -> {
+                try {
+                    acceptBlocking(watch, handlers, rooms);
+                } catch (IOException e) {
+                    e.printStackTrace();
                 }
+            }, "watch-accept");
+            t.setDaemon(true);
+            t.start();
+        }
+        acceptBlocking(new ServerSocket(options.port), handlers, null);
+    }
 
-                /* READY */
-                else if (line.startsWith("READY ")) {
-                    c.ready = "1".equals(line.substring(6).trim());
-                    broadcastState();
-                }
-
-                /* START 요청 (P1만 가능) */
-                else if (line.equals("START")) {
-                    if (c.role == 1 &&
-                            clients.size() == 2 &&
-                            clients.get(0).ready &&
-                            clients.get(1).ready) {
-
-                        // 미로 생성
-                        System.out.println("[Server] Generating maze...");
-                        gameState.generateMaze();
-
-                        // 미로 전송
-                        broadcast(gameState.mazeToString());
+    /* watchRooms 가 null 이 아니면 관전 접속 */
+    private void acceptBlocking(ServerSocket listener, Executor handlers, RoomRegistry watchRooms) throws IOException {
+        try (ServerSocket ss = listener) {
 
-                        // 출구 전송
-                        broadcast("EXIT|" + gameState.exitX + "|" + gameState.exitY);
+            while (true) {
+                Socket s = ss.accept();
+                SocketClient c = new SocketClient(s, options.maxOutbound, metrics, watchRooms);
 
-                        // 게임 시작 신호
-                        broadcast("START");
+                handlers.execute(() -> writeLoop(c));
+                handlers.execute(() -> handle(c));
+            }
+        }
+    }
 
-                        // 초기 좌표 브로드캐스트
-                        broadcastPositions();
+    /*
+     * 지표 공개: JMX (MazeRunner:type=Server) 는 항상, 텍스트는 --stats-port 를 준 경우에만.
+     * 텍스트 엔드포인트는 이 컴퓨터(127.0.0.1)에서만 열린다: curl http://127.0.0.1:<port>/
+     */
+    private void exportMetrics() throws IOException {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(metrics, new ObjectName("MazeRunner:type=Server"));
+        } catch (Exception e) {
+            System.out.println("[Server] JMX registration failed: " + e);
+        }
 
-                        System.out.println("[Server] Maze + START sent.");
-                    }
+        if (options.statsPort > 0) {
+            HttpServer http = HttpServer.create(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), options.statsPort), 0);
+            http.createContext("/", ex -> {
+                byte[] body = metrics.stats().getBytes(StandardCharsets.UTF_8);
+                ex.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                ex.sendResponseHeaders(200, body.length);
+                try (OutputStream os = ex.getResponseBody()) {
+                    os.write(body);
                 }
+            });
+            http.start();   // 기본 실행기: HttpServer 의 디스패치 스레드 하나
+            System.out.println("[Server] Stats on http://127.0.0.1:" + options.statsPort + "/");
+        }
+    }
 
-                /* ===================== MOVE 처리 ====================== */
-                else if (line.startsWith("MOVE ")) {
-                    String dir = line.substring(5).trim();
-
-                    // P1인지 P2인지 구분 후 이동
-                    if (c.role == 1) gameState.movePlayer1(dir);
-                    else if (c.role == 2) gameState.movePlayer2(dir);
+    /* 가상 스레드는 JDK 21 부터라 리플렉션으로 찾는다 (프로젝트 언어 수준은 11) */
+    private static Executor virtualThreads() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            Executor executor = (Executor) m.invoke(null);
+            System.out.println("[Server] Handlers run on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("[Server] Virtual threads need JDK 21+, using platform threads");
+            return r -> new Thread(r).start();
+        }
+    }
 
-                    // ====== ★ 승리 체크 추가 ★ ======
-                    if (gameState.p1x == gameState.exitX && gameState.p1y == gameState.exitY) {
-                        broadcast("WIN|1");        // 플레이어 1 승리
-                        continue; // 더 이상 MOVE 처리 안함
-                    }
 
-                    if (gameState.p2x == gameState.exitX && gameState.p2y == gameState.exitY) {
-                        broadcast("WIN|2");        // 플레이어 2 승리
-                        continue;
-                    }
-                    // =================================
+    /* ============= 클라이언트 개별 처리 스레드 ============= */
+    private void handle(SocketClient c) {
+        // 꽉 찼으면 쓰기 스레드가 FULL 을 보내고 닫는다
+        if (!onConnect(c)) return;
 
-                    // 모든 클라에게 위치 알려줌
-                    broadcastPositions();
+        try {
+            byte[] buf = new byte[8192];
+            ByteBuffer bb = ByteBuffer.wrap(buf);
+
+            int n;
+            while ((n = c.in.read(buf)) >= 0) {
+                bb.position(0).limit(n);
+                if (!c.decoder.feed(bb)) {
+                    System.out.println("[Server] Line too long, closing (role " + c.role + ")");
+                    break;
                 }
             }
 
         } catch (IOException e) {
             System.out.println("[Server] Client disconnected (role " + c.role + ")");
         } finally {
-            try { c.socket.close(); } catch (IOException ignored){}
-            clients.remove(c);
-            broadcastState();
+            c.close();
+            onDisconnect(c);
         }
     }
 
 
-    /* 전체 로비 상태 브로드캐스트 */
-    private void broadcastState() {
-        boolean p1Present = clients.stream().anyMatch(cl -> cl.role == 1);
-        boolean p2Present = clients.stream().anyMatch(cl -> cl.role == 2);
+    /* ============= 전송 방식과 무관한 진입점 ============= */
 
-        String p1Name = clients.stream()
-                .filter(cl -> cl.role == 1)
-                .map(cl -> cl.name).findFirst().orElse("");
-
-        String p2Name = clients.stream()
-                .filter(cl -> cl.role == 2)
-                .map(cl -> cl.name).findFirst().orElse("");
-
-        boolean p1Ready = clients.stream().anyMatch(cl -> cl.role == 1 && cl.ready);
-        boolean p2Ready = clients.stream().anyMatch(cl -> cl.role == 2 && cl.ready);
-
-        boolean canStart = p1Present && p2Present && p1Ready && p2Ready;
-
-        String msg = String.join("|",
-                "STATE",
-                p1Present ? "1" : "0",
-                safe(p1Name),
-                p1Ready ? "1" : "0",
-                p2Present ? "1" : "0",
-                safe(p2Name),
-                p2Ready ? "1" : "0",
-                canStart ? "1" : "0"
-        );
+    /* outbound 큐를 소켓으로 내보낸다. 쌓여 있는 만큼 한 버퍼에 모아서 한 번에 쓴다 */
+    private void writeLoop(SocketClient c) {
+        byte[] batch = new byte[8192];
+        try {
+            byte[] b;
+            while ((b = c.outbound.take()) != null) {
+                int n = 0;
+                do {
+                    if (b == Client.FEED_MARKER) {
+                        if (n > 0) c.out.write(batch, 0, n);
+                        watchLoop(c);
+                        return;
+                    }
+                    if (n + b.length > batch.length) {
+                        if (n > 0) c.out.write(batch, 0, n);
+                        n = 0;
+                        if (b.length > batch.length) {
+                            c.out.write(b);
+                            continue;
+                        }
+                    }
+                    System.arraycopy(b, 0, batch, n, b.length);
+                    n += b.length;
+                } while ((b = c.outbound.poll()) != null);
 
-        broadcast(msg);
+                if (n > 0) c.out.write(batch, 0, n);
+            }
+        } catch (IOException | InterruptedException e) {
+            // 끊긴 소켓: 읽기 쪽도 곧 끝난다
+        } finally {
+            c.close();
+        }
     }
 
-    private String safe(String s) {
-        return s == null ? "" : s.replace("|", " ");
-    }
+    /*
+     * 관전자: 방의 feed 를 바로 소켓에 쓴다. 메시지마다 방이 인코딩해 둔 배열을 그대로 쓰고 (모아 담는 복사 없음),
+     * 더 없으면 새 메시지나 close() 가 깨울 때까지 쉰다. 스레드마다 깨우기 하나라 관전자가 많으면 nio 모드가 낫다.
+     */
+    private void watchLoop(SocketClient c) throws IOException {
+        SpectatorFeed feed = c.feed;
+        Thread self = Thread.currentThread();
+        Runnable waker = () -> LockSupport.unpark(self);
+
+        c.writer = self;
+        feed.addWaker(waker);
+        try {
+            while (!c.socket.isClosed()) {
+                boolean closed = feed.isClosed();
+                long end = feed.published();
+
+                for (; c.feedCursor < end; c.feedCursor++) {
+                    byte[] b = feed.bytes(c.feedCursor, c.feedBinary);
+                    if (b == null) {
+                        c.feedOverrun();
+                        return;
+                    }
+                    c.out.write(b);
+                    metrics.spectatorSent(b.length);
+                }
 
-    /* 메시지 전체 브로드캐스트 */
-    private void broadcast(String msg) {
-        synchronized (clients) {
-            for (Client cl : clients) cl.out.println(msg);
+                if (closed) return;     // 방이 닫혔고 다 보냈다
+                LockSupport.park(feed);
+            }
+        } finally {
+            feed.removeWaker(waker);
         }
     }
 
-    /* 좌표 브로드캐스트 */
-    private void broadcastPositions() {
-        broadcast("P1_POS|" + gameState.p1x + "|" + gameState.p1y);
-        broadcast("P2_POS|" + gameState.p2x + "|" + gameState.p2y);
+    /* 방에 자리를 배정한다. 서버가 꽉 찼으면 FULL 을 보내고 false. 관전자는 WATCH 때 방을 고른다 */
+    boolean onConnect(Client c) {
+        if (c.spectator()) {
+            metrics.spectatorOpened();
+            return true;
+        }
+        if (!rooms.join(c)) {
+            c.sendLine("FULL");
+            c.closeAfterFlush();
+            return false;
+        }
+        metrics.connectionOpened();
+        return true;
     }
 
+    void onDisconnect(Client c) {
+        if (c.spectator()) metrics.spectatorClosed();
+        else if (c.room != null) metrics.connectionClosed();     // FULL 로 돌려보낸 접속은 세지 않았다
+        rooms.leave(c);
+    }
 
-    /* ========================= Client 클래스 ========================= */
-    private static class Client {
+    /* ========================= 블로킹 소켓 클라이언트 ========================= */
+    /*
+     * BufferedReader / PrintWriter 는 내부에서 synchronized 로 잠근 채 블록되어
+     * 가상 스레드가 캐리어 스레드를 붙잡는다(pinning). 그래서 읽기는 InboundDecoder 로 직접 자르고,
+     * 쓰기는 writeLoop 한 스레드만 한다.
+     */
+    private static class SocketClient extends Client {
         final Socket socket;
-        final BufferedReader in;
-        final PrintWriter out;
-        final int role;
+        final InputStream in;
+        final OutputStream out;
+        volatile Thread writer;     // 관전 중인 쓰기 스레드 (close 가 깨운다)
 
-        String name = "";
-        boolean ready = false;
-
-        Client(Socket s, int role) throws IOException {
+        SocketClient(Socket s, long maxOutbound, ServerMetrics metrics, RoomRegistry watchRooms) throws IOException {
+            super(maxOutbound, metrics, watchRooms);
             this.socket = s;
-            this.role = role;
-            this.in = new BufferedReader(new InputStreamReader(s.getInputStream(), "UTF-8"));
-            this.out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), "UTF-8"), true);
+            this.in = s.getInputStream();
+            this.out = s.getOutputStream();
+        }
+
+        @Override
+        void close() {
+            outbound.close();
+            try { socket.close(); } catch (IOException ignored) {}
+            Thread w = writer;
+            if (w != null) LockSupport.unpark(w);
         }
     }
 }
@@ -0,0 +1,237 @@
+package Server;
+
+import maze_game.BinaryProtocol;
+import maze_game.DistanceField;
+import maze_game.MazeGrid;
+import maze_game.Player;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 서버 → 클라이언트 메시지 하나.
+ * 텍스트 줄과 바이너리 프레임 인코딩을 각각 처음 필요할 때 한 번만 만들어 두고,
+ * 방 안의 모든 클라이언트가 같은 바이트 배열을 받아 간다.
+ */
+final class Message {
+
+    /* coalesceKey() 가 돌려주는 값의 범위 (0 은 합치지 않음) */
+    static final int COALESCE_KEYS = 6;
+
+    private final byte type;
+    private final int a, b, c, d;
+    private final Object payload;
+
+    private byte[] line;
+    private byte[] frame;
+
+    private Message(byte type, int a, int b, int c, Object payload) {
+        this(type, a, b, c, 0, payload);
+    }
+
+    private Message(byte type, int a, int b, int c, int d, Object payload) {
+        this.type = type;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.d = d;
+        this.payload = payload;
+    }
+
+    static Message role(int role)           { return new Message(BinaryProtocol.S_ROLE, role, 0, 0, null); }
+    static Message room(int id)             { return new Message(BinaryProtocol.S_ROOM, id, 0, 0, null); }
+    static Message exit(int x, int y)       { return new Message(BinaryProtocol.S_EXIT, x, y, 0, null); }
+    static Message start()                  { return new Message(BinaryProtocol.S_START, 0, 0, 0, null); }
+    static Message pos(int player, int x, int y) { return new Message(BinaryProtocol.S_POS, player, x, y, null); }
+    static Message win(int player)          { return new Message(BinaryProtocol.S_WIN, player, 0, 0, null); }
+    static Message maze(MazeGrid maze)      { return new Message(BinaryProtocol.S_MAZE, 0, 0, 0, maze); }
+
+    /* 틱마다 보내는 두 플레이어 좌표 묶음 */
+    static Message snapshot(int p1x, int p1y, int p2x, int p2y) {
+        return new Message(BinaryProtocol.S_SNAP, p1x, p1y, p2x, p2y, null);
+    }
+
+    /* 미로 대신 생성 파라미터만 보낸다 (클라이언트가 MakeMaze 로 다시 만든다) */
+    static Message seed(int version, int algorithm, int w, int h, long seed, int checksum) {
+        return new Message(BinaryProtocol.S_SEED, version, w, h, algorithm, new long[]{seed, checksum});
+    }
+
+    /* maze 의 y0 행부터 n 행. 인코딩할 때 maze 를 읽으므로 그 행들은 다 만들어진 뒤여야 한다 */
+    static Message rows(MazeGrid maze, int y0, int n) {
+        return new Message(BinaryProtocol.S_ROWS, y0, n, 0, maze);
+    }
+
+    /* 출구 쪽 다음 칸 (nx, ny) + 내 / 상대의 남은 거리 (요청한 클라이언트에게만) */
+    static Message hint(int nx, int ny, int distance, int otherDistance) {
+        return new Message(BinaryProtocol.S_HINT, nx, ny, distance, otherDistance, null);
+    }
+
+    /* 거리 표를 아직 만드는 중: 다 되면 hint 를 다시 보낸다 */
+    static Message hintNotReady() {
+        return hint(-1, -1, DistanceField.UNREACHABLE, DistanceField.UNREACHABLE);
+    }
+
+    /* 이 미로의 거리 표를 만들지 못했다 (메모리 부족 등): 이번 판에는 힌트가 없다 */
+    static Message hintUnavailable() {
+        return hint(-2, -2, DistanceField.UNREACHABLE, DistanceField.UNREACHABLE);
+    }
+
+    /* seq 번 MOVE 까지 처리한 뒤 그 플레이어의 좌표 (MOVE 를 보낸 클라이언트에게만) */
+    static Message ack(int seq, int x, int y) {
+        return new Message(BinaryProtocol.S_ACK, seq, x, y, null);
+    }
+
+    /* player 가 (x0, y0) 에서 dirs 를 따라 stepMillis 마다 한 칸씩 간다 (경로 하나에 한 번만 보낸다) */
+    static Message path(int player, int x0, int y0, int stepMillis, Player.Direction[] dirs) {
+        return new Message(BinaryProtocol.S_PATH, player, x0, y0, stepMillis, dirs);
+    }
+
+    /* flags 는 BinaryProtocol.STATE_* 조합 */
+    static Message state(int flags, String p1Name, String p2Name) {
+        return new Message(BinaryProtocol.S_STATE, flags, 0, 0, new String[]{p1Name, p2Name});
+    }
+
+    /* BinaryProtocol.S_* */
+    byte type() {
+        return type;
+    }
+
+    /* 아직 안 나간 같은 키의 메시지는 이 메시지로 덮어써도 되는 것들 (좌표, 로비 상태, 이동 확인) */
+    int coalesceKey() {
+        switch (type) {
+            case BinaryProtocol.S_SNAP:  return 1;
+            case BinaryProtocol.S_POS:   return a == 1 ? 2 : 3;
+            case BinaryProtocol.S_STATE: return 4;
+            case BinaryProtocol.S_ACK:   return 5;
+            default: return 0;
+        }
+    }
+
+    /* 텍스트 줄 ('\n' 포함) */
+    byte[] line() {
+        if (line == null) line = (text() + "\n").getBytes(StandardCharsets.UTF_8);
+        return line;
+    }
+
+    /* 바이너리 프레임 (길이 접두 포함) */
+    byte[] frame() {
+        if (frame == null) frame = encode().toFrame();
+        return frame;
+    }
+
+    String text() {
+        switch (type) {
+            case BinaryProtocol.S_ROLE:  return "ROLE " + a;
+            case BinaryProtocol.S_ROOM:  return "ROOM|" + a;
+            case BinaryProtocol.S_EXIT:  return "EXIT|" + a + "|" + b;
+            case BinaryProtocol.S_START: return "START";
+            case BinaryProtocol.S_POS:   return "P" + a + "_POS|" + b + "|" + c;
+            case BinaryProtocol.S_WIN:   return "WIN|" + a;
+            case BinaryProtocol.S_SNAP:  return "SNAP|" + a + "|" + b + "|" + c + "|" + d;
+            case BinaryProtocol.S_MAZE:  return mazeText((MazeGrid) payload);
+            case BinaryProtocol.S_STATE: return stateText();
+            case BinaryProtocol.S_SEED: {
+                long[] p = (long[]) payload;
+                return "SEED|" + a + "|" + d + "|" + b + "|" + c + "|" + p[0] + "|" + (int) p[1];
+            }
+            case BinaryProtocol.S_ROWS:  return rowsText((MazeGrid) payload);
+            case BinaryProtocol.S_HINT:  return "HINT|" + a + "|" + b + "|" + c + "|" + d;
+            case BinaryProtocol.S_ACK:   return "ACK|" + a + "|" + b + "|" + c;
+            case BinaryProtocol.S_PATH:
+                return "PATH|" + a + "|" + b + "|" + c + "|" + d + "|" + BinaryProtocol.dirsText((Player.Direction[]) payload);
+            default: throw new IllegalStateException("type " + type);
+        }
+    }
+
+    private BinaryProtocol.Writer encode() {
+        switch (type) {
+            case BinaryProtocol.S_ROLE:
+            case BinaryProtocol.S_ROOM:
+                return new BinaryProtocol.Writer(type).varint(a);
+            case BinaryProtocol.S_EXIT:
+                return new BinaryProtocol.Writer(type).varint(a).varint(b);
+            case BinaryProtocol.S_ACK:
+                return new BinaryProtocol.Writer(type).varint(a).varint(b).varint(c);
+            case BinaryProtocol.S_START:
+                return new BinaryProtocol.Writer(type);
+            case BinaryProtocol.S_PATH:
+                return new BinaryProtocol.Writer(type).put(a).varint(b).varint(c).varint(d)
+                        .dirs((Player.Direction[]) payload);
+            case BinaryProtocol.S_POS:
+                return new BinaryProtocol.Writer(type).put(a).varint(b).varint(c);
+            case BinaryProtocol.S_WIN:
+                return new BinaryProtocol.Writer(type).put(a);
+            case BinaryProtocol.S_SNAP:
+            case BinaryProtocol.S_HINT:
+                return new BinaryProtocol.Writer(type).varint(a).varint(b).varint(c).varint(d);
+            case BinaryProtocol.S_MAZE: {
+                MazeGrid maze = (MazeGrid) payload;
+                return new BinaryProtocol.Writer(type, 16 + maze.width() * maze.height() / 8).maze(maze);
+            }
+            case BinaryProtocol.S_STATE: {
+                String[] names = (String[]) payload;
+                return new BinaryProtocol.Writer(type).put(a).string(names[0]).string(names[1]);
+            }
+            case BinaryProtocol.S_SEED: {
+                long[] p = (long[]) payload;
+                return new BinaryProtocol.Writer(type).varint(a).put(d).varint(b).varint(c)
+                        .putLong(p[0]).putInt((int) p[1]);
+            }
+            case BinaryProtocol.S_ROWS: {
+                MazeGrid maze = (MazeGrid) payload;
+                return new BinaryProtocol.Writer(type, 24 + maze.width() * b / 8)
+                        .varint(maze.width()).varint(maze.height()).varint(a).varint(b)
+                        .cells(maze, a, b);
+            }
+            default: throw new IllegalStateException("type " + type);
+        }
+    }
+
+    /* MAZE|W|H|0,1,1,... */
+    private static String mazeText(MazeGrid maze) {
+        int w = maze.width();
+        int h = maze.height();
+
+        StringBuilder sb = new StringBuilder(16 + w * h * 2);
+        sb.append("MAZE|").append(w).append("|").append(h).append("|");
+
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                sb.append(maze.isOpen(x, y) ? '1' : '0');
+                if (!(x == w - 1 && y == h - 1)) sb.append(",");
+            }
+        }
+        return sb.toString();
+    }
+
+    /* ROWS|W|H|y0|n|0110... (칸마다 한 글자, 구분자 없음) */
+    private String rowsText(MazeGrid maze) {
+        int w = maze.width();
+
+        StringBuilder sb = new StringBuilder(32 + w * b);
+        sb.append("ROWS|").append(w).append("|").append(maze.height())
+                .append("|").append(a).append("|").append(b).append("|");
+
+        for (int y = a; y < a + b; y++) {
+            for (int x = 0; x < w; x++) sb.append(maze.isOpen(x, y) ? '1' : '0');
+        }
+        return sb.toString();
+    }
+
+    private String stateText() {
+        String[] names = (String[]) payload;
+        return String.join("|",
+                "STATE",
+                flag(BinaryProtocol.STATE_P1_PRESENT),
+                names[0],
+                flag(BinaryProtocol.STATE_P1_READY),
+                flag(BinaryProtocol.STATE_P2_PRESENT),
+                names[1],
+                flag(BinaryProtocol.STATE_P2_READY),
+                flag(BinaryProtocol.STATE_CAN_START)
+        );
+    }
+
+    private String flag(int bit) {
+        return (a & bit) != 0 ? "1" : "0";
+    }
+}
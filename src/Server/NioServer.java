@@ -0,0 +1,358 @@
+package Server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Selector 기반 논블로킹 서버.
+ * 접속마다 스레드를 만드는 대신, 고정된 개수의 이벤트 루프가 여러 채널을 나눠 맡는다.
+ * 프로토콜(JOIN / READY / START / MOVE) 해석은 각 클라이언트의 InboundDecoder 가 맡는다.
+ *
+ * 관전자는 루프마다 방(feed) 하나에 FeedGroup 하나로 묶는다. 방은 새 메시지마다 루프 수만큼만 깨우고,
+ * 깨어난 루프가 그 방을 보는 자기 관전자들에게 같은 읽기 전용 버퍼를 gathering write 로 나눠 쓴다.
+ */
+class NioServer {
+
+    private final MazeRunnerServer server;
+    private final int port;
+    private final int watchPort;
+    private final EventLoop[] loops;
+    private final long maxOutbound;
+
+    NioServer(MazeRunnerServer server, ServerOptions options) {
+        this.server = server;
+        this.port = options.port;
+        this.watchPort = options.watchPort;
+        this.loops = new EventLoop[options.loops];
+        this.maxOutbound = options.maxOutbound;
+    }
+
+    /* 이벤트 루프를 띄우고, 호출한 스레드는 accept 전용으로 사용 */
+    void start() throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(i);
+            loops[i].start();
+        }
+
+        System.out.println("[Server] NIO mode, " + loops.length + " event loop(s)");
+
+        if (watchPort > 0) {
+            ServerSocketChannel watch = ServerSocketChannel.open();
+            watch.bind(new InetSocketAddress(watchPort), 1024);
+            Thread t = new Thread(() -> {
+                try {
+                    accept(watch, server.rooms);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "watch-accept");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        ServerSocketChannel ssc = ServerSocketChannel.open();
+        ssc.bind(new InetSocketAddress(port), 1024);
+        accept(ssc, null);
+    }
+
+    /* watchRooms 가 null 이 아니면 관전 접속 */
+    private void accept(ServerSocketChannel listener, RoomRegistry watchRooms) throws IOException {
+        try (ServerSocketChannel ssc = listener) {
+            int next = 0;
+            while (true) {
+                SocketChannel ch = ssc.accept();
+
+                ch.configureBlocking(false);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                EventLoop loop = loops[next];
+                next = (next + 1) % loops.length;   // 접속이 아무리 많아도 넘치지 않게
+                NioClient c = new NioClient(ch, loop, maxOutbound, server.metrics, watchRooms);
+                loop.register(c);
+            }
+        }
+    }
+
+
+    /* ========================= 이벤트 루프 ========================= */
+    private class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+
+        /* 다른 스레드에서 넘겨받는 작업들 */
+        private final Queue<NioClient> pendingRegister = new ConcurrentLinkedQueue<>();
+        private final Queue<NioClient> pendingFlush = new ConcurrentLinkedQueue<>();
+        private final Queue<FeedGroup> pendingGroups = new ConcurrentLinkedQueue<>();
+
+        /* 이 루프의 관전자들을 보는 방별로 (루프 스레드 전용) */
+        private final Map<SpectatorFeed, FeedGroup> groups = new HashMap<>();
+
+        /* 루프 안의 모든 채널이 같이 쓰는 읽기 버퍼 (남은 조각은 각 InboundDecoder 가 보관) */
+        private final ByteBuffer readBuf = ByteBuffer.allocateDirect(64 * 1024);
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "nio-loop-" + index);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        void register(NioClient c) {
+            pendingRegister.add(c);
+            selector.wakeup();
+        }
+
+        void requestFlush(NioClient c) {
+            if (inLoop()) {
+                c.flush();
+            } else if (c.flushScheduled.compareAndSet(false, true)) {
+                pendingFlush.add(c);
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+
+                NioClient c;
+                while ((c = pendingRegister.poll()) != null) {
+                    try {
+                        c.key = c.channel.register(selector, SelectionKey.OP_READ, c);
+                        server.onConnect(c);
+                    } catch (IOException e) {
+                        c.close();
+                    }
+                }
+
+                while ((c = pendingFlush.poll()) != null) {
+                    c.flushScheduled.set(false);
+                    c.flush();
+                }
+
+                FeedGroup g;
+                while ((g = pendingGroups.poll()) != null) g.flush();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+
+                    NioClient cl = (NioClient) key.attachment();
+                    if (!key.isValid()) continue;
+
+                    if (key.isReadable()) cl.read(readBuf);
+                    if (key.isValid() && key.isWritable()) cl.flush();
+                }
+            }
+        }
+
+        /* 루프 스레드: c 가 마커를 꺼냈다. 그 방의 그룹에 넣는다 (처음이면 그룹을 만들어 방에 깨우기 등록) */
+        FeedGroup join(NioClient c) {
+            FeedGroup g = groups.get(c.feed);
+            if (g == null) {
+                g = new FeedGroup(c.feed);
+                groups.put(c.feed, g);
+                c.feed.addWaker(g);
+            }
+            g.members.add(c);
+            return g;
+        }
+
+        /*
+         * 한 방을 보는 이 루프의 관전자들. 방(샤드)이 새 메시지마다 run() 을 부르면 한 번만 예약하고 루프를 깨운다.
+         * 끊긴 관전자는 다음 flush 때 빼고, 아무도 안 남으면 방에서 깨우기를 뗀다.
+         */
+        private final class FeedGroup implements Runnable {
+            final SpectatorFeed feed;
+            final ArrayList<NioClient> members = new ArrayList<>();     // 루프 스레드 전용
+            final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+            FeedGroup(SpectatorFeed feed) {
+                this.feed = feed;
+            }
+
+            /* 아무 스레드 (주로 샤드) */
+            @Override
+            public void run() {
+                if (scheduled.compareAndSet(false, true)) {
+                    pendingGroups.add(this);
+                    selector.wakeup();
+                }
+            }
+
+            /* 루프 스레드 */
+            void flush() {
+                scheduled.set(false);
+
+                int n = 0;
+                for (int i = 0; i < members.size(); i++) {
+                    NioClient c = members.get(i);
+                    if (!c.closed.get()) c.flush();
+                    if (!c.closed.get()) members.set(n++, c);
+                }
+                while (members.size() > n) members.remove(members.size() - 1);
+
+                if (n == 0 && groups.get(feed) == this) {
+                    groups.remove(feed);
+                    feed.removeWaker(this);
+                }
+            }
+        }
+    }
+
+
+    /* ========================= NIO 클라이언트 ========================= */
+    private class NioClient extends Client {
+        final SocketChannel channel;
+        final EventLoop loop;
+        final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        final AtomicBoolean closed = new AtomicBoolean(false);
+
+        SelectionKey key;
+        ByteBuffer current;     // 쓰다 만 메시지 (루프 스레드 전용)
+
+        /* 관전 중 (루프 스레드 전용): 한 번에 모아 쓰는 feed 버퍼들, [gatherFrom, gatherTo) 가 아직 안 나간 것 */
+        private static final int GATHER = 64;
+        private ByteBuffer[] gather;
+        private int gatherFrom, gatherTo;
+        volatile EventLoop.FeedGroup group;
+
+        NioClient(SocketChannel channel, EventLoop loop, long maxOutbound, ServerMetrics metrics,
+                  RoomRegistry watchRooms) {
+            super(maxOutbound, metrics, watchRooms);
+            this.channel = channel;
+            this.loop = loop;
+        }
+
+        @Override
+        void onQueued() {
+            if (!closed.get()) loop.requestFlush(this);
+        }
+
+        /* 루프 스레드에서만 호출 */
+        void read(ByteBuffer buf) {
+            try {
+                buf.clear();
+                int n = channel.read(buf);
+                if (n < 0) {
+                    close();
+                    return;
+                }
+                buf.flip();
+                if (!decoder.feed(buf)) {
+                    System.out.println("[Server] Line too long, closing (role " + role + ")");
+                    close();
+                }
+            } catch (IOException e) {
+                System.out.println("[Server] Client disconnected (role " + role + ")");
+                close();
+            }
+        }
+
+        /* 루프 스레드에서만 호출: 소켓이 받아주는 만큼 쓰고, 남으면 OP_WRITE 대기 */
+        void flush() {
+            if (key == null || !key.isValid()) return;
+            try {
+                while (group == null) {
+                    if (current == null) {
+                        byte[] b = outbound.poll();
+                        if (b == null) break;
+                        if (b == FEED_MARKER) {
+                            gather = new ByteBuffer[GATHER];
+                            group = loop.join(this);
+                            break;
+                        }
+                        current = ByteBuffer.wrap(b);
+                    }
+                    channel.write(current);
+                    if (current.hasRemaining()) break;
+                    current = null;
+                }
+
+                if (group != null && !flushFeed()) return;
+
+                if (current == null && outbound.isDrained()) {
+                    close();
+                    return;
+                }
+
+                boolean pending = current != null || gatherFrom < gatherTo;
+                int ops = !pending
+                        ? SelectionKey.OP_READ
+                        : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+                if (key.interestOps() != ops) key.interestOps(ops);
+
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /*
+         * 관전자: feed 에서 밀린 것을 GATHER 개씩 모아 한 번의 write 로 보낸다. 버퍼는 방이 publish 때 한 번
+         * direct 메모리에 옮겨 둔 것의 duplicate 라 관전자마다 바이트를 복사하지 않는다.
+         * 소켓이 다 못 받으면 남은 것은 OP_WRITE 로 이어서. 끊었으면 false
+         */
+        private boolean flushFeed() throws IOException {
+            while (true) {
+                if (gatherFrom == gatherTo) {
+                    gatherFrom = gatherTo = 0;
+                    boolean ended = feed.isClosed();
+                    long end = feed.published();
+                    while (gatherTo < GATHER && feedCursor < end) {
+                        ByteBuffer b = feed.buffer(feedCursor, feedBinary);
+                        if (b == null) {
+                            feedOverrun();
+                            return false;
+                        }
+                        gather[gatherTo++] = b;
+                        feedCursor++;
+                    }
+                    if (gatherTo == 0) {
+                        if (!ended) return true;
+                        close();            // 방이 닫혔고 다 보냈다
+                        return false;
+                    }
+                }
+
+                metrics.spectatorSent(channel.write(gather, gatherFrom, gatherTo - gatherFrom));
+                while (gatherFrom < gatherTo && !gather[gatherFrom].hasRemaining()) gather[gatherFrom++] = null;
+                if (gatherFrom < gatherTo) return true;
+            }
+        }
+
+        @Override
+        void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            if (key != null) key.cancel();
+            try { channel.close(); } catch (IOException ignored) {}
+            outbound.close();
+            server.onDisconnect(this);
+
+            EventLoop.FeedGroup g = group;
+            if (g != null) g.run();     // 그룹에서 빼도록
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package Server;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 클라이언트 하나의 보낼 메시지 큐.
+ *
+ * 방(샤드 스레드)은 넣기만 하고 바로 돌아가며, 실제 소켓 쓰기는 쓰기 스레드 / 이벤트 루프가 한다.
+ * 그래서 느린 소켓 하나가 방 전체나 다른 클라이언트를 막지 않는다.
+ *
+ * - 합치기: 같은 coalesce 키(좌표, 로비 상태)의 메시지가 아직 안 나갔으면 앞의 것은 버린다.
+ *   앞의 것이 큐의 맨 끝이면 그 자리를 덮어쓰고, 뒤에 다른 메시지가 있으면 그 자리는 비워 두고(data = null,
+ *   꺼낼 때 건너뛴다) 새 것을 맨 끝에 넣는다. 그래서 보내는 순서는 넣은 순서 그대로다 (새 판의 SNAP 이 WIN 보다 먼저 가지 않는다).
+ * - 한도: 쌓인 바이트가 maxBytes 를 넘으면 offer 가 -1 을 돌려준다 (호출한 쪽이 연결을 끊는다).
+ */
+class OutboundQueue {
+
+    private static final int OPEN = 0;
+    private static final int FINISHING = 1;   // 남은 것만 보내고 닫는다
+    private static final int CLOSED = 2;
+
+    private static final class Entry {
+        byte[] data;            // 뒤의 같은 키 메시지로 대신한 자리는 null
+        final int key;
+
+        Entry(byte[] data, int key) {
+            this.data = data;
+            this.key = key;
+        }
+    }
+
+    private final long maxBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    /* 아래는 모두 lock 으로 보호 */
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private final Entry[] latest = new Entry[Message.COALESCE_KEYS];
+    private long bytes = 0;
+    private int live = 0;                       // entries 중 비우지 않은 자리 수
+    private int state = OPEN;
+
+    OutboundQueue(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param key 0 이면 합치지 않는 메시지
+     * @return 넣은 뒤 쌓인 바이트 (같은 락 안에서 읽은 값이라 따로 bytes() 를 부를 필요가 없다).
+     *         한도를 넘었으면 -1. 닫힌 큐에 넣으면 조용히 버리고 0
+     */
+    long offer(byte[] data, int key) {
+        lock.lock();
+        try {
+            if (state != OPEN) return 0;
+
+            Entry old = key != 0 ? latest[key] : null;
+            if (old != null && entries.peekLast() == old) {
+                bytes += data.length - old.data.length;
+                old.data = data;
+                return bytes;
+            }
+
+            // 큐가 비어 있으면 큰 메시지(미로 등) 하나는 한도와 상관없이 받아 준다
+            long after = bytes + data.length - (old != null ? old.data.length : 0);
+            if (live > (old != null ? 1 : 0) && after > maxBytes) return -1;
+
+            if (old != null) {
+                old.data = null;
+                live--;
+                // 안 읽는 클라이언트에 SNAP / ACK 가 번갈아 오면 빈 자리만 쌓인다: 산 것의 두 배를 넘으면 한 번에 치운다
+                if (entries.size() > 2 * live + 16) entries.removeIf(x -> x.data == null);
+            }
+            Entry e = new Entry(data, key);
+            entries.addLast(e);
+            if (key != 0) latest[key] = e;
+            bytes = after;
+            live++;
+
+            notEmpty.signal();
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* 기다리지 않고 하나 꺼낸다. 없으면 null */
+    byte[] poll() {
+        lock.lock();
+        try {
+            return state == CLOSED ? null : pollLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* 하나 올 때까지 기다린다. 닫혔거나(FINISHING 이면 다 보낸 뒤) null */
+    byte[] take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (state == CLOSED) return null;
+                if (live > 0) return pollLocked();
+                if (state == FINISHING) return null;
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] pollLocked() {
+        Entry e;
+        do {
+            e = entries.pollFirst();
+            if (e == null) return null;
+        } while (e.data == null);           // 뒤의 같은 키 메시지로 대신한 자리
+
+        if (e.key != 0 && latest[e.key] == e) latest[e.key] = null;
+        bytes -= e.data.length;
+        live--;
+        return e.data;
+    }
+
+    /* 더 받지 않고, 남은 것을 다 보낸 뒤 닫히게 한다 */
+    void finish() {
+        lock.lock();
+        try {
+            if (state == OPEN) state = FINISHING;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* 남은 것도 버리고 바로 닫는다 */
+    void close() {
+        lock.lock();
+        try {
+            state = CLOSED;
+            entries.clear();
+            Arrays.fill(latest, null);
+            bytes = 0;
+            live = 0;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* FINISHING 상태에서 다 보냈으면 true */
+    boolean isDrained() {
+        lock.lock();
+        try {
+            return state == FINISHING && live == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* 한도의 절반 이상 쌓였으면 true (보내는 쪽이 속도를 늦출 때 쓴다) */
+    boolean isBacklogged() {
+        lock.lock();
+        try {
+            return bytes > maxBytes / 2;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return live;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long bytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package Server;
+
+import maze_game.MakeMaze;
+import maze_game.MazeAlgorithm;
+import maze_game.MazeGrid;
+
+/**
+ * 다 만들어 둔 미로 한 판 (미로 + 생성 파라미터 + checksum + 출구).
+ * 만든 뒤로는 바꾸지 않으므로 어느 스레드에서 만들어 넘겨도 된다.
+ */
+final class PreparedMaze {
+
+    final MazeAlgorithm algorithm;
+    final MazeGrid maze;
+    final long seed;
+    final int checksum;
+    final int exitX, exitY;
+    final long generateNanos;   // 만드는 데 걸린 시간 (지표용)
+
+    private PreparedMaze(MazeAlgorithm algorithm, MazeGrid maze, long seed, int checksum,
+                         int exitX, int exitY, long generateNanos) {
+        this.algorithm = algorithm;
+        this.maze = maze;
+        this.seed = seed;
+        this.checksum = checksum;
+        this.exitX = exitX;
+        this.exitY = exitY;
+        this.generateNanos = generateNanos;
+    }
+
+    static PreparedMaze generate(MazeAlgorithm algorithm, int width, int height, long seed) {
+        long t0 = System.nanoTime();
+        MakeMaze mk = new MakeMaze(algorithm, width, height, seed);
+        MazeGrid maze = mk.make();
+        int checksum = MakeMaze.checksum(maze);
+        return new PreparedMaze(algorithm, maze, seed, checksum, mk.getExitX(), mk.getExitY(),
+                System.nanoTime() - t0);
+    }
+
+    /* 풀 메모리 한도 계산용: 칸 비트 배열 크기 */
+    static long bytes(int width, int height) {
+        return (long) ((width + 63) >>> 6) * height * 8;
+    }
+}
@@ -0,0 +1,167 @@
+package Server;
+
+import maze_game.BinaryProtocol;
+import maze_game.MakeMaze;
+import maze_game.Player;
+import maze_game.ReplayLog;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 판의 기록 (형식은 ReplayLog). 방의 샤드 스레드에서만 쓴다.
+ *
+ * MOVE 하나에 드는 일은 시각 읽기 + 힙 버퍼에 2 바이트쯤 쓰기뿐이다. 파일은 건드리지 않는다.
+ * 버퍼가 CHUNK_BYTES 만큼 차거나 마지막으로 넘긴 지 HANDOFF_NANOS 가 지나면 그만큼을 ReplayWriter 에 넘긴다.
+ * 이동이 끊긴 판도 방이 HANDOFF_MILLIS 마다 flush() 를 불러 넘기므로, 버퍼에 머무는 기록은 많아야 그만큼이다.
+ * 키프레임 위치는 여기서 따로 모아 두었다가 판이 끝날 때 목록으로 붙인다.
+ *
+ * 넘기지 못하면(쓰기 큐가 가득) 그 판의 기록은 거기서 그만둔다.
+ */
+final class ReplayRecorder {
+
+    static final int CHUNK_BYTES = 4096;
+    static final long HANDOFF_MILLIS = 1000;
+    private static final long HANDOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(HANDOFF_MILLIS);
+
+    final String fileName;
+    private final ReplayWriter writer;
+    private final ServerMetrics metrics;
+
+    private final ByteBuffer buf = ByteBuffer.allocate(CHUNK_BYTES + 64);
+    private long handedOff;             // 이미 넘긴 바이트 (= buf 맨 앞의 파일 위치)
+    private long lastHandoff;
+
+    private final long startNanos;
+    private int lastMillis;             // 마지막 기록의 시각 (판 시작부터 ms)
+    private int moves;
+    private int[] keyTimes = new int[16];
+    private int[] keyOffsets = new int[16];
+    private int keys;
+
+    private boolean ended;
+    volatile boolean dropped;           // 쓰기 스레드가 파일을 닫아도 된다
+
+    /* 미로가 준비된 gameState 로 판 하나를 시작한다: 머리와 첫 키프레임 */
+    ReplayRecorder(ReplayWriter writer, ServerMetrics metrics, int roomId, GameState gameState) {
+        long startMillis = System.currentTimeMillis();
+        this.fileName = "match-" + startMillis + "-r" + roomId + ".mzr";
+        this.writer = writer;
+        this.metrics = metrics;
+        this.startNanos = System.nanoTime();
+        this.lastHandoff = startNanos;
+
+        buf.putInt(ReplayLog.MAGIC)
+                .put((byte) ReplayLog.FORMAT)
+                .put((byte) MakeMaze.VERSION)
+                .put((byte) gameState.algorithm.code())
+                .put((byte) 0)
+                .putInt(gameState.W)
+                .putInt(gameState.H)
+                .putLong(gameState.seed)
+                .putInt(gameState.mazeChecksum)
+                .putInt(gameState.exitX)
+                .putInt(gameState.exitY)
+                .putLong(startMillis);
+
+        keyframe(0, gameState.state());
+    }
+
+    /* 받아들여진 이동 한 칸. st 는 그 이동 뒤의 상태 (키프레임 좌표) */
+    void move(int role, Player.Direction dir, long st) {
+        if (ended) return;
+        long now = System.nanoTime();
+        int t = millis(now);
+        head(ReplayLog.MOVE_BASE | (role - 1) << 2 | BinaryProtocol.dirCode(dir), t);
+        if (++moves % ReplayLog.KEY_INTERVAL == 0) keyframe(t, st);
+        maybeHandOff(now);
+    }
+
+    void win(int player) {
+        if (ended) return;
+        long now = System.nanoTime();
+        head(ReplayLog.WIN, millis(now));
+        buf.put((byte) player);
+        maybeHandOff(now);
+    }
+
+    /* 방이 HANDOFF_MILLIS 마다: 이동이 없는 동안 쌓여 있던 것도 넘긴다 */
+    void flush() {
+        if (ended) return;
+        handOff();
+    }
+
+    /* 판 끝: END + 키프레임 목록을 붙여 마지막으로 넘긴다. 여러 번 불러도 된다 */
+    void end() {
+        if (ended) return;
+        ended = true;
+        if (dropped) return;
+
+        head(ReplayLog.END, millis(System.nanoTime()));
+        handOff();
+
+        ByteBuffer index = ByteBuffer.allocate(keys * 8 + 8);
+        for (int i = 0; i < keys; i++) index.putInt(keyTimes[i]).putInt(keyOffsets[i]);
+        index.putInt(keys).putInt(ReplayLog.INDEX_MAGIC);
+        give(index.array(), true);
+    }
+
+    private void keyframe(int t, long st) {
+        if (keys == keyTimes.length) {
+            keyTimes = Arrays.copyOf(keyTimes, keys * 2);
+            keyOffsets = Arrays.copyOf(keyOffsets, keys * 2);
+        }
+        keyTimes[keys] = t;
+        keyOffsets[keys++] = (int) (handedOff + buf.position());
+
+        head(ReplayLog.KEY, t);
+        for (int p = 1; p <= 2; p++) {
+            putVarint(GameState.x(st, p));
+            putVarint(GameState.y(st, p));
+        }
+    }
+
+    /* 판 시작부터 ms (시각은 기록마다 한 번만 읽는다) */
+    private int millis(long now) {
+        return (int) TimeUnit.NANOSECONDS.toMillis(now - startNanos);
+    }
+
+    /* 머리 바이트 + 앞 기록부터 지난 ms */
+    private void head(int type, int t) {
+        buf.put((byte) type);
+        putVarint(Math.max(0, t - lastMillis));
+        lastMillis = Math.max(lastMillis, t);
+    }
+
+    private void putVarint(int v) {
+        while ((v & ~0x7F) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    private void maybeHandOff(long now) {
+        if (buf.position() >= CHUNK_BYTES || now - lastHandoff >= HANDOFF_NANOS) handOff();
+    }
+
+    private void handOff() {
+        if (buf.position() == 0) return;
+        byte[] bytes = Arrays.copyOf(buf.array(), buf.position());
+        handedOff += bytes.length;
+        buf.clear();
+        give(bytes, false);
+    }
+
+    private void give(byte[] bytes, boolean last) {
+        lastHandoff = System.nanoTime();
+        if (dropped) return;
+        if (!writer.offer(this, bytes, last)) {
+            System.out.println("[Server] Replay " + fileName + " dropped: writer queue full");
+            dropped = true;
+            ended = true;
+            metrics.replayDropped();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package Server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기록 파일(.mzr)을 디스크에 쓰는 스레드 하나 (서버 전체에 하나, --replay-dir 를 준 경우에만).
+ *
+ * 샤드(ReplayRecorder)는 모아 둔 바이트 덩어리를 큐에 넣기만 하고(offer, 기다리지 않는다) 파일은 건드리지 않는다.
+ * 이 스레드가 큐에 쌓인 것을 한꺼번에 꺼내 파일 끝에 붙이고, fsync(force)는 --replay-sync-ms 마다 그동안 쓴
+ * 파일에만 한 번 한다. 판이 끝나면(마지막 덩어리) 그 파일은 바로 force 하고 닫는다.
+ *
+ * 큐가 가득 차면(디스크가 못 따라옴) 그 판의 기록은 거기서 버린다: 파일은 그때까지 쓴 곳에서 끊긴 채로 남고,
+ * ReplayLog 는 끊긴 파일도 온전한 기록까지는 읽는다. 쓰기에 실패한 판도 같다 (로그만 남기고 버린다).
+ */
+final class ReplayWriter {
+
+    /* 쌓아 둘 수 있는 덩어리 수 (덩어리는 많아야 ReplayRecorder.CHUNK_BYTES 바이트 남짓) */
+    static final int QUEUE = 1024;
+
+    /* 한 번에 꺼내 쓰는 덩어리 수 */
+    private static final int BATCH = 64;
+
+    /* 같은 이름의 파일이 있을 때 붙여 보는 번호의 끝 (-1 .. -MAX_SUFFIX) */
+    private static final int MAX_SUFFIX = 1000;
+
+    private static final class Chunk {
+        final ReplayRecorder recording;
+        final byte[] bytes;
+        final boolean last;
+
+        Chunk(ReplayRecorder recording, byte[] bytes, boolean last) {
+            this.recording = recording;
+            this.bytes = bytes;
+            this.last = last;
+        }
+    }
+
+    private final Path dir;
+    private final long syncNanos;
+    private final ServerMetrics metrics;
+    private final ArrayBlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUE);
+
+    /* 아래는 쓰기 스레드 전용 */
+    private final Map<ReplayRecorder, FileChannel> open = new HashMap<>();
+    private final List<FileChannel> dirty = new ArrayList<>();
+    private final List<Chunk> batch = new ArrayList<>(BATCH);
+
+    /* 디렉터리를 만들 수 없으면 IllegalArgumentException (잘못된 옵션과 같이 시작할 때 바로 멈춘다) */
+    ReplayWriter(ServerOptions options, ServerMetrics metrics) {
+        try {
+            this.dir = Files.createDirectories(Path.of(options.replayDir));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot use replay dir: " + options.replayDir, e);
+        }
+        this.syncNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, options.replaySyncMs));
+        this.metrics = metrics;
+
+        Thread t = new Thread(this::run, "replay-writer");
+        t.setDaemon(true);
+        t.start();
+        System.out.println("[Server] Recording replays to " + dir.toAbsolutePath());
+    }
+
+    /* 샤드에서: 덩어리 하나를 넘긴다. 큐가 가득 찼으면 false (그 판은 버린다) */
+    boolean offer(ReplayRecorder recording, byte[] bytes, boolean last) {
+        return queue.offer(new Chunk(recording, bytes, last));
+    }
+
+
+    /* ======================= 쓰기 스레드 ======================= */
+    private void run() {
+        long nextSync = System.nanoTime() + syncNanos;
+
+        while (true) {
+            try {
+                Chunk c = queue.poll(Math.max(0, nextSync - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (c != null) {
+                    batch.add(c);
+                    queue.drainTo(batch, BATCH - 1);
+                    for (Chunk k : batch) write(k);
+                    batch.clear();
+                }
+
+                long now = System.nanoTime();
+                if (now - nextSync >= 0) {
+                    sync();
+                    nextSync = now + syncNanos;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void write(Chunk c) {
+        ReplayRecorder r = c.recording;
+        FileChannel ch = open.get(r);
+        try {
+            if (ch == null) {
+                if (r.dropped) return;      // 이미 버린 판의 남은 덩어리
+                ch = create(r.fileName);
+                open.put(r, ch);
+            }
+
+            ByteBuffer b = ByteBuffer.wrap(c.bytes);
+            while (b.hasRemaining()) ch.write(b);
+            metrics.replayWritten(c.bytes.length);
+
+            if (c.last) {
+                ch.force(false);
+                ch.close();
+                open.remove(r);
+                dirty.remove(ch);
+            } else if (!dirty.contains(ch)) {
+                dirty.add(ch);
+            }
+        } catch (IOException e) {
+            System.out.println("[Server] Replay " + r.fileName + " dropped: " + e);
+            r.dropped = true;
+            metrics.replayDropped();
+            if (ch != null) discard(r, ch);
+        }
+    }
+
+    /*
+     * 새 파일을 만든다. 이름이 이미 있으면 (재시작 뒤 같은 방 번호가 같은 ms 에 시작, 시계가 뒤로 간 경우)
+     * 덮어쓰지도 버리지도 않고 match-...-rN-1.mzr, -2 .. 를 차례로 시도한다.
+     */
+    private FileChannel create(String fileName) throws IOException {
+        String base = fileName.substring(0, fileName.length() - ".mzr".length());
+        for (int i = 0; ; i++) {
+            Path p = dir.resolve(i == 0 ? fileName : base + "-" + i + ".mzr");
+            try {
+                return FileChannel.open(p, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                if (i == MAX_SUFFIX) throw e;
+            }
+        }
+    }
+
+    /* 그동안 쓴 파일을 한 번에 force. 샤드가 버린 판(큐가 가득 찼던 판)은 여기서 닫는다 */
+    private void sync() {
+        for (FileChannel ch : dirty) {
+            try {
+                ch.force(false);
+            } catch (IOException e) {
+                System.out.println("[Server] Replay sync failed: " + e);
+            }
+        }
+        dirty.clear();
+
+        for (Iterator<Map.Entry<ReplayRecorder, FileChannel>> it = open.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<ReplayRecorder, FileChannel> e = it.next();
+            if (!e.getKey().dropped) continue;
+            it.remove();
+            close(e.getValue());
+        }
+    }
+
+    private void discard(ReplayRecorder r, FileChannel ch) {
+        open.remove(r);
+        dirty.remove(ch);
+        close(ch);
+    }
+
+    private static void close(FileChannel ch) {
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
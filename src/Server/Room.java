@@ -0,0 +1,804 @@
+package Server;
+
+import maze_game.BinaryProtocol;
+import maze_game.DistanceField;
+import maze_game.MakeMaze;
+import maze_game.MazeGrid;
+import maze_game.MazeSolver;
+import maze_game.Player;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 게임 방 하나 (플레이어 2명 + GameState).
+ *
+ * 방의 모든 상태는 자신이 배정된 샤드 스레드에서만 읽고 쓴다.
+ * 그래서 MOVE 처리 경로에는 락이 없고, 다른 방과도 경쟁하지 않는다.
+ *
+ * tickRate 가 0 보다 크면 MOVE 는 큐에만 쌓이고, 틱마다 한꺼번에 적용한 뒤
+ * 두 플레이어 좌표를 SNAP 하나로 묶어 보낸다. (키 반복 입력이 몰려도 틱당 전송은 한 번)
+ *
+ * MOVE 에 번호(seq)를 붙여 보내는 클라이언트(이동을 미리 예측해서 그리는 클라이언트)에게는
+ * 그 MOVE 를 처리한 뒤 ACK(seq, 그 플레이어 좌표)를 보낸다. 틱 모드면 틱마다 마지막 번호 하나만.
+ *
+ * PATH / GOTO 는 여러 칸을 한 번에 받는다. 경로 전체를 미로와 한 번에 맞춰 본 뒤 PATH 를 한 번만
+ * 브로드캐스트하고, 그 뒤로는 --path-rate 속도로 칸마다 조용히 옮긴다 (클라이언트가 같은 속도로 따라 그린다).
+ *
+ * 미로는 MazePool 에서 다 만들어진 것을 받아 쓴다 (샤드에서는 만들지 않는다).
+ * 풀을 끈 경우(--pool=0)에는 SLICE_CELLS 칸씩 나눠 만들고, 조각마다 샤드에 다시 넘긴다.
+ * 어느 쪽이든 MAZEROWS 클라이언트는 준비된 행을 ROWS 로 받는다.
+ *
+ * 관전자(WATCH)는 자리에 앉지 않는다. 들어올 때 지금 상태를 따라잡을 메시지만 따로 받고, 그 뒤로는
+ * 브로드캐스트마다 SpectatorFeed 에 한 번 넣은 것을 쓰는 쪽이 각자 읽어 간다 (관전자마다 큐에 넣지 않는다).
+ *
+ * HINT 의 거리 표(BFS)는 샤드가 아니라 RoomRegistry 의 maze-solver 스레드에서 만들고 execute 로 받아 온다.
+ * 그동안 HINT 에는 "준비 중"(Message.hintNotReady) 으로 답하고, 표가 오면 물어본 클라이언트에게 다시 보낸다.
+ *
+ * --replay-dir 를 주면 판마다 seed 와 받아들여진 이동을 ReplayRecorder 에 남긴다 (세 이동 경로 모두 move() 를 거친다).
+ */
+class Room {
+
+    final int id;
+    private final ScheduledExecutorService shard;
+
+    /* 틱 하나에 플레이어당 쌓아 둘 수 있는 입력 수 (넘치면 버린다) */
+    private static final int MAX_QUEUED_INPUTS = 32;
+
+    /* 미로 생성 작업 하나가 만드는 칸 수. ROWS 메시지 하나의 크기도 이만큼 (약 8 KB) */
+    private static final int SLICE_CELLS = 1 << 16;
+
+    /* ROWS 를 받는 클라이언트의 전송 큐가 밀려 있으면 이만큼 쉬었다가 다시 */
+    private static final long ROWS_RETRY_MS = 5;
+
+    private final Client[] seats = new Client[2];
+    private final SpectatorFeed feed;
+    private final GameState gameState;
+    private final MazePool mazePool;
+    private final MazePool.Key mazeKey;
+    private final ExecutorService solver;
+    private MazeGrid fieldBuilding;                         // solver 에서 거리 표를 만들고 있는 미로 (없으면 null)
+    private MazeGrid fieldFailed;                           // 거리 표를 만들다 실패한 미로 (그 판에는 다시 만들지 않는다)
+    private final Client[] hintWaiters = new Client[2];     // 거리 표가 오면 HINT 를 다시 보낼 클라이언트
+    private final ReplayWriter replays;     // 기록을 끈 서버면 null
+    private ReplayRecorder recording;       // 진행 중인 판의 기록 (없으면 null)
+    private ScheduledFuture<?> recordingFlusher;
+    private final ServerMetrics metrics;
+
+    private final int tickRate;
+    private final ArrayDeque<Player.Direction> p1Inputs = new ArrayDeque<>();
+    private final ArrayDeque<Player.Direction> p2Inputs = new ArrayDeque<>();
+    private ScheduledFuture<?> ticker;
+
+    /* PATH / GOTO 로 받은 경로: 자리마다 남은 방향들. 하나라도 있으면 pathStepper 가 한 칸씩 옮긴다 */
+    private static final Player.Direction[] NO_STEPS = new Player.Direction[0];
+    private final Player.Direction[][] paths = new Player.Direction[2][];
+    private final int[] pathNext = new int[2];
+    private final int[] pathSeq = new int[2];
+    private final long stepNanos;
+    private final int stepMillis;
+    private ScheduledFuture<?> pathStepper;
+    private int planX, planY;           // plan() 결과
+
+    /* 미로를 만들거나 ROWS 를 보내는 중 (START 부터 게임 시작까지) */
+    private boolean preparing = false;
+    private final Client[] rowsTargets = new Client[2];   // 이번 판 미로를 ROWS 로 받는 클라이언트
+    private int rowsSent;
+    private long startReceivedAt;   // START 를 읽은 시각 (지표용)
+    private long generateNanos;     // --pool=0 일 때 이번 미로를 만드는 데 쓴 시간 합
+
+    Room(int id, ScheduledExecutorService shard, ServerOptions options, MazePool mazePool,
+         ExecutorService solver, ReplayWriter replays, ServerMetrics metrics) {
+        this.id = id;
+        this.shard = shard;
+        this.tickRate = options.tickRate;
+        this.stepNanos = TimeUnit.SECONDS.toNanos(1) / options.pathRate;
+        this.stepMillis = Math.max(1, 1000 / options.pathRate);
+        this.gameState = new GameState(options.mazeWidth, options.mazeHeight, options.mazeAlgorithm);
+        this.mazePool = mazePool;
+        this.mazeKey = new MazePool.Key(options.mazeWidth, options.mazeHeight, options.mazeAlgorithm);
+        this.solver = solver;
+        this.replays = replays;
+        this.metrics = metrics;
+        this.feed = new SpectatorFeed("nio".equals(options.mode), metrics);
+    }
+
+    /* 샤드 스레드에서 실행 */
+    void execute(Runnable task) {
+        shard.execute(guard(task));
+    }
+
+    /* 예외가 샤드(또는 틱 스케줄)를 죽이지 않도록 감싼다 */
+    private static Runnable guard(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        };
+    }
+
+
+    /* ============= 아래는 모두 샤드 스레드에서 호출 ============= */
+    void onEnter(Client c) {
+        seats[c.role - 1] = c;
+        c.send(Message.role(c.role));
+        c.send(Message.room(id));
+        broadcastState();
+    }
+
+    void onLeave(Client c) {
+        if (seats[c.role - 1] == c) {
+            seats[c.role - 1] = null;
+            paths[c.role - 1] = null;
+        }
+        if (seats[0] == null && seats[1] == null) {
+            stopTicker();
+            stopPaths();
+            endRecording();
+            broadcastState();
+            feed.close();       // 방이 없어졌다: 관전자는 남은 것을 받고 끊긴다
+            return;
+        }
+        broadcastState();
+    }
+
+    /*
+     * 관전 시작: 지금 방 상태(로비, 진행 중인 판의 미로 / 출구 / 좌표 / 경로 / 승자)를 이 관전자에게만 보내고,
+     * 그 다음 방 소식부터는 feed 에서 읽게 한다. 둘 다 샤드에서 정하므로 사이에 빠지거나 겹치는 메시지가 없다.
+     */
+    void onWatch(Client c) {
+        if (feed.isClosed()) {
+            c.closeAfterFlush();
+            return;
+        }
+        feed.watch(c.binary);
+
+        c.send(Message.role(0));
+        c.send(Message.room(id));
+        c.send(stateMessage());
+
+        if (!preparing && gameState.isMazeReady()) {
+            c.send(seedMessage());
+            c.send(Message.exit(gameState.exitX, gameState.exitY));
+            c.send(Message.start());
+
+            long st = gameState.state();
+            c.send(Message.snapshot(
+                    GameState.x(st, 1), GameState.y(st, 1),
+                    GameState.x(st, 2), GameState.y(st, 2)));
+            for (int i = 0; i < 2; i++) {
+                if (paths[i] == null) continue;
+                c.send(Message.path(i + 1, GameState.x(st, i + 1), GameState.y(st, i + 1), stepMillis,
+                        Arrays.copyOfRange(paths[i], pathNext[i], paths[i].length)));
+            }
+            if (gameState.getWinner() != 0) c.send(Message.win(gameState.getWinner()));
+        }
+
+        c.watchFeed(feed);
+    }
+
+    void onUnwatch(Client c) {
+        if (c.feed == feed) feed.unwatch(c.feedBinary);
+    }
+
+    /* 바이너리 협상 응답: 이 줄 이후로 이 클라이언트에게는 프레임으로 보낸다 */
+    void onHello(Client c) {
+        c.sendLine(BinaryProtocol.ACK);
+        c.binary = true;
+    }
+
+    /* JOIN */
+    void onJoin(Client c, String name) {
+        c.name = name;
+        broadcastState();
+    }
+
+    /* READY */
+    void onReady(Client c, boolean ready) {
+        c.ready = ready;
+        broadcastState();
+    }
+
+    /* START 요청 (P1만 가능). receivedAt 은 읽는 스레드가 START 를 읽은 시각 */
+    void onStart(Client c, long receivedAt) {
+        if (preparing) return;
+
+        if (c.role == 1 &&
+                seats[0] != null && seats[0].ready &&
+                seats[1] != null && seats[1].ready) {
+
+            stopTicker();
+            stopPaths();
+            endRecording();
+            Arrays.fill(hintWaiters, null);
+            preparing = true;
+            startReceivedAt = receivedAt;
+            rowsSent = 0;
+            for (int i = 0; i < 2; i++) {
+                rowsTargets[i] = (seats[i] != null && seats[i].mazeRows) ? seats[i] : null;
+            }
+
+            // 미리 만들어 둔 미로 (없으면 풀 스레드가 만들어 주는 대로 이어서 진행)
+            if (mazePool != null) {
+                gameState.clear();
+                mazePool.take(mazeKey, maze -> execute(() -> onMazeReady(maze)));
+                return;
+            }
+
+            // 미로 생성
+            System.out.println("[Room " + id + "] Generating maze (" + mazeKey + ")...");
+            long t0 = System.nanoTime();
+            gameState.beginMaze();
+            generateNanos = System.nanoTime() - t0;
+            if (gameState.isMazeReady()) metrics.mazeGenerateTime.record(generateNanos);   // 한 번에 다 만든 경우
+            pumpMaze();
+        }
+    }
+
+    private void onMazeReady(PreparedMaze maze) {
+        metrics.mazeGenerateTime.record(maze.generateNanos);
+        gameState.useMaze(maze);
+        pumpMaze();
+    }
+
+    /* 만들어진 행을 ROWS 로 보내고, 남았으면 다음 조각을 만들도록 샤드에 다시 넘긴다 */
+    private void pumpMaze() {
+        if (seats[0] == null && seats[1] == null) {
+            preparing = false;
+            return;
+        }
+
+        int rowsPerSlice = Math.max(1, SLICE_CELLS / gameState.W);
+
+        while (rowsSent < gameState.rowsReady()) {
+            if (rowsBacklogged()) {
+                shard.schedule(guard(this::pumpMaze), ROWS_RETRY_MS, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            int n = Math.min(rowsPerSlice, gameState.rowsReady() - rowsSent);
+            Message rows = Message.rows(gameState.maze, rowsSent, n);
+            for (int i = 0; i < 2; i++) {
+                if (rowsTargets[i] != null && seats[i] == rowsTargets[i]) rowsTargets[i].send(rows);
+            }
+            rowsSent += n;
+        }
+
+        if (!gameState.isMazeReady()) {
+            long t0 = System.nanoTime();
+            boolean ready = gameState.generateRows(rowsPerSlice);
+            generateNanos += System.nanoTime() - t0;
+            if (ready) metrics.mazeGenerateTime.record(generateNanos);
+
+            execute(this::pumpMaze);
+            return;
+        }
+
+        preparing = false;
+        startGame();
+    }
+
+    /* ROWS 받는 쪽 전송 큐가 밀려 있으면 그쪽 속도에 맞춘다 (한도를 넘겨 끊기지 않도록) */
+    private boolean rowsBacklogged() {
+        for (int i = 0; i < 2; i++) {
+            Client t = rowsTargets[i];
+            if (t != null && seats[i] == t && t.outbound.isBacklogged()) return true;
+        }
+        return false;
+    }
+
+    private void startGame() {
+        if (replays != null) {
+            recording = new ReplayRecorder(replays, metrics, id, gameState);
+            recordingFlusher = shard.scheduleAtFixedRate(guard(this::flushRecording),
+                    ReplayRecorder.HANDOFF_MILLIS, ReplayRecorder.HANDOFF_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        // 미로 전송: ROWS 로 이미 받은 쪽은 빼고, 같은 생성기를 가진 클라이언트에게는 seed 만, 나머지는 미로 전체
+        // 관전자는 모두 seed (feed 에는 모두가 같이 읽을 메시지 하나만 넣는다)
+        Message seed = seedMessage();
+        if (feed.watchers() > 0) feed.publish(seed);
+        Message full = null;
+        for (int i = 0; i < 2; i++) {
+            Client cl = seats[i];
+            if (cl == null || cl == rowsTargets[i]) continue;
+
+            if (cl.mazeGen == MakeMaze.VERSION) {
+                cl.send(seed);
+            } else {
+                if (full == null) full = Message.maze(gameState.maze);
+                cl.send(full);
+            }
+        }
+        rowsTargets[0] = rowsTargets[1] = null;
+
+        // 출구 전송 (ROWS 로 받은 쪽은 출구 칸을 여기서 연다)
+        broadcast(Message.exit(gameState.exitX, gameState.exitY));
+
+        // 게임 시작 신호
+        broadcast(Message.start());
+
+        // 초기 좌표 브로드캐스트
+        if (tickRate > 0) {
+            broadcastSnapshot();
+            startTicker();
+        } else {
+            broadcastPositions();
+        }
+
+        metrics.startLatency.record(System.nanoTime() - startReceivedAt);
+        System.out.println("[Room " + id + "] Maze + START sent.");
+    }
+
+    private Message seedMessage() {
+        return Message.seed(MakeMaze.VERSION, gameState.algorithm.code(),
+                gameState.W, gameState.H, gameState.seed, gameState.mazeChecksum);
+    }
+
+    void onMazeGen(Client c, int version) {
+        c.mazeGen = version;
+    }
+
+    void onMazeRows(Client c) {
+        c.mazeRows = true;
+    }
+
+    /* seed 로 다시 만든 미로가 서버와 다르면 그 클라이언트에게만 미로 전체를 보낸다 */
+    void onMazeCheck(Client c, int checksum) {
+        if (!gameState.isMazeReady() || checksum == gameState.mazeChecksum) return;
+
+        System.out.println("[Room " + id + "] Maze checksum mismatch (role " + c.role + "), sending full maze");
+
+        // ROWS 를 아는 클라이언트(VERSION 2 이상)에게는 잘라서: 큰 미로도 MAX_FRAME 을 넘지 않는다
+        if (c.mazeGen >= 2) {
+            int rowsPerSlice = Math.max(1, SLICE_CELLS / gameState.W);
+            for (int y = 0; y < gameState.H; y += rowsPerSlice) {
+                c.send(Message.rows(gameState.maze, y, Math.min(rowsPerSlice, gameState.H - y)));
+            }
+            c.send(Message.exit(gameState.exitX, gameState.exitY));
+        } else {
+            c.send(Message.maze(gameState.maze));
+        }
+    }
+
+    /*
+     * HINT: 출구 쪽 다음 칸과 두 플레이어의 남은 거리.
+     * 거리 표는 미로당 한 번만 solver 스레드에서 만들고, 그 뒤 질의는 O(1). 표가 오기 전에는 "준비 중".
+     */
+    void onHint(Client c) {
+        if (gameState.getWinner() != 0 || !gameState.isMazeReady()) return;
+        DistanceField field = gameState.exitDistances();
+        if (field == null && fieldFailed == gameState.maze) {
+            c.send(Message.hintUnavailable());
+            return;
+        }
+        if (field == null) {
+            hintWaiters[c.role - 1] = c;
+            c.send(Message.hintNotReady());
+            buildExitDistances();
+            return;
+        }
+
+        long s = gameState.state();
+        int x = GameState.x(s, c.role);
+        int y = GameState.y(s, c.role);
+        int other = 3 - c.role;
+
+        int nx = x, ny = y;
+        Player.Direction dir = field.nextStep(x, y);
+        if (dir != null) {
+            switch (dir) {
+                case UP:    ny--; break;
+                case DOWN:  ny++; break;
+                case LEFT:  nx--; break;
+                case RIGHT: nx++; break;
+            }
+        }
+
+        c.send(Message.hint(nx, ny, field.distance(x, y),
+                field.distance(GameState.x(s, other), GameState.y(s, other))));
+    }
+
+    /* 지금 미로의 거리 표를 solver 스레드에서 만든다 (이미 만드는 중이면 그대로) */
+    private void buildExitDistances() {
+        MazeGrid maze = gameState.maze;
+        if (fieldBuilding == maze) return;
+        fieldBuilding = maze;
+
+        // 칸마다 4 바이트라 큰 미로면 OutOfMemoryError 도 날 수 있다 (guard 는 RuntimeException 만 잡는다):
+        // 어느 쪽이든 샤드에 알려 fieldBuilding 을 풀고 기다리던 쪽에 답한다
+        int exitX = gameState.exitX, exitY = gameState.exitY;
+        solver.execute(() -> {
+            DistanceField field;
+            try {
+                field = MazeSolver.distanceField(maze, exitX, exitY);
+            } catch (RuntimeException | OutOfMemoryError e) {
+                System.out.println("[Room " + id + "] Hint distance field failed: " + e);
+                execute(() -> onExitDistancesFailed(maze));
+                return;
+            }
+            execute(() -> onExitDistances(maze, field));
+        });
+    }
+
+    /* solver 가 만든 표를 받는다. 그 사이 다음 판이 시작됐으면 버린다 */
+    private void onExitDistances(MazeGrid maze, DistanceField field) {
+        if (fieldBuilding == maze) fieldBuilding = null;
+        if (!gameState.setExitDistances(maze, field)) return;
+
+        for (int i = 0; i < 2; i++) {
+            Client c = hintWaiters[i];
+            hintWaiters[i] = null;
+            if (c != null && seats[i] == c) onHint(c);
+        }
+    }
+
+    /* solver 가 표를 만들지 못했다: 이 미로에서는 힌트를 쓸 수 없다고 답한다 */
+    private void onExitDistancesFailed(MazeGrid maze) {
+        if (fieldBuilding == maze) fieldBuilding = null;
+        if (gameState.maze != maze) return;     // 그 사이 다음 판
+        fieldFailed = maze;
+
+        for (int i = 0; i < 2; i++) {
+            Client c = hintWaiters[i];
+            hintWaiters[i] = null;
+            if (c != null && seats[i] == c) c.send(Message.hintUnavailable());
+        }
+    }
+
+    /* ===================== MOVE 처리 ====================== */
+    void onMove(Client c, Player.Direction dir, int seq) {
+        if (!gameState.isMazeReady()) return;
+
+        // 경로를 가는 중이면 그 끝에 잇는다 (클라이언트는 경로를 다 간 자리에서 이 입력을 예측했다)
+        int i = c.role - 1;
+        if (paths[i] != null) {
+            Player.Direction[] step = { dir };
+            plan(c.role);
+            if (validate(planX, planY, step) == 1 && paths[i].length - pathNext[i] < BinaryProtocol.MAX_PATH) {
+                extendPath(c, step);
+            }
+            if (seq > 0) pathSeq[i] = seq;      // 막혔어도 경로 끝에서 함께 ACK
+            return;
+        }
+
+        // 틱 모드: 다음 틱에서 한꺼번에 처리 (넘쳐서 버린 입력도 처리한 것으로 ACK 한다)
+        if (tickRate > 0) {
+            ArrayDeque<Player.Direction> q = (c.role == 1) ? p1Inputs : p2Inputs;
+            if (q.size() < MAX_QUEUED_INPUTS) q.add(dir);
+            if (seq > 0) c.moveSeq = seq;
+            return;
+        }
+
+        // 이동 + 승리 체크 (GameState 가 한 번의 CAS 로 처리)
+        GameState.MoveResult r = move(c.role, dir);
+
+        // 막혔거나 끝난 판이어도 답한다 (클라이언트가 예측을 되돌린다)
+        if (seq > 0) {
+            c.moveSeq = seq;
+            sendAck(c);
+        }
+
+        if (r == GameState.MoveResult.WON) {
+            broadcast(Message.win(c.role));
+            return;
+        }
+        if (r == GameState.MoveResult.FINISHED) return; // 끝난 판은 더 이상 MOVE 처리 안함
+
+        // 방 안의 모든 클라에게 위치 알려줌
+        broadcastPositions();
+    }
+
+    /* 이동 한 칸. 받아들여졌으면(MOVED / WON) 기록에도 남기고, 이겼으면 그 판의 기록을 닫는다 */
+    private GameState.MoveResult move(int role, Player.Direction dir) {
+        GameState.MoveResult r = gameState.move(role, dir);
+        if (recording != null && (r == GameState.MoveResult.MOVED || r == GameState.MoveResult.WON)) {
+            recording.move(role, dir, gameState.state());
+            if (r == GameState.MoveResult.WON) {
+                recording.win(role);
+                endRecording();
+            }
+        }
+        return r;
+    }
+
+    private void endRecording() {
+        if (recordingFlusher != null) {
+            recordingFlusher.cancel(false);
+            recordingFlusher = null;
+        }
+        if (recording != null) {
+            recording.end();
+            recording = null;
+        }
+    }
+
+    /* 이동이 없는 판의 기록도 쓰기 스레드로 넘긴다 (move() 에서만 넘기면 쉬는 판은 버퍼에 계속 머문다) */
+    private void flushRecording() {
+        if (recording != null) recording.flush();
+    }
+
+
+    /* ===================== 틱 처리 ====================== */
+    private void startTicker() {
+        stopTicker();
+        p1Inputs.clear();
+        p2Inputs.clear();
+
+        long period = TimeUnit.SECONDS.toNanos(1) / tickRate;
+        ticker = shard.scheduleAtFixedRate(guard(this::tick), period, period, TimeUnit.NANOSECONDS);
+    }
+
+    private void stopTicker() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+    }
+
+    /* 쌓인 입력을 두 플레이어 번갈아 적용하고, 바뀐 게 있으면 SNAP 한 번만 보낸다 */
+    private void tick() {
+        long before = gameState.state();
+
+        while (!p1Inputs.isEmpty() || !p2Inputs.isEmpty()) {
+            Player.Direction d;
+
+            if ((d = p1Inputs.poll()) != null && move(1, d) == GameState.MoveResult.WON) {
+                finish(1);
+                return;
+            }
+            if ((d = p2Inputs.poll()) != null && move(2, d) == GameState.MoveResult.WON) {
+                finish(2);
+                return;
+            }
+        }
+
+        sendAcks();
+        if (gameState.state() != before) broadcastSnapshot();
+    }
+
+    private void finish(int winner) {
+        stopTicker();
+        sendAcks();
+        broadcastSnapshot();
+        broadcast(Message.win(winner));
+    }
+
+    /* 이번 틱에 MOVE 를 보낸 번호 붙은 클라이언트에게 ACK. 경로를 가는 중이면 경로 끝에서 한 번에 */
+    private void sendAcks() {
+        for (int i = 0; i < 2; i++) {
+            Client cl = seats[i];
+            if (cl != null && cl.moveSeq != cl.ackedSeq && paths[i] == null) sendAck(cl);
+        }
+    }
+
+    private void sendAck(Client c) {
+        long st = gameState.state();
+        c.ackedSeq = c.moveSeq;
+        c.send(Message.ack(c.moveSeq, GameState.x(st, c.role), GameState.y(st, c.role)));
+    }
+
+    private void broadcastSnapshot() {
+        long st = gameState.state();
+        broadcast(Message.snapshot(
+                GameState.x(st, 1), GameState.y(st, 1),
+                GameState.x(st, 2), GameState.y(st, 2)));
+    }
+
+
+    /* ===================== PATH / GOTO ====================== */
+
+    /*
+     * PATH: 지금 가기로 한 곳(틱 큐에 쌓인 입력, 가는 중인 경로를 다 간 칸)에서 dirs 를 이어 간다.
+     * 경로 전체를 한 번에 미로와 맞춰 보고, 벽에 막히는 칸이 있으면 통째로 버린다 (출구에 닿으면 거기까지).
+     * 받아들이면 PATH 를 한 번 브로드캐스트하고, 끝까지 간 뒤 보낸 쪽에 ACK 한다.
+     */
+    void onPath(Client c, Player.Direction[] dirs, int seq) {
+        if (!gameState.isMazeReady()) return;
+        int i = c.role - 1;
+
+        plan(c.role);
+        int remaining = paths[i] == null ? 0 : paths[i].length - pathNext[i];
+        int n = validate(planX, planY, dirs);
+
+        if (n <= 0 || remaining + n > BinaryProtocol.MAX_PATH || gameState.getWinner() != 0) {
+            // 거절: 남은 경로도 버리고 지금 좌표로 답한다 (클라이언트가 예측을 되돌린다)
+            if (paths[i] != null) cancelPath(c.role);
+            if (seq > 0) {
+                c.moveSeq = seq;
+                if (tickRate == 0) sendAck(c);      // 틱 모드면 쌓인 입력을 적용한 뒤 다음 틱에서
+            }
+            return;
+        }
+
+        extendPath(c, (n == dirs.length) ? dirs : Arrays.copyOf(dirs, n));
+        if (seq > 0) pathSeq[i] = seq;
+    }
+
+    /* 검사를 마친 dirs 를 (planX, planY) 에서 잇는다: 한 번 브로드캐스트하고, 안 돌고 있으면 진행을 시작 */
+    private void extendPath(Client c, Player.Direction[] dirs) {
+        int i = c.role - 1;
+        if (paths[i] == null) {
+            paths[i] = dirs;
+        } else {
+            int remaining = paths[i].length - pathNext[i];
+            Player.Direction[] joined = new Player.Direction[remaining + dirs.length];
+            System.arraycopy(paths[i], pathNext[i], joined, 0, remaining);
+            System.arraycopy(dirs, 0, joined, remaining, dirs.length);
+            paths[i] = joined;
+        }
+        pathNext[i] = 0;
+
+        broadcast(Message.path(c.role, planX, planY, stepMillis, dirs));
+
+        if (pathStepper == null) {
+            pathStepper = shard.scheduleAtFixedRate(guard(this::stepPaths), stepNanos, stepNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /* GOTO: 가기로 한 곳에서 (x, y) 까지 남은 길이 한도 안의 최단 경로를 PATH 로 */
+    void onGoto(Client c, int x, int y, int seq) {
+        MazeSolver solver = gameState.solver();
+        if (solver == null) return;
+
+        int i = c.role - 1;
+        int remaining = paths[i] == null ? 0 : paths[i].length - pathNext[i];
+        plan(c.role);
+        Player.Direction[] dirs = solver.findSteps(planX, planY, x, y, BinaryProtocol.MAX_PATH - remaining);
+        onPath(c, dirs == null ? NO_STEPS : dirs, seq);     // 못 가면 빈 경로: 거절과 같이 답만 한다
+    }
+
+    /* role 이 지금 가기로 한 칸 → planX, planY */
+    private void plan(int role) {
+        long st = gameState.state();
+        planX = GameState.x(st, role);
+        planY = GameState.y(st, role);
+
+        if (tickRate > 0) {
+            for (Player.Direction d : (role == 1) ? p1Inputs : p2Inputs) planStep(d);
+        }
+        Player.Direction[] path = paths[role - 1];
+        if (path != null) {
+            for (int k = pathNext[role - 1]; k < path.length; k++) planStep(path[k]);
+        }
+    }
+
+    /* 한 칸. 벽이면 MOVE 처럼 그대로 있는다 */
+    private void planStep(Player.Direction d) {
+        int nx = planX, ny = planY;
+        switch (d) {
+            case UP:    ny--; break;
+            case DOWN:  ny++; break;
+            case LEFT:  nx--; break;
+            case RIGHT: nx++; break;
+        }
+        if (gameState.maze.isOpen(nx, ny)) {
+            planX = nx;
+            planY = ny;
+        }
+    }
+
+    /* (x, y) 에서 dirs 를 따라 한 번에 훑는다. 벽에 막히면 0, 아니면 갈 칸 수 (출구에 닿으면 거기까지) */
+    private int validate(int x, int y, Player.Direction[] dirs) {
+        MazeGrid maze = gameState.maze;
+        for (int k = 0; k < dirs.length; k++) {
+            switch (dirs[k]) {
+                case UP:    y--; break;
+                case DOWN:  y++; break;
+                case LEFT:  x--; break;
+                case RIGHT: x++; break;
+            }
+            if (!maze.isOpen(x, y)) return 0;
+            if (x == gameState.exitX && y == gameState.exitY) return k + 1;
+        }
+        return dirs.length;
+    }
+
+    /* stepNanos 마다: 경로마다 한 칸 (틱 큐에 그 플레이어 입력이 남았으면 그게 먼저) */
+    private void stepPaths() {
+        boolean active = false;
+
+        for (int i = 0; i < 2; i++) {
+            Player.Direction[] path = paths[i];
+            if (path == null) continue;
+            if (!((i == 0) ? p1Inputs : p2Inputs).isEmpty()) {
+                active = true;
+                continue;
+            }
+
+            GameState.MoveResult r = move(i + 1, path[pathNext[i]++]);
+            if (pathNext[i] == path.length || r != GameState.MoveResult.MOVED) {
+                endPath(i);
+            } else {
+                active = true;
+            }
+
+            if (r == GameState.MoveResult.WON) {
+                stopPaths();
+                if (tickRate > 0) finish(i + 1);
+                else broadcast(Message.win(i + 1));
+                return;
+            }
+        }
+
+        if (!active) stopPaths();
+    }
+
+    /* 끝까지 갔다: 보낸 쪽에 ACK */
+    private void endPath(int i) {
+        paths[i] = null;
+        Client c = seats[i];
+        if (c != null && pathSeq[i] > 0) {
+            c.moveSeq = Math.max(c.moveSeq, pathSeq[i]);
+            sendAck(c);
+        }
+        pathSeq[i] = 0;
+    }
+
+    /* 가던 경로를 지금 칸에서 멈춘다. 빈 PATH 로 알려서 클라이언트도 거기서 멈춘다 */
+    private void cancelPath(int role) {
+        paths[role - 1] = null;
+        pathSeq[role - 1] = 0;
+
+        long st = gameState.state();
+        broadcast(Message.path(role, GameState.x(st, role), GameState.y(st, role), stepMillis, NO_STEPS));
+    }
+
+    private void stopPaths() {
+        if (pathStepper != null) {
+            pathStepper.cancel(false);
+            pathStepper = null;
+        }
+        paths[0] = paths[1] = null;
+        pathSeq[0] = pathSeq[1] = 0;
+    }
+
+
+    /* 방 로비 상태 브로드캐스트 */
+    private void broadcastState() {
+        broadcast(stateMessage());
+    }
+
+    private Message stateMessage() {
+        Client p1 = seats[0];
+        Client p2 = seats[1];
+
+        int flags = 0;
+        if (p1 != null) flags |= BinaryProtocol.STATE_P1_PRESENT;
+        if (p1 != null && p1.ready) flags |= BinaryProtocol.STATE_P1_READY;
+        if (p2 != null) flags |= BinaryProtocol.STATE_P2_PRESENT;
+        if (p2 != null && p2.ready) flags |= BinaryProtocol.STATE_P2_READY;
+        if (p1 != null && p1.ready && p2 != null && p2.ready) flags |= BinaryProtocol.STATE_CAN_START;
+
+        return Message.state(flags,
+                p1 != null ? safe(p1.name) : "",
+                p2 != null ? safe(p2.name) : "");
+    }
+
+    private String safe(String s) {
+        return s == null ? "" : s.replace("|", " ");
+    }
+
+    /* 방 안의 클라이언트에게만 전송 (샤드 스레드 전용이라 락이 필요 없다). 관전자에게는 feed 로 한 번만 */
+    private void broadcast(Message msg) {
+        long t0 = System.nanoTime();
+        for (Client cl : seats) {
+            if (cl != null) cl.send(msg);
+        }
+        if (feed.watchers() > 0) feed.publish(msg);
+        metrics.broadcastTime.record(System.nanoTime() - t0);
+    }
+
+    /* 좌표 브로드캐스트 */
+    private void broadcastPositions() {
+        long st = gameState.state();
+        broadcast(Message.pos(1, GameState.x(st, 1), GameState.y(st, 1)));
+        broadcast(Message.pos(2, GameState.x(st, 2), GameState.y(st, 2)));
+    }
+}
@@ -0,0 +1,179 @@
+package Server;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 방 목록 + 샤드(단일 스레드 실행기) 관리.
+ *
+ * 방은 만들어질 때 샤드 하나에 고정되고, 그 방의 모든 처리는 그 샤드에서만 돈다.
+ * 자리 배정(join / leave)과 관전 시작(watch)만 이 클래스의 락을 잡는다. MOVE 경로는 락을 거치지 않는다.
+ * 가상 스레드에서도 불리므로 synchronized 대신 ReentrantLock 을 쓴다.
+ */
+class RoomRegistry {
+
+    private final ScheduledExecutorService[] shards;
+    private final ServerOptions options;
+    private final int maxRooms;
+    private final MazePool mazePool;    // --pool=0 이면 null
+    private final ReplayWriter replays; // --replay-dir 가 없으면 null
+    private final ExecutorService solver;   // 힌트 거리 표를 만드는 낮은 우선순위 스레드 (샤드 밖)
+    private final ServerMetrics metrics;
+
+    private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+
+    /* 아래는 모두 lock 으로 보호 */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Room, boolean[]> occupied = new HashMap<>();
+    private final Deque<Room> openRooms = new ArrayDeque<>();
+    private int nextId = 1;
+
+    RoomRegistry(ServerOptions options, ServerMetrics metrics) {
+        this.shards = new ScheduledExecutorService[options.shards];
+        this.options = options;
+        this.maxRooms = options.maxRooms;
+        this.metrics = metrics;
+
+        if (options.poolSize > 0) {
+            MazePool.Key key = new MazePool.Key(options.mazeWidth, options.mazeHeight, options.mazeAlgorithm);
+            mazePool = new MazePool(options.poolSize, options.poolBytes);
+            mazePool.register(key);
+            metrics.setPool(mazePool, key);
+        } else {
+            mazePool = null;
+        }
+
+        replays = options.replayDir.isEmpty() ? null : new ReplayWriter(options, metrics);
+
+        solver = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "maze-solver");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+        for (int i = 0; i < shards.length; i++) {
+            String name = "shard-" + i;
+            shards[i] = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, name));
+        }
+    }
+
+    /**
+     * 빈 자리가 있는 방에 넣는다. 없으면 새 방을 만든다.
+     * @return 방이 꽉 차서(maxRooms) 들어갈 수 없으면 false
+     */
+    boolean join(Client c) {
+        lock.lock();
+        long t0 = System.nanoTime();
+        try {
+            return joinLocked(c);
+        } finally {
+            metrics.registryLockTime.record(System.nanoTime() - t0);
+            lock.unlock();
+        }
+    }
+
+    private boolean joinLocked(Client c) {
+        Room room = openRooms.peekFirst();
+
+        if (room == null) {
+            if (maxRooms > 0 && rooms.size() >= maxRooms) return false;
+
+            int id = nextId++;
+            room = new Room(id, shards[id % shards.length], options, mazePool, solver, replays, metrics);
+            rooms.put(id, room);
+            metrics.roomOpened();
+            occupied.put(room, new boolean[2]);
+            openRooms.addLast(room);
+        }
+
+        boolean[] seats = occupied.get(room);
+        int role = seats[0] ? 2 : 1;
+        seats[role - 1] = true;
+        if (seats[0] && seats[1]) openRooms.remove(room);
+
+        c.room = room;
+        c.role = role;
+
+        // 자리 배정 순서와 샤드 실행 순서를 맞추기 위해 락 안에서 넘긴다
+        Room r = room;
+        r.execute(() -> r.onEnter(c));
+        return true;
+    }
+
+    /**
+     * 관전: id 번 방을 본다 (자리는 쓰지 않는다, role 0).
+     * 방을 닫는 leave 와 같은 락 안에서 샤드로 넘기므로, onWatch 는 항상 방이 닫히기(feed close) 전에 돈다.
+     * @return 그런 방이 없으면 false
+     */
+    boolean watch(Client c, int id) {
+        lock.lock();
+        long t0 = System.nanoTime();
+        try {
+            Room room = rooms.get(id);
+            if (room == null) return false;
+
+            c.room = room;
+            c.role = 0;
+            room.execute(() -> room.onWatch(c));
+            return true;
+        } finally {
+            metrics.registryLockTime.record(System.nanoTime() - t0);
+            lock.unlock();
+        }
+    }
+
+    void leave(Client c) {
+        if (c.spectator()) {
+            Room room = c.room;
+            if (room == null) return;
+            c.room = null;
+            room.execute(() -> room.onUnwatch(c));
+            return;
+        }
+
+        lock.lock();
+        long t0 = System.nanoTime();
+        try {
+            leaveLocked(c);
+        } finally {
+            metrics.registryLockTime.record(System.nanoTime() - t0);
+            lock.unlock();
+        }
+    }
+
+    private void leaveLocked(Client c) {
+        Room room = c.room;
+        if (room == null) return;
+        c.room = null;
+
+        boolean[] seats = occupied.get(room);
+        seats[c.role - 1] = false;
+
+        if (!seats[0] && !seats[1]) {
+            rooms.remove(room.id);
+            metrics.roomClosed();
+            occupied.remove(room);
+            openRooms.remove(room);
+        } else if (!openRooms.contains(room)) {
+            openRooms.addFirst(room);
+        }
+
+        room.execute(() -> room.onLeave(c));
+    }
+
+    Room get(int id) {
+        return rooms.get(id);
+    }
+
+    int roomCount() {
+        return rooms.size();
+    }
+}
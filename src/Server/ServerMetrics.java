@@ -0,0 +1,205 @@
+package Server;
+
+import maze_game.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 서버 지표. 여러 스레드(읽기 스레드, 샤드, 풀 스레드)에서 락 없이 기록한다.
+ *
+ *  - 메시지 수: 받은 명령 종류별 / 보낸 메시지 종류별, 보낸 바이트
+ *  - 지연: MOVE 를 읽은 뒤 샤드에서 처리가 끝날 때까지, START 를 읽은 뒤 게임 시작 메시지를 보낼 때까지
+ *  - 시간: broadcast() 한 번, RoomRegistry 락을 잡고 있던 시간, 미로 한 판 만드는 데 걸린 시간
+ *  - 전송 큐: 메시지를 넣은 직후 그 클라이언트 큐에 쌓인 바이트
+ *  - 현재 접속 수, 방 수
+ *  - 관전: 관전 접속 수, 관전 방송(feed)에 넣은 메시지 수, 관전자에게 쓴 바이트 (out.bytes 와 따로)
+ *  - 기록: 기록 파일에 쓴 바이트, 중간에 버린 판 수 (쓰기 큐가 가득 찼거나 쓰기 실패)
+ *
+ * MazeRunnerServer 가 JMX (MazeRunner:type=Server) 와 --stats-port 텍스트로 내보낸다.
+ */
+final class ServerMetrics implements ServerMetricsMBean {
+
+    /* 받은 명령: 바이너리 타입 코드 - 0x20 (텍스트 명령도 같은 칸에 센다). 0 은 HELLO */
+    private static final String[] IN_NAMES = {
+            "HELLO", "JOIN", "READY", "START", "MOVE", "MAZEGEN", "MAZECHK", "MAZEROWS", "HINT", "PATH", "GOTO", "WATCH"
+    };
+
+    /* 보낸 메시지: BinaryProtocol.S_* 코드. 0 은 그 밖의 텍스트 줄 (FULL, 협상 응답) */
+    private static final String[] OUT_NAMES = {
+            "LINE", "ROLE", "ROOM", "STATE", "MAZE", "EXIT", "START", "POS", "WIN", "SEED", "SNAP", "ROWS", "HINT", "ACK", "PATH"
+    };
+
+    private final LongAdder[] received = adders(IN_NAMES.length);
+    private final LongAdder[] sent = adders(OUT_NAMES.length);
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder slowConsumers = new LongAdder();
+    private final LongAdder feedPublished = new LongAdder();
+    private final LongAdder spectatorBytes = new LongAdder();
+    private final LongAdder replayBytes = new LongAdder();
+    private final LongAdder replayDrops = new LongAdder();
+
+    final LatencyHistogram moveLatency = new LatencyHistogram();
+    final LatencyHistogram startLatency = new LatencyHistogram();
+    final LatencyHistogram broadcastTime = new LatencyHistogram();
+    final LatencyHistogram registryLockTime = new LatencyHistogram();
+    final LatencyHistogram mazeGenerateTime = new LatencyHistogram();
+    final LatencyHistogram outboundBytes = new LatencyHistogram();     // 값이 ns 가 아니라 바이트
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger rooms = new AtomicInteger();
+    private final AtomicInteger spectators = new AtomicInteger();
+
+    /* 풀 상태도 같이 보여 준다 (--pool=0 이면 null) */
+    private volatile MazePool pool;
+    private volatile MazePool.Key poolKey;
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] a = new LongAdder[n];
+        for (int i = 0; i < n; i++) a[i] = new LongAdder();
+        return a;
+    }
+
+
+    /* ============================ 기록 ============================ */
+
+    /* type 은 BinaryProtocol.C_* (HELLO 는 0x20) */
+    void received(int type) {
+        int i = type - 0x20;
+        if (i >= 0 && i < received.length) received[i].increment();
+    }
+
+    /* type 은 BinaryProtocol.S_* (0 이면 그 밖의 줄) */
+    void sent(int type, int bytes) {
+        sent[(type > 0 && type < sent.length) ? type : 0].increment();
+        bytesSent.add(bytes);
+    }
+
+    /* 관전 방송에 메시지 하나 (관전자 수와 상관없이 한 번) */
+    void published() {
+        feedPublished.increment();
+    }
+
+    /* 관전자 한 명에게 쓴 바이트 (쓰기 한 번에 한 번) */
+    void spectatorSent(long bytes) {
+        spectatorBytes.add(bytes);
+    }
+
+    /* 기록 파일에 쓴 바이트 (쓰기 스레드) */
+    void replayWritten(long bytes) {
+        replayBytes.add(bytes);
+    }
+
+    void replayDropped() {
+        replayDrops.increment();
+    }
+
+    void slowConsumerClosed() {
+        slowConsumers.increment();
+    }
+
+    void connectionOpened()  { connections.incrementAndGet(); }
+    void connectionClosed()  { connections.decrementAndGet(); }
+    void roomOpened()        { rooms.incrementAndGet(); }
+    void roomClosed()        { rooms.decrementAndGet(); }
+    void spectatorOpened()   { spectators.incrementAndGet(); }
+    void spectatorClosed()   { spectators.decrementAndGet(); }
+
+    void setPool(MazePool pool, MazePool.Key key) {
+        this.pool = pool;
+        this.poolKey = key;
+    }
+
+
+    /* ============================ JMX ============================ */
+
+    @Override public int getConnections()          { return connections.get(); }
+    @Override public int getRooms()                { return rooms.get(); }
+    @Override public int getSpectators()           { return spectators.get(); }
+    @Override public long getBytesSent()           { return bytesSent.sum(); }
+    @Override public long getSlowConsumerCloses()  { return slowConsumers.sum(); }
+
+    @Override
+    public long getMessagesReceived() {
+        long n = 0;
+        for (LongAdder a : received) n += a.sum();
+        return n;
+    }
+
+    @Override
+    public long getMessagesSent() {
+        long n = 0;
+        for (LongAdder a : sent) n += a.sum();
+        return n;
+    }
+
+    @Override public long getMoveP50Micros()         { return moveLatency.percentile(0.50) / 1000; }
+    @Override public long getMoveP99Micros()         { return moveLatency.percentile(0.99) / 1000; }
+    @Override public long getMoveP999Micros()        { return moveLatency.percentile(0.999) / 1000; }
+    @Override public long getStartP50Micros()        { return startLatency.percentile(0.50) / 1000; }
+    @Override public long getStartP99Micros()        { return startLatency.percentile(0.99) / 1000; }
+    @Override public long getBroadcastP99Micros()    { return broadcastTime.percentile(0.99) / 1000; }
+    @Override public long getRegistryLockP99Micros() { return registryLockTime.percentile(0.99) / 1000; }
+    @Override public long getMazeGenerateP50Micros() { return mazeGenerateTime.percentile(0.50) / 1000; }
+    @Override public long getOutboundBytesP99()      { return outboundBytes.percentile(0.99); }
+
+    @Override
+    public String stats() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("connections ").append(connections.get()).append('\n');
+        sb.append("rooms ").append(rooms.get()).append('\n');
+        sb.append("spectators ").append(spectators.get()).append('\n');
+
+        for (int i = 0; i < received.length; i++) {
+            sb.append("in.").append(IN_NAMES[i]).append(' ').append(received[i].sum()).append('\n');
+        }
+        for (int i = 0; i < sent.length; i++) {
+            sb.append("out.").append(OUT_NAMES[i]).append(' ').append(sent[i].sum()).append('\n');
+        }
+        sb.append("out.bytes ").append(bytesSent.sum()).append('\n');
+        sb.append("out.slowConsumerCloses ").append(slowConsumers.sum()).append('\n');
+        sb.append("feed.published ").append(feedPublished.sum()).append('\n');
+        sb.append("feed.bytes ").append(spectatorBytes.sum()).append('\n');
+        sb.append("replay.bytes ").append(replayBytes.sum()).append('\n');
+        sb.append("replay.dropped ").append(replayDrops.sum()).append('\n');
+
+        sb.append("latency.move ").append(moveLatency.summary()).append('\n');
+        sb.append("latency.start ").append(startLatency.summary()).append('\n');
+        sb.append("time.broadcast ").append(broadcastTime.summary()).append('\n');
+        sb.append("time.registryLock ").append(registryLockTime.summary()).append('\n');
+        sb.append("time.mazeGenerate ").append(mazeGenerateTime.summary()).append('\n');
+        sb.append("outbound.queuedBytes n=").append(outboundBytes.count())
+                .append(" p50=").append(outboundBytes.percentile(0.50))
+                .append(" p99=").append(outboundBytes.percentile(0.99))
+                .append(" max=").append(outboundBytes.max()).append('\n');
+
+        MazePool p = pool;
+        if (p != null) {
+            long[] hm = p.hitsMisses(poolKey);
+            sb.append("pool.ready ").append(p.size(poolKey)).append('\n');
+            sb.append("pool.bytes ").append(p.bytes()).append('\n');
+            sb.append("pool.hits ").append(hm[0]).append('\n');
+            sb.append("pool.misses ").append(hm[1]).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder a : received) a.reset();
+        for (LongAdder a : sent) a.reset();
+        bytesSent.reset();
+        slowConsumers.reset();
+        feedPublished.reset();
+        spectatorBytes.reset();
+        replayBytes.reset();
+        replayDrops.reset();
+
+        moveLatency.reset();
+        startLatency.reset();
+        broadcastTime.reset();
+        registryLockTime.reset();
+        mazeGenerateTime.reset();
+        outboundBytes.reset();
+    }
+}
@@ -0,0 +1,34 @@
+package Server;
+
+/**
+ * JMX 로 보이는 서버 지표 (jconsole / VisualVM 의 MBeans 탭, 이름 MazeRunner:type=Server).
+ * 지연 시간은 마이크로초. 더 자세한 것은 stats() 나 --stats-port 의 텍스트를 본다.
+ * JMX 규칙상 MBean 인터페이스는 public 이어야 한다.
+ */
+public interface ServerMetricsMBean {
+
+    int getConnections();
+    int getRooms();
+    int getSpectators();
+
+    long getMessagesReceived();
+    long getMessagesSent();
+    long getBytesSent();
+    long getSlowConsumerCloses();
+
+    long getMoveP50Micros();
+    long getMoveP99Micros();
+    long getMoveP999Micros();
+    long getStartP50Micros();
+    long getStartP99Micros();
+    long getBroadcastP99Micros();
+    long getRegistryLockP99Micros();
+    long getMazeGenerateP50Micros();
+    long getOutboundBytesP99();
+
+    /* 전체 지표를 텍스트로 (stats 엔드포인트와 같은 내용) */
+    String stats();
+
+    /* 히스토그램과 카운터를 0 으로 (접속 수 / 방 수 / 관전자 수는 그대로) */
+    void reset();
+}
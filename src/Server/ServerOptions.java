@@ -0,0 +1,139 @@
+package Server;
+
+import maze_game.MazeAlgorithm;
+
+/**
+ * 서버 실행 옵션. "--이름=값" 형식의 인자를 읽는다.
+ *
+ *   --port=5000     접속 포트 (1 .. 65535)
+ *   --watch-port=N  관전 접속 포트 (WATCH 로 방을 골라 본다). 0 이면 끔 (기본: 0)
+ *   --mode=thread   thread : 접속마다 스레드 하나 (기본)
+ *                   virtual: 접속마다 가상 스레드 하나 (JDK 21 이상)
+ *                   nio    : Selector 이벤트 루프
+ *   --loops=N       nio 모드 이벤트 루프 개수 (기본: CPU 코어 수)
+ *   --shards=N      방을 나눠 맡는 샤드 스레드 개수 (기본: CPU 코어 수)
+ *   --max-rooms=N   동시에 열 수 있는 방 개수, 0 이면 제한 없음 (기본: 0)
+ *   --tick=N        방 시뮬레이션 초당 틱 수. 0 이면 MOVE 를 받는 즉시 처리 (기본: 30)
+ *   --path-rate=N   PATH / GOTO 로 받은 경로를 따라가는 속도, 초당 칸 수 (기본: 15)
+ *   --max-outbound=N 클라이언트 하나에 쌓아 둘 수 있는 보낼 바이트. 넘으면 연결을 끊는다 (기본: 1 MB, 1 KB .. 1 GB)
+ *   --width=N       미로 가로 칸 수 (기본: 41)
+ *   --height=N      미로 세로 칸 수 (기본: 31). 가로 세로 모두 홀수
+ *   --maze-algo=A   미로 생성 알고리즘 dfs | kruskal | wilson | eller | parallel (기본: dfs).
+ *                   eller 는 한 행씩 만들어 큰 미로도 나눠서 만들고 보낸다. parallel 은 여러 코어로 나눠 만든다
+ *   --pool=N        미리 만들어 둘 미로 수. 0 이면 START 때 방에서 만든다 (기본: 4, 0 .. 1024)
+ *   --pool-mb=N     미리 만들어 둔 미로 전체의 메모리 한도, MB (기본: 64, 1 .. MAX_POOL_MB)
+ *   --stats-port=N  127.0.0.1:N 에서 서버 지표를 텍스트로 보여 준다. 0 이면 끔 (기본: 0). JMX 는 항상 켜져 있다
+ *   --replay-dir=D  판마다 기록 파일(match-<시작 ms>-r<방>.mzr)을 D 에 남긴다. 비우면 끔 (기본: 끔)
+ *   --replay-sync-ms=N 기록 파일을 디스크에 맞추는(fsync) 간격, ms (기본: 1000, 1 .. 60000)
+ */
+class ServerOptions {
+
+    /* --pool-mb 의 끝. 이보다 크면 MB → 바이트 (<< 20) 가 넘치기 전에 이미 쓸 수 없는 값이다 */
+    static final long MAX_POOL_MB = 1L << 20;
+
+    int port = 5000;
+    int watchPort = 0;
+    String mode = "thread";
+    int loops = Runtime.getRuntime().availableProcessors();
+    int shards = Runtime.getRuntime().availableProcessors();
+    int maxRooms = 0;
+    int tickRate = 30;
+    int pathRate = 15;
+    long maxOutbound = 1 << 20;
+    int mazeWidth = GameState.DEFAULT_W;
+    int mazeHeight = GameState.DEFAULT_H;
+    MazeAlgorithm mazeAlgorithm = MazeAlgorithm.DFS;
+    int poolSize = 4;
+    long poolBytes = 64L << 20;
+    int statsPort = 0;
+    String replayDir = "";
+    int replaySyncMs = 1000;
+
+    static ServerOptions parse(String[] args) {
+        ServerOptions o = new ServerOptions();
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+
+            String key = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+
+            switch (key) {
+                case "port":  o.port = Integer.parseInt(value); break;
+                case "watch-port": o.watchPort = Integer.parseInt(value); break;
+                case "mode":  o.mode = value; break;
+                case "loops": o.loops = Integer.parseInt(value); break;
+                case "shards": o.shards = Integer.parseInt(value); break;
+                case "max-rooms": o.maxRooms = Integer.parseInt(value); break;
+                case "tick":  o.tickRate = Integer.parseInt(value); break;
+                case "path-rate": o.pathRate = Integer.parseInt(value); break;
+                case "max-outbound": o.maxOutbound = Long.parseLong(value); break;
+                case "width":  o.mazeWidth = Integer.parseInt(value); break;
+                case "height": o.mazeHeight = Integer.parseInt(value); break;
+                case "pool":  o.poolSize = Integer.parseInt(value); break;
+                case "pool-mb": {
+                    // 바꾸기 전에 본다 (<< 20 이 넘쳐 음수가 되지 않게)
+                    long mb = Long.parseLong(value);
+                    if (mb < 1 || mb > MAX_POOL_MB) throw new IllegalArgumentException("Pool MB out of range: " + mb);
+                    o.poolBytes = mb << 20;
+                    break;
+                }
+                case "stats-port": o.statsPort = Integer.parseInt(value); break;
+                case "replay-dir": o.replayDir = value; break;
+                case "replay-sync-ms": o.replaySyncMs = Integer.parseInt(value); break;
+                case "maze-algo":
+                    o.mazeAlgorithm = MazeAlgorithm.byId(value);
+                    if (o.mazeAlgorithm == null) throw new IllegalArgumentException("Unknown maze algorithm: " + value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        if (!o.mode.equals("thread") && !o.mode.equals("virtual") && !o.mode.equals("nio")) {
+            throw new IllegalArgumentException("Unknown mode: " + o.mode);
+        }
+        if (o.port < 1 || o.port > 65535) {
+            throw new IllegalArgumentException("Port out of range: " + o.port);
+        }
+        if (o.watchPort < 0 || o.watchPort > 65535) {
+            throw new IllegalArgumentException("Watch port out of range: " + o.watchPort);
+        }
+        if (o.statsPort < 0 || o.statsPort > 65535) {
+            throw new IllegalArgumentException("Stats port out of range: " + o.statsPort);
+        }
+        if (o.loops < 1 || o.loops > 1024) {
+            throw new IllegalArgumentException("Loops out of range: " + o.loops);
+        }
+        if (o.shards < 1 || o.shards > 1024) {
+            throw new IllegalArgumentException("Shards out of range: " + o.shards);
+        }
+        if (o.tickRate < 0 || o.tickRate > 1000) {
+            throw new IllegalArgumentException("Tick rate out of range: " + o.tickRate);
+        }
+        if (o.pathRate < 1 || o.pathRate > 1000) {
+            throw new IllegalArgumentException("Path rate out of range: " + o.pathRate);
+        }
+        if (o.maxRooms < 0) {
+            throw new IllegalArgumentException("Max rooms out of range: " + o.maxRooms);
+        }
+        if (o.maxOutbound < 1024 || o.maxOutbound > 1L << 30) {
+            throw new IllegalArgumentException("Max outbound out of range: " + o.maxOutbound);
+        }
+        if (o.poolSize < 0 || o.poolSize > 1024) {
+            throw new IllegalArgumentException("Pool size out of range: " + o.poolSize);
+        }
+        if (o.replaySyncMs < 1 || o.replaySyncMs > 60_000) {
+            throw new IllegalArgumentException("Replay sync ms out of range: " + o.replaySyncMs);
+        }
+        if (o.mazeWidth < 3 || o.mazeHeight < 3
+                || o.mazeWidth > GameState.MAX_SIDE || o.mazeHeight > GameState.MAX_SIDE
+                || o.mazeWidth % 2 == 0 || o.mazeHeight % 2 == 0) {
+            throw new IllegalArgumentException("Maze size out of range: " + o.mazeWidth + "x" + o.mazeHeight);
+        }
+        return o;
+    }
+}
@@ -0,0 +1,170 @@
+package Server;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 방 하나의 관전 방송. 방이 브로드캐스트한 메시지를 관전자 모두가 같이 읽는 고리 버퍼(ring)에 한 번만 넣는다.
+ *
+ * 샤드는 메시지마다 인코딩 한 번 + 칸 하나 쓰기 + 깨우기(wakers)만 하고, 관전자 수만큼 큐에 넣지 않는다.
+ * 관전자마다 쓰는 쪽(쓰기 스레드 / 이벤트 루프)이 자기 번호(cursor)부터 published 까지 읽어 소켓에 쓴다.
+ * NIO 모드면 publish 때 바이트를 한 번 direct 메모리에 옮겨 두고, 관전자마다 그 읽기 전용 버퍼를 duplicate 해서
+ * 그대로 소켓에 쓴다 (관전자마다의 복사 없음). direct 메모리는 SLAB_BYTES 덩어리를 잡아 앞에서부터 잘라 쓰고 다시 쓰지 않는다:
+ * 고리가 돌아 칸이 덮여도 아직 그 조각을 쓰고 있는 관전자의 바이트는 그대로고, 덩어리는 그 조각을 쥔 쪽이 모두 놓으면 GC 가 푼다.
+ * 이벤트 루프는 루프마다 깨우기 하나만 등록하므로, 메시지 하나에 드는 샤드 시간은 관전자 수와 거의 무관하다.
+ *
+ * 관전자가 CAPACITY 개 넘게 밀리면 읽으려던 칸이 이미 덮여 있다: 그 관전자는 끊는다 (느린 소비자).
+ *
+ * publish / close / watch / unwatch 는 샤드 스레드에서만, 나머지는 아무 스레드에서나 부른다.
+ */
+final class SpectatorFeed {
+
+    /* 밀려도 되는 메시지 수 (틱 30 이면 약 8 초). 2 의 거듭제곱 */
+    static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+
+    /* direct 메모리를 잡는 단위. 이 1/4 보다 큰 메시지(미로 등)는 따로 잡는다 */
+    private static final int SLAB_BYTES = 64 << 10;
+
+    /* 칸 하나. 필드가 모두 final 이라 published 를 읽은 쪽에는 다 만들어진 채로 보인다 */
+    private static final class Slot {
+        final long seq;
+        final byte[] line, frame;           // 보는 관전자가 없는 인코딩은 null
+        final ByteBuffer lineBuf, frameBuf; // buffers 일 때만 (읽기 전용 direct, 위 배열과 같은 내용)
+
+        Slot(long seq, byte[] line, byte[] frame, ByteBuffer lineBuf, ByteBuffer frameBuf) {
+            this.seq = seq;
+            this.line = line;
+            this.frame = frame;
+            this.lineBuf = lineBuf;
+            this.frameBuf = frameBuf;
+        }
+    }
+
+    private final Slot[] ring = new Slot[CAPACITY];
+    private final boolean buffers;
+    private final ServerMetrics metrics;
+
+    private volatile long published;        // 다음에 쓸 번호 (= 지금까지 넣은 메시지 수)
+    private volatile boolean closed;
+    private volatile Runnable[] wakers = new Runnable[0];
+    private final ReentrantLock wakersLock = new ReentrantLock();   // 바꾸는 쪽끼리만 (가상 스레드라 synchronized 대신)
+
+    /* 샤드 스레드 전용: 인코딩별 관전자 수 (보는 사람이 있는 인코딩만 만든다) */
+    private int textWatchers, binaryWatchers;
+    private ByteBuffer slab;                // 지금 잘라 쓰는 direct 덩어리 (position 까지 씀)
+
+    /** @param buffers 채널로 쓰는 쪽(NIO)이면 true: 칸마다 읽기 전용 direct ByteBuffer 를 만들어 둔다 */
+    SpectatorFeed(boolean buffers, ServerMetrics metrics) {
+        this.buffers = buffers;
+        this.metrics = metrics;
+    }
+
+    /* ===================== 샤드 스레드 ===================== */
+    void watch(boolean binary) {
+        if (binary) binaryWatchers++;
+        else textWatchers++;
+    }
+
+    void unwatch(boolean binary) {
+        if (binary) binaryWatchers--;
+        else textWatchers--;
+    }
+
+    int watchers() {
+        return textWatchers + binaryWatchers;
+    }
+
+    void publish(Message m) {
+        long seq = published;
+        byte[] line = textWatchers > 0 ? m.line() : null;
+        byte[] frame = binaryWatchers > 0 ? m.frame() : null;
+        ring[(int) seq & MASK] = new Slot(seq, line, frame,
+                buffers && line != null ? direct(line) : null,
+                buffers && frame != null ? direct(frame) : null);
+        published = seq + 1;
+        metrics.published();
+        wake();
+    }
+
+    /* bytes 를 direct 메모리에 한 번 옮긴 읽기 전용 버퍼. 덩어리에서 잘라 쓰므로 메시지마다 allocateDirect 하지 않는다 */
+    private ByteBuffer direct(byte[] bytes) {
+        if (bytes.length > SLAB_BYTES / 4) {
+            ByteBuffer b = ByteBuffer.allocateDirect(bytes.length);
+            return b.put(bytes).flip().asReadOnlyBuffer();
+        }
+        if (slab == null || slab.remaining() < bytes.length) slab = ByteBuffer.allocateDirect(SLAB_BYTES);
+        int at = slab.position();
+        slab.put(bytes);
+        return slab.duplicate().position(at).limit(at + bytes.length).slice().asReadOnlyBuffer();
+    }
+
+    /* 방이 닫혔다: 남은 것을 다 보낸 관전자는 끊긴다 */
+    void close() {
+        closed = true;
+        wake();
+    }
+
+    private void wake() {
+        for (Runnable w : wakers) w.run();
+    }
+
+    /* ===================== 쓰는 쪽 ===================== */
+    long published() {
+        return published;
+    }
+
+    /* published() 보다 먼저 읽어야 한다: true 를 본 뒤의 published() 는 더 늘지 않는다 */
+    boolean isClosed() {
+        return closed;
+    }
+
+    /* seq 번 메시지의 바이트. 이미 덮였으면(너무 밀림) null */
+    byte[] bytes(long seq, boolean binary) {
+        Slot s = slot(seq);
+        if (s == null) return null;
+        return binary ? s.frame : s.line;
+    }
+
+    /* seq 번 메시지를 읽을 버퍼 (내용은 공유, 위치만 따로). 이미 덮였으면 null. buffers 일 때만 */
+    ByteBuffer buffer(long seq, boolean binary) {
+        Slot s = slot(seq);
+        if (s == null) return null;
+        return (binary ? s.frameBuf : s.lineBuf).duplicate();
+    }
+
+    private Slot slot(long seq) {
+        Slot s = ring[(int) seq & MASK];
+        return (s != null && s.seq == seq) ? s : null;
+    }
+
+    /* 새 메시지가 들어오거나 닫힐 때 부를 것 (샤드 스레드에서 불리므로 짧아야 한다) */
+    void addWaker(Runnable w) {
+        wakersLock.lock();
+        try {
+            Runnable[] a = Arrays.copyOf(wakers, wakers.length + 1);
+            a[a.length - 1] = w;
+            wakers = a;
+        } finally {
+            wakersLock.unlock();
+        }
+    }
+
+    void removeWaker(Runnable w) {
+        wakersLock.lock();
+        try {
+            Runnable[] a = wakers;
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] != w) continue;
+                Runnable[] b = new Runnable[a.length - 1];
+                System.arraycopy(a, 0, b, 0, i);
+                System.arraycopy(a, i + 1, b, i, a.length - i - 1);
+                wakers = b;
+                return;
+            }
+        } finally {
+            wakersLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package maze_game;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 서버 / 클라이언트가 같이 쓰는 바이너리 프로토콜 정의.
+ *
+ * 접속 직후 클라이언트가 텍스트 줄 HELLO 를 보내면, 그 다음 바이트부터 클라이언트 → 서버는 프레임이다.
+ * 서버는 텍스트 줄 ACK 로 답하고, 그 다음 바이트부터 서버 → 클라이언트도 프레임이다.
+ *
+ * 프레임 = varint(본문 길이) + 본문, 본문 = 타입 1바이트 + 필드들.
+ * 좌표, 크기 같은 정수는 모두 varint (LEB128, 음수 없음).
+ */
+public final class BinaryProtocol {
+
+    public static final String HELLO = "HELLO BIN";
+    public static final String ACK   = "PROTO BIN";
+
+    /* 이보다 큰 프레임은 비정상으로 본다 */
+    public static final int MAX_FRAME = 1 << 20;
+
+    // ===== 서버 → 클라이언트 =====
+    public static final byte S_ROLE  = 1;   // varint role
+    public static final byte S_ROOM  = 2;   // varint roomId
+    public static final byte S_STATE = 3;   // flags, string p1Name, string p2Name
+    public static final byte S_MAZE  = 4;   // varint W, varint H, 비트 단위로 압축한 칸들
+    public static final byte S_EXIT  = 5;   // varint x, varint y
+    public static final byte S_START = 6;
+    public static final byte S_POS   = 7;   // byte player, varint x, varint y
+    public static final byte S_WIN   = 8;   // byte player
+    public static final byte S_SEED  = 9;   // varint version, byte algorithm, varint W, varint H, long seed, int checksum
+    public static final byte S_SNAP  = 10;  // varint p1x, p1y, p2x, p2y
+    public static final byte S_ROWS  = 11;  // varint W, varint H, varint y0, varint n, n 행의 칸들 (S_MAZE 와 같은 압축)
+    public static final byte S_HINT  = 12;  // varint 다음 칸 x, y, varint 내 남은 거리, varint 상대 남은 거리 (다음 칸 -1 이면 아직 준비 중, -2 면 이번 판은 힌트 없음)
+    public static final byte S_ACK   = 13;  // varint seq, varint x, varint y: seq 번 MOVE 까지 처리한 뒤의 내 좌표
+    public static final byte S_PATH  = 14;  // byte player, varint x0, varint y0, varint 한 칸 ms, 방향들 (Writer.dirs)
+
+    // S_STATE flags
+    public static final int STATE_P1_PRESENT = 1;
+    public static final int STATE_P1_READY   = 1 << 1;
+    public static final int STATE_P2_PRESENT = 1 << 2;
+    public static final int STATE_P2_READY   = 1 << 3;
+    public static final int STATE_CAN_START  = 1 << 4;
+
+    // ===== 클라이언트 → 서버 =====
+    public static final byte C_JOIN  = 0x21;  // string name
+    public static final byte C_READY = 0x22;  // byte 0/1
+    public static final byte C_START = 0x23;
+    public static final byte C_MOVE  = 0x24;  // byte direction (Player.Direction 순서) [, varint seq: 있으면 S_ACK 로 답함]
+    public static final byte C_MAZEGEN = 0x25;  // varint 클라이언트의 MakeMaze.VERSION
+    public static final byte C_MAZECHK = 0x26;  // int 클라이언트가 만든 미로의 checksum
+    public static final byte C_MAZEROWS = 0x27; // seed 대신 만들어지는 대로 행 단위(S_ROWS)로 받겠다
+    public static final byte C_HINT  = 0x28;  // 출구 쪽 다음 칸 요청 (S_HINT 로 답함)
+    public static final byte C_PATH  = 0x29;  // varint seq, 방향들 (Writer.dirs): 지금 칸에서 이 방향들로 차례로
+    public static final byte C_GOTO  = 0x2A;  // varint x, varint y, varint seq: 그 칸까지 최단 경로로
+    public static final byte C_WATCH = 0x2B;  // varint roomId: 관전 포트에서 그 방을 본다 (HELLO 다음, 한 번만)
+
+    /* PATH / GOTO 한 번에 갈 수 있는 최대 칸 수 */
+    public static final int MAX_PATH = 64;
+
+    private static final Player.Direction[] DIRECTIONS = Player.Direction.values();
+    private static final String DIR_LETTERS = "UDRL";     // Player.Direction 순서
+
+    private BinaryProtocol() {}
+
+    public static int dirCode(Player.Direction d) {
+        return d.ordinal();
+    }
+
+    /* 범위를 벗어나면 null */
+    public static Player.Direction dirOf(int code) {
+        return (code >= 0 && code < DIRECTIONS.length) ? DIRECTIONS[code] : null;
+    }
+
+    /* 텍스트 PATH 의 방향 글자 (U, D, R, L) */
+    public static char dirLetter(Player.Direction d) {
+        return DIR_LETTERS.charAt(d.ordinal());
+    }
+
+    /* 모르는 글자면 null */
+    public static Player.Direction dirOfLetter(int c) {
+        return dirOf(DIR_LETTERS.indexOf(c));
+    }
+
+    /* "UURRD" → 방향들. MAX_PATH 보다 길거나 모르는 글자가 있으면 null */
+    public static Player.Direction[] parseDirs(String s) {
+        if (s.length() > MAX_PATH) return null;
+        Player.Direction[] dirs = new Player.Direction[s.length()];
+        for (int i = 0; i < dirs.length; i++) {
+            if ((dirs[i] = dirOfLetter(s.charAt(i))) == null) return null;
+        }
+        return dirs;
+    }
+
+    public static String dirsText(Player.Direction[] dirs) {
+        char[] c = new char[dirs.length];
+        for (int i = 0; i < c.length; i++) c[i] = dirLetter(dirs[i]);
+        return new String(c);
+    }
+
+
+    /* ============================ 읽기 ============================ */
+    public static int getVarint(ByteBuffer b) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int v = b.get();
+            value |= (v & 0x7F) << shift;
+            if ((v & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+
+    public static String getString(ByteBuffer b) {
+        int len = getVarint(b);
+        String s = new String(b.array(), b.arrayOffset() + b.position(), len, StandardCharsets.UTF_8);
+        b.position(b.position() + len);
+        return s;
+    }
+
+    /* Writer.dirs 로 쓴 방향들 (빈 PATH 는 "거기서 멈춤"). MAX_PATH 보다 길면 IllegalArgumentException */
+    public static Player.Direction[] getDirs(ByteBuffer b) {
+        int n = getVarint(b);
+        if (n < 0 || n > MAX_PATH) throw new IllegalArgumentException("path length " + n);
+
+        Player.Direction[] dirs = new Player.Direction[n];
+        int bits = 0;
+        for (int i = 0; i < n; i++) {
+            if ((i & 3) == 0) bits = b.get();
+            dirs[i] = DIRECTIONS[(bits >> ((i & 3) * 2)) & 3];
+        }
+        return dirs;
+    }
+
+    public static MazeGrid getMaze(ByteBuffer b) {
+        int w = getVarint(b);
+        int h = getVarint(b);
+        return getCells(b, w, h);
+    }
+
+    /* 칸 하나당 1비트, 행 우선, 바이트 안에서는 낮은 비트부터. w x n 미로로 돌려준다 */
+    public static MazeGrid getCells(ByteBuffer b, int w, int n) {
+        MazeGrid maze = new MazeGrid(w, n);
+
+        int bits = 0, left = 0;
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < w; x++) {
+                if (left == 0) {
+                    bits = b.get();
+                    left = 8;
+                }
+                if ((bits & 1) != 0) maze.open(x, y);
+                bits >>= 1;
+                left--;
+            }
+        }
+        return maze;
+    }
+
+
+    /* ============================ 쓰기 ============================ */
+
+    /** 프레임 하나를 만드는 작은 버퍼. 길이 접두는 toFrame() 에서 붙인다. */
+    public static final class Writer {
+        private byte[] buf;
+        private int len;
+
+        public Writer(byte type) {
+            this(type, 16);
+        }
+
+        public Writer(byte type, int capacity) {
+            buf = new byte[Math.max(capacity, 8)];
+            buf[len++] = type;
+        }
+
+        private void ensure(int extra) {
+            if (len + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+            }
+        }
+
+        public Writer put(int b) {
+            ensure(1);
+            buf[len++] = (byte) b;
+            return this;
+        }
+
+        public Writer putInt(int v) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) buf[len++] = (byte) (v >>> shift);
+            return this;
+        }
+
+        public Writer putLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) buf[len++] = (byte) (v >>> shift);
+            return this;
+        }
+
+        public Writer varint(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+            return this;
+        }
+
+        public Writer string(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            varint(b.length);
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, len, b.length);
+            len += b.length;
+            return this;
+        }
+
+        /* varint 개수 + 방향마다 2비트 (한 바이트에 넷, 낮은 비트부터) */
+        public Writer dirs(Player.Direction[] dirs) {
+            varint(dirs.length);
+            ensure((dirs.length + 3) / 4);
+            int bits = 0;
+            for (int i = 0; i < dirs.length; i++) {
+                bits |= dirs[i].ordinal() << ((i & 3) * 2);
+                if ((i & 3) == 3 || i == dirs.length - 1) {
+                    buf[len++] = (byte) bits;
+                    bits = 0;
+                }
+            }
+            return this;
+        }
+
+        public Writer maze(MazeGrid maze) {
+            varint(maze.width());
+            varint(maze.height());
+            return cells(maze, 0, maze.height());
+        }
+
+        /* maze 의 y0 행부터 n 행 (getCells 로 읽는다) */
+        public Writer cells(MazeGrid maze, int y0, int n) {
+            int w = maze.width();
+            ensure((int) (((long) w * n + 7) / 8));
+
+            int bits = 0, used = 0;
+            for (int y = y0; y < y0 + n; y++) {
+                for (int x = 0; x < w; x++) {
+                    if (maze.isOpen(x, y)) bits |= 1 << used;
+                    if (++used == 8) {
+                        buf[len++] = (byte) bits;
+                        bits = 0;
+                        used = 0;
+                    }
+                }
+            }
+            if (used > 0) buf[len++] = (byte) bits;
+            return this;
+        }
+
+        /* varint(본문 길이) + 본문 */
+        public byte[] toFrame() {
+            int prefix = varintSize(len);
+            byte[] out = new byte[prefix + len];
+
+            int v = len, i = 0;
+            while ((v & ~0x7F) != 0) {
+                out[i++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out[i++] = (byte) v;
+
+            System.arraycopy(buf, 0, out, i, len);
+            return out;
+        }
+    }
+
+    static int varintSize(int v) {
+        int n = 1;
+        while ((v & ~0x7F) != 0) {
+            v >>>= 7;
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,94 @@
+package maze_game;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 깊이 우선 탐색(recursive backtracker). 원래 MakeMaze 의 알고리즘.
+ * 긴 외길이 많은 미로가 나온다. MakeMaze.VERSION 1 과 같은 결과를 내야 한다.
+ */
+public final class DfsMazeGenerator implements MazeGenerator {
+
+    // 방향 번호별 이동량: 0 위, 1 오른쪽, 2 아래, 3 왼쪽 (두 칸씩)
+    private static final int[] DX = {0, 2, 0, -2};
+    private static final int[] DY = {-2, 0, 2, 0};
+
+    @Override
+    public MazeGrid generate(int width, int height, long seed) {
+        MazeGrid maze = new MazeGrid(width, height);
+        Random random = new Random(seed);
+
+        // 입구 생성 고정
+        maze.open(1, 1);
+        carve(maze, random, 1, 1, 1, 1, width - 2, height - 2);
+        return maze;
+    }
+
+    /*
+     * 재귀 대신 직접 관리하는 스택.
+     *
+     * 재귀 버전과 결과가 완전히 같아야 한다:
+     * 칸에 들어갈 때 방향을 섞고, 섞인 순서대로 하나씩 시도하며, 막히면 이전 칸으로 돌아간다.
+     *
+     * 스택 한 칸(short) = 섞인 방향 4개(2비트씩, 0-7비트) + 다음에 시도할 순번(8-10비트).
+     * 좌표는 따로 저장하지 않고, 돌아갈 때 들어온 방향의 반대로 되짚는다.
+     * 그래서 칸마다 새로 할당하는 것이 없고, 스택은 최대 깊이만큼만 자란다.
+     *
+     * (minX, minY) ~ (maxX, maxY) 밖의 칸으로는 나가지 않는다 (ParallelMazeGenerator 의 구역 하나).
+     */
+    static void carve(MazeGrid maze, Random random, int startX, int startY,
+                      int minX, int minY, int maxX, int maxY) {
+        int[] dirs = new int[4];
+
+        short[] stack = new short[256];
+        int depth = 0;
+
+        int x = startX;
+        int y = startY;
+        stack[depth++] = shuffledDirs(random, dirs);
+
+        while (depth > 0) {
+            int frame = stack[depth - 1];
+            int next = frame >>> 8;
+
+            if (next == 4) {
+                // 네 방향 다 해봤으면 들어온 칸으로 되돌아간다
+                if (--depth == 0) break;
+                int parent = stack[depth - 1];
+                int d = (parent >>> (2 * ((parent >>> 8) - 1))) & 3;
+                x -= DX[d];
+                y -= DY[d];
+                continue;
+            }
+
+            stack[depth - 1] = (short) ((frame & 0xFF) | ((next + 1) << 8));
+
+            int d = (frame >>> (2 * next)) & 3;
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+
+            if (ny >= minY && ny <= maxY && nx >= minX && nx <= maxX && !maze.isOpen(nx, ny)) {
+                maze.open((x + nx) / 2, (y + ny) / 2);
+                maze.open(nx, ny);
+                x = nx;
+                y = ny;
+
+                if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                stack[depth++] = shuffledDirs(random, dirs);
+            }
+        }
+    }
+
+    /* {0,1,2,3} 을 섞어서 2비트씩 묶은 값 (스택 한 칸, 순번 0). dirs 는 재사용하는 작업 배열 */
+    private static short shuffledDirs(Random random, int[] dirs) {
+        for (int i = 0; i < 4; i++) dirs[i] = i;
+
+        for (int i = dirs.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = dirs[i];
+            dirs[i] = dirs[j];
+            dirs[j] = tmp;
+        }
+        return (short) (dirs[0] | dirs[1] << 2 | dirs[2] << 4 | dirs[3] << 6);
+    }
+}
@@ -0,0 +1,76 @@
+package maze_game;
+
+/**
+ * 한 목표 칸(보통 출구)까지의 최단 거리를 미로의 모든 칸에 대해 미리 구해 둔 표.
+ *
+ * MazeSolver.distanceField() 가 BFS 한 번으로 만든다 (O(칸 수)). 그 뒤로는
+ * 어느 칸에서든 남은 거리와 다음 한 걸음을 O(1) 로 답한다.
+ * 만든 뒤로는 바꾸지 않으므로 여러 스레드가 같이 읽어도 된다.
+ *
+ * 칸 하나당 int 하나라 MazeGrid 보다 32배 크다 (41x31 은 5 KB, 1001x1001 은 4 MB).
+ */
+public final class DistanceField {
+
+    /* 벽이거나 목표에 닿을 수 없는 칸 */
+    public static final int UNREACHABLE = -1;
+
+    private final int width;
+    private final int height;
+    private final int targetX, targetY;
+    private final int[] dist;       // y * width + x
+    private final int maxDistance;
+
+    DistanceField(int width, int height, int targetX, int targetY, int[] dist, int maxDistance) {
+        this.width = width;
+        this.height = height;
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.dist = dist;
+        this.maxDistance = maxDistance;
+    }
+
+    public int width()   { return width; }
+    public int height()  { return height; }
+    public int targetX() { return targetX; }
+    public int targetY() { return targetY; }
+
+    /* 목표에서 가장 먼 칸까지의 거리 */
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    /* (x, y) 에서 목표까지 걸음 수. 벽, 미로 밖, 닿을 수 없는 칸은 UNREACHABLE */
+    public int distance(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return UNREACHABLE;
+        return dist[y * width + x];
+    }
+
+    /* (x, y) 에서 목표 쪽으로 한 걸음 가는 방향. 목표 칸이거나 닿을 수 없으면 null */
+    public Player.Direction nextStep(int x, int y) {
+        int d = distance(x, y);
+        if (d <= 0) return null;
+
+        if (distance(x, y - 1) == d - 1) return Player.Direction.UP;
+        if (distance(x, y + 1) == d - 1) return Player.Direction.DOWN;
+        if (distance(x - 1, y) == d - 1) return Player.Direction.LEFT;
+        if (distance(x + 1, y) == d - 1) return Player.Direction.RIGHT;
+        return null;    // BFS 결과라면 오지 않는다
+    }
+
+    /*
+     * (x, y) 에서 dir 로 한 걸음 가면 목표에 가까워지는지.
+     * 이동 검증이나 진행도 집계에 쓸 수 있다 (벽이면 false).
+     */
+    public boolean isCloser(int x, int y, Player.Direction dir) {
+        int d = distance(x, y);
+        if (d <= 0) return false;
+
+        switch (dir) {
+            case UP:    return distance(x, y - 1) == d - 1;
+            case DOWN:  return distance(x, y + 1) == d - 1;
+            case LEFT:  return distance(x - 1, y) == d - 1;
+            case RIGHT: return distance(x + 1, y) == d - 1;
+            default:    return false;
+        }
+    }
+}
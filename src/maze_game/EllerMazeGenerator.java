@@ -0,0 +1,153 @@
+package maze_game;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Eller 알고리즘. 위에서부터 칸 한 줄씩 만들고, 지난 줄은 다시 보지 않는다.
+ *
+ * 줄마다 칸들이 어느 집합(이미 이어진 덩어리)에 속하는지만 기억한다:
+ *   1) 옆 칸과 집합이 다르면 무작위로 벽을 허물고 두 집합을 합친다 (마지막 줄은 무조건 합친다)
+ *   2) 집합마다 적어도 한 칸은 아래로 길을 낸다. 아래로 내려간 칸은 집합을 물려주고, 나머지는 새 집합
+ * 그래서 높이와 상관없이 O(width) 메모리로 돌고, 만든 행을 바로 내보낼 수 있다 (streamRows).
+ */
+public final class EllerMazeGenerator implements MazeGenerator {
+
+    @Override
+    public MazeGrid generate(int width, int height, long seed) {
+        MazeGrid maze = new MazeGrid(width, height);
+        MazeRowStream rows = streamRows(width, height, seed);
+
+        long[] row = new long[maze.rowWords()];
+        while (rows.nextY() < height) {
+            int y = rows.next(row);
+            maze.setRow(y, row);
+        }
+        return maze;
+    }
+
+    @Override
+    public MazeRowStream streamRows(int width, int height, long seed) {
+        return new Rows(width, height, seed);
+    }
+
+    private static final class Rows implements MazeRowStream {
+        private final int width;
+        private final int height;
+        private final int cw;        // 한 줄의 칸 수
+        private final int ch;        // 칸 줄 수
+        private final Random random;
+
+        /* 모두 길이 cw. 집합 번호는 0 .. cw-1 을 줄마다 돌려 쓴다 */
+        private final int[] set;
+        private final int[] parent;      // 한 줄 안에서 집합을 합칠 때 쓰는 union-find
+        private final boolean[] down;    // 이 칸에서 아래로 길을 내는지
+        private final boolean[] flag;    // 집합 번호별 표시 (아래 길 있음 / 사용 중)
+
+        private int y = 0;
+
+        Rows(int width, int height, long seed) {
+            if (width < 3 || height < 3) {
+                throw new IllegalArgumentException("maze size " + width + "x" + height);
+            }
+            this.width = width;
+            this.height = height;
+            this.cw = (width - 1) / 2;
+            this.ch = (height - 1) / 2;
+            this.random = new Random(seed);
+
+            this.set = new int[cw];
+            this.parent = new int[cw];
+            this.down = new boolean[cw];
+            this.flag = new boolean[cw];
+
+            for (int i = 0; i < cw; i++) set[i] = i;   // 첫 줄은 모두 다른 집합
+        }
+
+        @Override public int width()  { return width; }
+        @Override public int height() { return height; }
+        @Override public int nextY()  { return y; }
+
+        @Override
+        public int next(long[] row) {
+            if (y >= height) throw new IllegalStateException("no more rows");
+            Arrays.fill(row, 0, (width + 63) >>> 6, 0L);
+
+            int r = (y - 1) / 2;
+            if (y % 2 == 1 && r < ch) {
+                cellRow(r, row);
+            } else if (y % 2 == 0 && y > 0 && y / 2 - 1 < ch - 1) {
+                // 바로 위 칸 줄에서 정한 아래쪽 통로
+                for (int i = 0; i < cw; i++) {
+                    if (down[i]) open(row, 2 * i + 1);
+                }
+                nextSets();
+            }
+            // 나머지(맨 위 / 맨 아래 테두리)는 모두 벽
+            return y++;
+        }
+
+        /* 칸 줄 r: 칸을 열고, 옆으로 합치고, 아래로 내려갈 칸을 정한다 */
+        private void cellRow(int r, long[] row) {
+            boolean last = (r == ch - 1);
+
+            for (int i = 0; i < cw; i++) {
+                parent[i] = i;
+                open(row, 2 * i + 1);
+            }
+
+            // 1) 옆 칸과 합치기
+            for (int i = 0; i < cw - 1; i++) {
+                int a = find(set[i]);
+                int b = find(set[i + 1]);
+                if (a != b && (last || random.nextBoolean())) {
+                    parent[b] = a;
+                    open(row, 2 * i + 2);
+                }
+            }
+            for (int i = 0; i < cw; i++) set[i] = find(set[i]);
+
+            if (last) return;
+
+            // 2) 아래로 내려갈 칸. 아래 길이 하나도 없는 집합은 그 집합의 가장 왼쪽 칸을 내린다
+            Arrays.fill(flag, false);
+            for (int i = 0; i < cw; i++) {
+                down[i] = random.nextBoolean();
+                if (down[i]) flag[set[i]] = true;
+            }
+            for (int i = 0; i < cw; i++) {
+                if (!flag[set[i]]) {
+                    down[i] = true;
+                    flag[set[i]] = true;
+                }
+            }
+        }
+
+        /* 아래로 내려간 칸은 집합을 그대로, 나머지 칸에는 쓰이지 않는 번호를 준다 */
+        private void nextSets() {
+            Arrays.fill(flag, false);
+            for (int i = 0; i < cw; i++) {
+                if (down[i]) flag[set[i]] = true;
+            }
+
+            int free = 0;
+            for (int i = 0; i < cw; i++) {
+                if (down[i]) continue;
+                while (flag[free]) free++;
+                set[i] = free++;
+            }
+        }
+
+        private int find(int s) {
+            while (parent[s] != s) {
+                parent[s] = parent[parent[s]];
+                s = parent[s];
+            }
+            return s;
+        }
+
+        private static void open(long[] row, int x) {
+            row[x >>> 6] |= 1L << x;
+        }
+    }
+}
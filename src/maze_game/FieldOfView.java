@@ -0,0 +1,126 @@
+package maze_game;
+
+import java.util.Arrays;
+
+/**
+ * 한 칸에서 반지름 안으로 보이는 칸들 (벽에 가린 칸은 안 보인다).
+ *
+ * 재귀 shadowcasting: 8개 팔분면을 한 줄씩 바깥으로 훑으면서 벽이 만드는 그림자(기울기 구간)를
+ * 빼 나간다. 반지름 r 이면 O(r^2) 이고, 길을 막은 벽 칸 자체는 보인다.
+ *
+ * update() 는 위치가 그대로고 미로도 안 바뀌었으면 아무것도 안 한다 (플레이어가 움직일 때만 다시 계산).
+ * 결과는 위치를 가운데로 한 (2r+1)^2 창에만 담으므로 미로 크기와 상관없이 작고,
+ * 창 배열은 세대 번호(stamp)로 재사용해 다시 계산할 때도 할당하지 않는다.
+ * 한 스레드(클라이언트는 EDT)에서만 쓴다.
+ */
+public final class FieldOfView {
+
+    /* 팔분면 변환 (xx, xy, yx, yy) */
+    private static final int[][] OCTANTS = {
+            { 1, 0, 0, 1 }, { 0, 1, 1, 0 }, { 0, -1, 1, 0 }, { -1, 0, 0, 1 },
+            { -1, 0, 0, -1 }, { 0, -1, -1, 0 }, { 0, 1, -1, 0 }, { 1, 0, 0, -1 },
+    };
+
+    private final MazeGrid maze;
+    private final double radiusSq;
+    private final int reach;            // 창 반폭 = ceil(radius)
+    private final int side;             // 창 한 변 = 2 * reach + 1
+
+    private final int[] stamp;          // stamp[창 칸] == generation 이면 보인다
+    private int generation;
+
+    private int originX = Integer.MIN_VALUE, originY = Integer.MIN_VALUE;
+
+    /* radius 는 칸 단위 (중심 사이 거리) */
+    public FieldOfView(MazeGrid maze, double radius) {
+        if (radius < 0) throw new IllegalArgumentException("radius " + radius);
+        this.maze = maze;
+        this.radiusSq = radius * radius;
+        this.reach = (int) Math.ceil(radius);
+        this.side = 2 * reach + 1;
+        this.stamp = new int[side * side];
+    }
+
+    public int originX() { return originX; }
+    public int originY() { return originY; }
+
+    /* 창 반폭: 보이는 칸은 모두 원점에서 가로세로 reach 칸 이내 */
+    public int reach() {
+        return reach;
+    }
+
+    /* 미로 칸이 바뀌었다 (ROWS 로 행이 더 왔거나 출구가 열림). 다음 update() 에서 다시 계산한다 */
+    public void invalidate() {
+        originX = originY = Integer.MIN_VALUE;
+    }
+
+    /* (x, y) 에서 보이는 칸을 구한다. 위치가 그대로면 false (다시 계산 안 함) */
+    public boolean update(int x, int y) {
+        if (x == originX && y == originY) return false;
+        originX = x;
+        originY = y;
+
+        if (++generation == 0) {            // 한 바퀴 돌면 한 번만 지운다
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+
+        mark(x, y);
+        for (int[] o : OCTANTS) {
+            castLight(1, 1.0, 0.0, o[0], o[1], o[2], o[3]);
+        }
+        return true;
+    }
+
+    public boolean isVisible(int x, int y) {
+        int dx = x - originX;
+        int dy = y - originY;
+        if (dx < -reach || dx > reach || dy < -reach || dy > reach) return false;
+        return stamp[(dy + reach) * side + dx + reach] == generation;
+    }
+
+    /*
+     * 한 팔분면에서 row 줄부터 바깥으로, 기울기 start..end 사이를 훑는다.
+     * 벽을 만나면 그 앞 구간은 재귀로 넘기고 벽 뒤쪽에서 다시 시작한다.
+     */
+    private void castLight(int row, double start, double end, int xx, int xy, int yx, int yy) {
+        if (start < end) return;
+
+        double newStart = 0;
+        for (int j = row; j <= reach; j++) {
+            boolean blocked = false;
+            int dy = -j;
+
+            for (int dx = -j; dx <= 0; dx++) {
+                double leftSlope = (dx - 0.5) / (dy + 0.5);
+                double rightSlope = (dx + 0.5) / (dy - 0.5);
+                if (start < rightSlope) continue;
+                if (end > leftSlope) break;
+
+                int x = originX + dx * xx + dy * xy;
+                int y = originY + dx * yx + dy * yy;
+                boolean wall = !maze.isOpen(x, y);      // 미로 밖도 벽
+
+                if (dx * dx + dy * dy <= radiusSq) mark(x, y);
+
+                if (blocked) {
+                    if (wall) {
+                        newStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else if (wall && j < reach) {
+                    blocked = true;
+                    castLight(j + 1, start, leftSlope, xx, xy, yx, yy);
+                    newStart = rightSlope;
+                }
+            }
+            if (blocked) return;
+        }
+    }
+
+    private void mark(int x, int y) {
+        stamp[(y - originY + reach) * side + x - originX + reach] = generation;
+    }
+}
@@ -0,0 +1,78 @@
+package maze_game;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 무작위 Kruskal. 칸 사이 벽을 전부 섞어 놓고, 양쪽 칸이 아직 다른 집합이면 벽을 허문다.
+ * 집합은 union-find (경로 분할 + 크기 기준 합치기) 로 관리한다.
+ * 짧은 막다른 길이 고르게 퍼진 미로가 나온다. 메모리는 칸 수에 비례 (칸당 int 3개 정도).
+ */
+public final class KruskalMazeGenerator implements MazeGenerator {
+
+    @Override
+    public MazeGrid generate(int width, int height, long seed) {
+        MazeGrid maze = new MazeGrid(width, height);
+        Random random = new Random(seed);
+
+        int cw = (width - 1) / 2;    // 칸 배치의 가로 / 세로 개수
+        int ch = (height - 1) / 2;
+        int cells = cw * ch;
+
+        for (int cy = 0; cy < ch; cy++) {
+            for (int cx = 0; cx < cw; cx++) maze.open(2 * cx + 1, 2 * cy + 1);
+        }
+
+        // 벽 번호 = 칸 번호 * 2 + (0: 오른쪽 벽, 1: 아래쪽 벽)
+        int[] walls = new int[Math.max(0, 2 * cells - cw - ch)];
+        int n = 0;
+        for (int c = 0; c < cells; c++) {
+            if (c % cw != cw - 1) walls[n++] = c * 2;
+            if (c / cw != ch - 1) walls[n++] = c * 2 + 1;
+        }
+
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = walls[i];
+            walls[i] = walls[j];
+            walls[j] = tmp;
+        }
+
+        // parent[c] < 0 이면 c 가 대표이고 -parent[c] 가 집합 크기
+        int[] parent = new int[cells];
+        Arrays.fill(parent, -1);
+
+        int joined = 0;
+        for (int i = 0; i < n && joined < cells - 1; i++) {
+            int wall = walls[i];
+            int a = wall >>> 1;
+            int b = (wall & 1) == 0 ? a + 1 : a + cw;
+
+            int ra = find(parent, a);
+            int rb = find(parent, b);
+            if (ra == rb) continue;
+
+            if (parent[ra] > parent[rb]) {   // 작은 쪽을 큰 쪽 아래로
+                int t = ra; ra = rb; rb = t;
+            }
+            parent[ra] += parent[rb];
+            parent[rb] = ra;
+            joined++;
+
+            int x = 2 * (a % cw) + 1;
+            int y = 2 * (a / cw) + 1;
+            if ((wall & 1) == 0) maze.open(x + 1, y);
+            else maze.open(x, y + 1);
+        }
+        return maze;
+    }
+
+    private static int find(int[] parent, int c) {
+        while (parent[c] >= 0) {
+            int p = parent[c];
+            if (parent[p] >= 0) parent[c] = parent[p];   // 경로 분할: 할아버지를 가리키게
+            c = p;
+        }
+        return c;
+    }
+}
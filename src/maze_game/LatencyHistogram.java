@@ -0,0 +1,126 @@
+package maze_game;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 지연 시간(ns) 히스토그램. p50 / p99 / p999 같은 백분위수를 구할 때 쓴다.
+ *
+ * 값마다 유효 숫자 7비트만 남기는 로그-선형 구간에 센다 (HdrHistogram 과 같은 방식).
+ * 127 ns 까지는 1 ns 단위, 그 위로는 구간 폭이 값의 1/64 이하라 상대 오차가 약 1.6% 이내다.
+ * 구간 수는 고정(약 3700개)이라 기록이 아무리 많아도 메모리는 30 KB 정도로 같다.
+ *
+ * record() 는 락 없이 여러 스레드에서 불러도 된다. 모든 기록이 건드리는 개수 / 합 / 최댓값은 LongAdder /
+ * LongAccumulator 라 스레드마다 다른 칸에 쌓이고(읽을 때 합친다), 샤드 여러 개가 같은 히스토그램에 기록해도
+ * 한 캐시 줄을 두고 CAS 경쟁을 하지 않는다. 구간 카운터는 값마다 흩어지므로 그대로 둔다. 읽는 쪽은 기록과 동시에 읽으면
+ * 약간 어긋난 값을 볼 수 있다 (통계용으로는 충분).
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB = 1 << SUB_BITS;           // 64
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(index(nanos));
+        total.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /*
+     * p (0 < p <= 1) 백분위수 (ns). 그 구간의 위쪽 끝을 돌려주므로 실제 값보다 작게 나오지는 않는다.
+     * 기록이 없으면 0.
+     */
+    public long percentile(double p) {
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /* other 의 기록을 더한다 (스레드별 히스토그램 합치기) */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        total.add(other.total.sum());
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /* "n=1234 p50=1.2ms p99=3.4ms p999=5.6ms max=7.8ms" */
+    public String summary() {
+        return "n=" + count()
+                + " p50=" + format(percentile(0.50))
+                + " p99=" + format(percentile(0.99))
+                + " p999=" + format(percentile(0.999))
+                + " max=" + format(max());
+    }
+
+    /* 1234 ns → "1.2us" */
+    public static String format(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        if (nanos < 1_000_000_000) return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+        return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+    }
+
+
+    /* ============================ 구간 ============================ */
+
+    /* 값 → 구간 번호. 2^7 미만은 값 그대로, 그 위로는 최상위 비트 아래 6비트만 남긴다 */
+    static int index(long v) {
+        if (v < 2 * SUB) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift + 1) * SUB + (int) ((v >>> shift) - SUB);
+    }
+
+    /* 구간 번호 → 그 구간에 들어가는 가장 큰 값 */
+    static long upperBound(int index) {
+        if (index < 2 * SUB) return index;
+        int shift = index / SUB - 1;
+        long low = (long) (index % SUB + SUB) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
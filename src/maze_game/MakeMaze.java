@@ -1,84 +1,63 @@
 package maze_game;
 
-import java.util.Random;
-
+/**
+ * 게임에 쓰는 미로 한 판: 알고리즘으로 미로를 만들고 출구를 뚫는다.
+ * 서버와 클라이언트가 같은 (알고리즘, 크기, seed) 로 같은 미로를 얻는 곳이 여기 하나뿐이어야 한다.
+ */
 public class MakeMaze {
 
+    /*
+     * 생성 알고리즘 버전. 서버는 미로 대신 (버전, 알고리즘, 크기, seed) 만 보내고 클라이언트가 직접 다시 만든다.
+     * 같은 (알고리즘, wid, hei, seed) 에 대해 결과가 한 칸이라도 달라지는 수정을 하면 반드시 올릴 것.
+     * java.util.Random 은 알고리즘이 명세로 고정되어 있어 JDK 가 달라도 같은 수열을 낸다.
+     *
+     * 2: SEED 에 알고리즘 번호 추가, ROWS(행 단위 미로 전송) 지원. DFS 결과는 1 과 같다.
+     */
+    public static final int VERSION = 2;
+
+    private final MazeAlgorithm algorithm;
     private final int wid;
     private final int hei;
-    private final int[][] maze;
+    private final long seed;
 
     private int exitX;
     private int exitY;
 
-    private final Random random;
-
     public MakeMaze(int wid, int hei, long seed) {
+        this(MazeAlgorithm.DFS, wid, hei, seed);
+    }
+
+    public MakeMaze(MazeAlgorithm algorithm, int wid, int hei, long seed) {
+        this.algorithm = algorithm;
         this.wid = wid;
         this.hei = hei;
-        this.maze = new int[hei][wid];
-        this.random = new Random(seed);
+        this.seed = seed;
     }
 
-    public int[][] make() {
-
-        // 1) 전체 벽으로 초기화
-        for (int y = 0; y < hei; y++) {
-            for (int x = 0; x < wid; x++) {
-                maze[y][x] = 0;
-            }
-        }
-
-        // 2) 입구 생성 고정
-        maze[1][1] = 1;
-
-        // 3) DFS 미로 생성
-        carve(1, 1);
-
-        // 4) 출구 생성 (오른쪽 끝에서 아래쪽 우선)
-        for (int y = hei - 2; y >= 1; y--) {
-            if (maze[y][wid - 2] == 1) {   // 내부가 길인지 확인
-                maze[y][wid - 1] = 1;      // ★ 테두리 벽 하나 뚫기
-                exitX = wid - 1;
-                exitY = y;
-                break;
-            }
-        }
-
+    public MazeGrid make() {
+        MazeGrid maze = algorithm.generator().generate(wid, hei, seed);
+        setExit(MazeGenerator.openExit(maze));
         return maze;
     }
 
-    // 깊이 우선 탐색(DFS)
-    private void carve(int y, int x) {
-        int[] dirs = {0, 1, 2, 3};
-        shuffle(dirs);
-
-        for (int d : dirs) {
-            int nx = x;
-            int ny = y;
+    /* 한 행씩 만들 수 있는 알고리즘이면 행 스트림, 아니면 null (make() 를 쓸 것) */
+    public MazeRowStream streamRows() {
+        return algorithm.generator().streamRows(wid, hei, seed);
+    }
 
-            switch (d) {
-                case 0: ny -= 2; break; // 위
-                case 1: nx += 2; break; // 오른쪽
-                case 2: ny += 2; break; // 아래
-                case 3: nx -= 2; break; // 왼쪽
-            }
+    /* 행 단위로 만든 미로를 다 채운 뒤 부른다: make() 와 같은 규칙으로 출구를 뚫는다 */
+    public void finish(MazeGrid maze) {
+        setExit(MazeGenerator.openExit(maze));
+    }
 
-            if (ny > 0 && ny < hei - 1 && nx > 0 && nx < wid - 1 && maze[ny][nx] == 0) {
-                maze[(y + ny) / 2][(x + nx) / 2] = 1;
-                maze[ny][nx] = 1;
-                carve(ny, nx);
-            }
-        }
+    private void setExit(int y) {
+        exitX = (y >= 0) ? wid - 1 : 0;
+        exitY = Math.max(y, 0);
     }
 
-    private void shuffle(int[] dirs) {
-        for (int i = dirs.length - 1; i > 0; i--) {
-            int j = random.nextInt(i + 1);
-            int tmp = dirs[i];
-            dirs[i] = dirs[j];
-            dirs[j] = tmp;
-        }
+    /* 양쪽이 같은 미로를 가졌는지 확인하는 값 (크기 + 칸 내용의 CRC32) */
+    public static int checksum(MazeGrid maze) {
+        return maze.checksum();
     }
 
     public int getExitX() { return exitX; }
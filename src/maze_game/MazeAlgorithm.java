@@ -0,0 +1,41 @@
+package maze_game;
+
+/**
+ * 쓸 수 있는 미로 생성 알고리즘 목록.
+ * code 는 SEED 메시지로 오가는 번호이므로 순서를 바꾸거나 중간에 끼워 넣지 말 것 (뒤에만 추가).
+ */
+public enum MazeAlgorithm {
+
+    DFS("dfs", new DfsMazeGenerator()),
+    KRUSKAL("kruskal", new KruskalMazeGenerator()),
+    WILSON("wilson", new WilsonMazeGenerator()),
+    ELLER("eller", new EllerMazeGenerator()),
+    PARALLEL("parallel", new ParallelMazeGenerator());
+
+    private static final MazeAlgorithm[] VALUES = values();
+
+    private final String id;
+    private final MazeGenerator generator;
+
+    MazeAlgorithm(String id, MazeGenerator generator) {
+        this.id = id;
+        this.generator = generator;
+    }
+
+    public String id()                { return id; }
+    public int code()                 { return ordinal(); }
+    public MazeGenerator generator()  { return generator; }
+
+    /* 범위를 벗어나면 null */
+    public static MazeAlgorithm of(int code) {
+        return (code >= 0 && code < VALUES.length) ? VALUES[code] : null;
+    }
+
+    /* "dfs", "kruskal" ... 없으면 null */
+    public static MazeAlgorithm byId(String id) {
+        for (MazeAlgorithm a : VALUES) {
+            if (a.id.equals(id)) return a;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,35 @@
+package maze_game;
+
+/**
+ * 미로 생성 알고리즘.
+ *
+ * 모든 구현이 같은 모양의 미로를 만든다:
+ *   - 홀수 좌표 (1,1), (3,1), ... 이 칸이고 그 사이 짝수 좌표가 벽 / 통로
+ *   - 모든 칸이 길로 열려 있고, 어느 두 칸 사이든 길이 정확히 하나 (perfect maze)
+ *   - 테두리는 모두 벽. 출구는 openExit() 이 따로 뚫는다
+ * 같은 (width, height, seed) 면 항상 같은 결과를 내야 한다 (seed 동기화).
+ */
+public interface MazeGenerator {
+
+    MazeGrid generate(int width, int height, long seed);
+
+    /** 한 행씩 만들 수 있는 알고리즘만 구현한다. 나머지는 null (generate 로 한 번에 만든다) */
+    default MazeRowStream streamRows(int width, int height, long seed) {
+        return null;
+    }
+
+    /**
+     * 출구 생성 (오른쪽 끝에서 아래쪽 우선): 오른쪽 테두리 바로 안쪽이 길인 가장 아래 행의 테두리를 뚫는다.
+     * @return 출구의 y (x 는 항상 width - 1). 뚫을 곳이 없으면 -1
+     */
+    static int openExit(MazeGrid maze) {
+        int w = maze.width();
+        for (int y = maze.height() - 2; y >= 1; y--) {
+            if (maze.isOpen(w - 2, y)) {   // 내부가 길인지 확인
+                maze.open(w - 1, y);       // ★ 테두리 벽 하나 뚫기
+                return y;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,144 @@
+package maze_game;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * 미로 칸 정보 (길 / 벽). 칸 하나당 1비트.
+ *
+ * long[] 하나에 행 우선으로 담고, 각 행은 long 경계에서 시작한다 (행마다 stride 개의 long).
+ * int[][] 에 비해 메모리는 약 1/32 이고 행마다 배열 객체가 따로 생기지 않는다.
+ * 41x31 미로는 long 31개, 10001x10001 미로는 약 12.5 MB.
+ */
+public final class MazeGrid {
+
+    private final int width;
+    private final int height;
+    private final int stride;     // 행 하나의 long 개수
+    private final long[] bits;    // 1 = 길, 0 = 벽
+
+    /* 모든 칸이 벽인 미로 */
+    public MazeGrid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("maze size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.stride = (width + 63) >>> 6;
+        this.bits = new long[Math.multiplyExact(stride, height)];
+    }
+
+    public int width()  { return width; }
+    public int height() { return height; }
+
+    /* 미로 밖은 벽으로 본다 */
+    public boolean isOpen(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return false;
+        return (bits[y * stride + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    public void open(int x, int y) {
+        bits[index(x, y)] |= 1L << x;
+    }
+
+    public void close(int x, int y) {
+        bits[index(x, y)] &= ~(1L << x);
+    }
+
+    public void set(int x, int y, boolean open) {
+        if (open) open(x, y);
+        else close(x, y);
+    }
+
+    private int index(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IndexOutOfBoundsException("(" + x + "," + y + ") in " + width + "x" + height);
+        }
+        return y * stride + (x >>> 6);
+    }
+
+
+    /* ============================ 행 단위 ============================ */
+
+    /**
+     * y 행에서 fromX 이상인 첫 번째 길의 x. 없으면 -1.
+     * for (int x = g.nextOpen(y, 0); x >= 0; x = g.nextOpen(y, x + 1)) 로 행의 길만 훑는다.
+     */
+    public int nextOpen(int y, int fromX) {
+        if (fromX < 0) fromX = 0;
+        if (fromX >= width) return -1;
+
+        int base = y * stride;
+        int i = fromX >>> 6;
+        long word = bits[base + i] & (-1L << fromX);
+
+        while (true) {
+            if (word != 0) {
+                int x = (i << 6) + Long.numberOfTrailingZeros(word);
+                return x < width ? x : -1;
+            }
+            if (++i == stride) return -1;
+            word = bits[base + i];
+        }
+    }
+
+    /* y 행의 i 번째 long (x = i*64 .. i*64+63). width 를 넘는 비트는 항상 0 */
+    public long rowWord(int y, int i) {
+        return bits[y * stride + i];
+    }
+
+    public int rowWords() {
+        return stride;
+    }
+
+    /* y 행 전체를 바꾼다 (row 배치는 rowWord 와 같음). width 를 넘는 비트는 버린다 */
+    public void setRow(int y, long[] row) {
+        if (y < 0 || y >= height) throw new IndexOutOfBoundsException("row " + y);
+        System.arraycopy(row, 0, bits, y * stride, stride);
+        if ((width & 63) != 0) bits[y * stride + stride - 1] &= (1L << width) - 1;
+    }
+
+    /* src 의 srcY 부터 n 행을 이 미로의 dstY 부터로 복사한다. 가로 크기가 같아야 한다 */
+    public void copyRows(MazeGrid src, int srcY, int dstY, int n) {
+        if (src.width != width) throw new IllegalArgumentException("width " + src.width + " != " + width);
+        if (srcY < 0 || dstY < 0 || n < 0 || srcY + n > src.height || dstY + n > height) {
+            throw new IndexOutOfBoundsException("rows " + srcY + "+" + n + " -> " + dstY);
+        }
+        System.arraycopy(src.bits, srcY * stride, bits, dstY * stride, n * stride);
+    }
+
+
+    /* ============================ 기타 ============================ */
+
+    /*
+     * 크기 + 칸 내용의 CRC32. int[][] 시절 MakeMaze.checksum 과 같은 값이 나오도록
+     * (가로, 세로, 칸마다 0/1 순서로 한 바이트씩) 계산한다.
+     */
+    public int checksum() {
+        CRC32 crc = new CRC32();
+        crc.update(width);
+        crc.update(height);
+
+        byte[] row = new byte[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = (byte) (isOpen(x, y) ? 1 : 0);
+            }
+            crc.update(row, 0, width);
+        }
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MazeGrid)) return false;
+        MazeGrid g = (MazeGrid) o;
+        return width == g.width && height == g.height && Arrays.equals(bits, g.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + height) + Arrays.hashCode(bits);
+    }
+}
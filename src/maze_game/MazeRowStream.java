@@ -0,0 +1,22 @@
+package maze_game;
+
+/**
+ * 미로를 위에서부터 한 행씩 만들어 내는 생성기 (MazeGenerator.streamRows).
+ * 전체 미로를 들고 있지 않으므로 높이와 상관없이 O(width) 메모리로 돈다.
+ */
+public interface MazeRowStream {
+
+    int width();
+
+    int height();
+
+    /** 다음에 나올 행의 y (0 부터). 다 만들었으면 height() */
+    int nextY();
+
+    /**
+     * 다음 행을 row 에 채운다 (MazeGrid 한 행과 같은 배치: x 번 칸 = row[x >>> 6] 의 x & 63 번 비트).
+     * @param row 길이가 (width + 63) / 64 이상인 배열
+     * @return 채운 행의 y
+     */
+    int next(long[] row);
+}
@@ -0,0 +1,274 @@
+package maze_game;
+
+import java.util.Arrays;
+
+/**
+ * 미로 길 찾기.
+ *
+ *  - distanceField(): 목표 하나까지의 거리를 모든 칸에 대해 BFS 로 한 번에 구한다.
+ *    출구처럼 목표가 고정이면 미로당 한 번만 만들고 DistanceField 로 O(1) 질의.
+ *  - findPath(): 임의의 두 칸 사이 최단 경로 (A*, 맨해튼 거리 휴리스틱).
+ *  - findSteps(): 가까운 칸까지의 최단 경로를 방향들로. 출발 칸 둘레 창 안에서만 BFS 하므로
+ *    미로 크기와 상관없이 작다 (서버가 GOTO 를 받을 때, 클라이언트가 그 경로를 미리 그릴 때).
+ *    작업 배열을 인스턴스에 들고 다시 쓰므로 질의마다 미로 크기만큼 할당하지 않는다.
+ *    그래서 인스턴스 하나를 여러 스레드가 같이 쓰면 안 된다.
+ */
+public final class MazeSolver {
+
+    /* Player.Direction 순서 (UP, DOWN, RIGHT, LEFT) */
+    private static final int[] DX = { 0, 0, 1, -1 };
+    private static final int[] DY = { -1, 1, 0, 0 };
+    private static final Player.Direction[] DIRECTIONS = Player.Direction.values();
+
+    private final MazeGrid maze;
+    private final int width;
+    private final int height;
+
+    /* A* 작업 배열. stamp[i] == search 인 칸만 이번 탐색에서 유효하다 (매번 지우지 않는다) */
+    private int[] g;
+    private int[] stamp;
+    private byte[] from;            // 이 칸에 들어온 방향 (0..3), CLOSED 비트 = 확정
+    private long[] heap;            // f << 32 | 칸 번호, 최소 힙
+    private int heapSize;
+    private int search;
+
+    private static final byte CLOSED = 1 << 2;
+
+    /* findSteps 작업 배열: 출발 칸을 가운데로 한 창 (처음 쓸 때 만든다) */
+    private int[] windowStamp;
+    private byte[] windowFrom;
+    private int[] windowQueue;
+    private int windowSearch;
+
+    public MazeSolver(MazeGrid maze) {
+        this.maze = maze;
+        this.width = maze.width();
+        this.height = maze.height();
+    }
+
+    /* (targetX, targetY) 까지의 거리 표. 목표가 벽이면 모든 칸이 UNREACHABLE */
+    public static DistanceField distanceField(MazeGrid maze, int targetX, int targetY) {
+        int w = maze.width();
+        int h = maze.height();
+        int[] dist = new int[Math.multiplyExact(w, h)];
+        Arrays.fill(dist, DistanceField.UNREACHABLE);
+
+        if (!maze.isOpen(targetX, targetY)) {
+            return new DistanceField(w, h, targetX, targetY, dist, 0);
+        }
+
+        // 큐에는 길만 들어가므로 한 번 훑어 길 수만큼만 잡는다
+        int open = 0;
+        for (int y = 0; y < h; y++) {
+            for (int i = 0; i < maze.rowWords(); i++) open += Long.bitCount(maze.rowWord(y, i));
+        }
+        int[] queue = new int[open];
+        int head = 0, tail = 0;
+
+        int t = targetY * w + targetX;
+        dist[t] = 0;
+        queue[tail++] = t;
+
+        int d = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % w;
+            int y = cell / w;
+            d = dist[cell] + 1;
+
+            // 위, 아래, 왼쪽, 오른쪽 (미로 밖은 isOpen 이 false)
+            if (maze.isOpen(x, y - 1) && dist[cell - w] < 0) { dist[cell - w] = d; queue[tail++] = cell - w; }
+            if (maze.isOpen(x, y + 1) && dist[cell + w] < 0) { dist[cell + w] = d; queue[tail++] = cell + w; }
+            if (maze.isOpen(x - 1, y) && dist[cell - 1] < 0) { dist[cell - 1] = d; queue[tail++] = cell - 1; }
+            if (maze.isOpen(x + 1, y) && dist[cell + 1] < 0) { dist[cell + 1] = d; queue[tail++] = cell + 1; }
+        }
+
+        int max = dist[queue[tail - 1]];    // BFS 는 거리 순서로 꺼내므로 마지막이 가장 멀다
+        return new DistanceField(w, h, targetX, targetY, dist, max);
+    }
+
+    /**
+     * (sx, sy) 에서 (tx, ty) 까지의 최단 경로.
+     * 칸 번호(y * width + x) 배열로 출발 칸과 도착 칸을 모두 포함한다. 길이 없으면 null.
+     */
+    public int[] findPath(int sx, int sy, int tx, int ty) {
+        if (!maze.isOpen(sx, sy) || !maze.isOpen(tx, ty)) return null;
+
+        prepare();
+        int w = width;
+        int s = sy * w + sx;
+        int t = ty * w + tx;
+
+        visit(s, 0, (byte) 0);
+        push((long) heuristic(sx, sy, tx, ty) << 32 | s);
+
+        while (heapSize > 0) {
+            int cell = (int) pop();
+            if ((from[cell] & CLOSED) != 0) continue;      // 더 긴 경로로 들어갔던 중복 항목
+            from[cell] |= CLOSED;
+
+            if (cell == t) return trace(s, t);
+
+            int x = cell % w;
+            int y = cell / w;
+            int ng = g[cell] + 1;
+
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if (!maze.isOpen(nx, ny)) continue;
+
+                int n = ny * w + nx;
+                if (stamp[n] == search && ((from[n] & CLOSED) != 0 || g[n] <= ng)) continue;
+
+                visit(n, ng, (byte) dir);
+                push((long) (ng + heuristic(nx, ny, tx, ty)) << 32 | n);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * (sx, sy) 에서 (tx, ty) 까지 최단 경로의 방향들 (출발 칸이 곧 도착 칸이면 빈 배열).
+     * maxLength 칸 안에 닿을 수 없으면 null. 그 안에 닿는 칸은 모두 출발 칸에서 가로세로 maxLength 이내이므로
+     * (2 * maxLength + 1)^2 창 안에서 거리 maxLength 까지만 BFS 한다.
+     * 이웃을 보는 순서가 정해져 있어 같은 미로면 서버와 클라이언트가 같은 경로를 얻는다.
+     */
+    public Player.Direction[] findSteps(int sx, int sy, int tx, int ty, int maxLength) {
+        if (!maze.isOpen(sx, sy) || !maze.isOpen(tx, ty)) return null;
+        if (heuristic(sx, sy, tx, ty) > maxLength) return null;
+
+        int side = 2 * maxLength + 1;
+        prepareWindow(side * side);
+        int ox = sx - maxLength;            // 창 (0, 0) 의 미로 좌표
+        int oy = sy - maxLength;
+        int s = maxLength * side + maxLength;
+        int t = (ty - oy) * side + (tx - ox);
+
+        int head = 0, tail = 0;
+        windowStamp[s] = windowSearch;
+        windowQueue[tail++] = s;
+
+        int depth = 0, layerEnd = tail;
+        while (head < tail) {
+            if (head == layerEnd) {         // 거리 depth 인 칸을 다 꺼냈다
+                depth++;
+                layerEnd = tail;
+            }
+            int cell = windowQueue[head++];
+            if (cell == t) return traceSteps(cell, depth, side);
+            if (depth == maxLength) continue;
+
+            int wx = cell % side;
+            int wy = cell / side;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = wx + DX[dir];
+                int ny = wy + DY[dir];
+                if (nx < 0 || ny < 0 || nx >= side || ny >= side) continue;
+                if (!maze.isOpen(ox + nx, oy + ny)) continue;
+
+                int n = ny * side + nx;
+                if (windowStamp[n] == windowSearch) continue;
+                windowStamp[n] = windowSearch;
+                windowFrom[n] = (byte) dir;
+                windowQueue[tail++] = n;
+            }
+        }
+        return null;
+    }
+
+    private Player.Direction[] traceSteps(int cell, int length, int side) {
+        Player.Direction[] steps = new Player.Direction[length];
+        for (int i = length - 1; i >= 0; i--) {
+            int dir = windowFrom[cell];
+            steps[i] = DIRECTIONS[dir];
+            cell -= DY[dir] * side + DX[dir];
+        }
+        return steps;
+    }
+
+    private void prepareWindow(int cells) {
+        if (windowStamp == null || windowStamp.length < cells) {
+            windowStamp = new int[cells];
+            windowFrom = new byte[cells];
+            windowQueue = new int[cells];
+            windowSearch = 0;
+        }
+        if (++windowSearch == 0) {
+            Arrays.fill(windowStamp, 0);
+            windowSearch = 1;
+        }
+    }
+
+    private static int heuristic(int x, int y, int tx, int ty) {
+        return Math.abs(x - tx) + Math.abs(y - ty);
+    }
+
+    private void visit(int cell, int cost, byte dir) {
+        stamp[cell] = search;
+        g[cell] = cost;
+        from[cell] = dir;
+    }
+
+    /* 들어온 방향을 거꾸로 따라가며 경로를 만든다 */
+    private int[] trace(int s, int t) {
+        int[] path = new int[g[t] + 1];
+        int cell = t;
+        for (int i = path.length - 1; i > 0; i--) {
+            path[i] = cell;
+            int dir = from[cell] & 3;
+            cell -= DY[dir] * width + DX[dir];
+        }
+        path[0] = s;
+        return path;
+    }
+
+    /* 첫 탐색이면 작업 배열을 만들고, 아니면 탐색 번호만 올린다 */
+    private void prepare() {
+        if (g == null) {
+            int n = Math.multiplyExact(width, height);
+            g = new int[n];
+            stamp = new int[n];
+            from = new byte[n];
+            heap = new long[64];
+        }
+        if (++search == 0) {            // 한 바퀴 돌면 한 번만 지운다
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+        heapSize = 0;
+    }
+
+
+    /* ============================ 힙 ============================ */
+
+    private void push(long v) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= v) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = v;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,160 @@
+package maze_game;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 큰 미로용 병렬 생성.
+ *
+ * 칸 배치를 TILE x TILE 칸짜리 구역으로 나누고, 구역마다 DFS 로 따로 판다 (ForkJoinPool).
+ * 그 다음 구역들 사이에 무작위 신장 트리를 골라, 트리의 이웃 구역 쌍마다 경계 벽을 정확히 하나 뚫는다.
+ * 구역 안이 트리이고 구역끼리도 트리로만 이어지므로 전체도 perfect maze 다.
+ *
+ * 결정성: 구역 나누기는 크기에만 달려 있고(코어 수와 무관), 구역마다 seed 와 구역 번호로 만든
+ * 자기 Random 을 쓰며, 경계 뚫기는 모든 구역이 끝난 뒤 한 스레드에서 한다.
+ * 그래서 스레드가 몇 개든, 어떤 순서로 돌든 같은 seed 면 같은 미로다.
+ *
+ * TILE 이 32 의 배수라 구역 하나의 열(x = 2*TILE*i + 1 ~ 2*TILE*(i+1) - 1)이 MazeGrid 의 long 몇 개에
+ * 딱 들어간다. 구역 사이 경계 열은 뚫기 단계에서만 쓰므로, 병렬 단계에서 두 구역이 같은 long 을 쓰는 일이 없다.
+ */
+public final class ParallelMazeGenerator implements MazeGenerator {
+
+    /* 구역 한 변의 칸 수 (32 의 배수여야 한다) */
+    static final int TILE = 128;
+
+    private final ForkJoinPool pool;
+
+    public ParallelMazeGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelMazeGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public MazeGrid generate(int width, int height, long seed) {
+        MazeGrid maze = new MazeGrid(width, height);
+
+        int cw = (width - 1) / 2;
+        int ch = (height - 1) / 2;
+        int tilesX = (cw + TILE - 1) / TILE;
+        int tilesY = (ch + TILE - 1) / TILE;
+
+        // 1) 구역마다 따로 파기
+        pool.invoke(new CarveTiles(maze, seed, cw, ch, tilesX, 0, tilesX * tilesY));
+
+        // 2) 구역끼리 잇기
+        stitch(maze, new Random(seed), cw, ch, tilesX, tilesY);
+        return maze;
+    }
+
+    /* 구역 번호 [from, to) 를 반씩 나눠 병렬로 판다 */
+    private static final class CarveTiles extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MazeGrid maze;
+        private final long seed;
+        private final int cw, ch, tilesX;
+        private final int from, to;
+
+        CarveTiles(MazeGrid maze, long seed, int cw, int ch, int tilesX, int from, int to) {
+            this.maze = maze;
+            this.seed = seed;
+            this.cw = cw;
+            this.ch = ch;
+            this.tilesX = tilesX;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                carveTile(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CarveTiles(maze, seed, cw, ch, tilesX, from, mid),
+                      new CarveTiles(maze, seed, cw, ch, tilesX, mid, to));
+        }
+
+        private void carveTile(int tile) {
+            int cx0 = (tile % tilesX) * TILE;
+            int cy0 = (tile / tilesX) * TILE;
+            int cx1 = Math.min(cw, cx0 + TILE);   // 끝 칸 (포함 안 함)
+            int cy1 = Math.min(ch, cy0 + TILE);
+
+            int minX = 2 * cx0 + 1, maxX = 2 * cx1 - 1;
+            int minY = 2 * cy0 + 1, maxY = 2 * cy1 - 1;
+
+            maze.open(minX, minY);
+            DfsMazeGenerator.carve(maze, new Random(tileSeed(seed, tile)), minX, minY, minX, minY, maxX, maxY);
+        }
+    }
+
+    /* 구역마다 다른 수열이 나오도록 seed 와 구역 번호를 섞는다 (SplitMix64 의 마무리 단계) */
+    private static long tileSeed(long seed, int tile) {
+        long z = seed + (tile + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /*
+     * 구역 그래프에서 무작위 Kruskal 로 신장 트리를 고르고, 트리의 이웃 구역 쌍마다
+     * 맞닿은 경계 중 무작위 한 곳의 벽을 뚫는다.
+     */
+    private static void stitch(MazeGrid maze, Random random, int cw, int ch, int tilesX, int tilesY) {
+        int tiles = tilesX * tilesY;
+
+        // 경계 번호 = 구역 번호 * 2 + (0: 오른쪽 구역과, 1: 아래쪽 구역과)
+        int[] borders = new int[2 * tiles];
+        int n = 0;
+        for (int t = 0; t < tiles; t++) {
+            if (t % tilesX != tilesX - 1) borders[n++] = t * 2;
+            if (t / tilesX != tilesY - 1) borders[n++] = t * 2 + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = borders[i];
+            borders[i] = borders[j];
+            borders[j] = tmp;
+        }
+
+        int[] parent = new int[tiles];
+        for (int t = 0; t < tiles; t++) parent[t] = t;
+
+        for (int i = 0; i < n; i++) {
+            int border = borders[i];
+            int a = border >>> 1;
+            boolean right = (border & 1) == 0;
+            int b = right ? a + 1 : a + tilesX;
+
+            int ra = find(parent, a);
+            int rb = find(parent, b);
+            if (ra == rb) continue;
+            parent[rb] = ra;
+
+            int cx0 = (a % tilesX) * TILE;
+            int cy0 = (a / tilesX) * TILE;
+            if (right) {
+                // a 의 오른쪽 끝 칸과 b 의 왼쪽 끝 칸 사이 벽 (x = 2 * b 의 첫 칸)
+                int cy = cy0 + random.nextInt(Math.min(ch, cy0 + TILE) - cy0);
+                maze.open(2 * (cx0 + TILE), 2 * cy + 1);
+            } else {
+                int cx = cx0 + random.nextInt(Math.min(cw, cx0 + TILE) - cx0);
+                maze.open(2 * cx + 1, 2 * (cy0 + TILE));
+            }
+        }
+    }
+
+    private static int find(int[] parent, int t) {
+        while (parent[t] != t) {
+            parent[t] = parent[parent[t]];
+            t = parent[t];
+        }
+        return t;
+    }
+}
@@ -4,34 +4,34 @@ public class Player {
     //플레이어 위치
     private int x;
     private int y;
-    private int [][]maze;
+    private MazeGrid maze;
     public enum Direction{
         UP, DOWN, RIGHT, LEFT
     }
 
     private Direction direction;
 
-    public Player(int startX, int startY, int [][]maze){
+    public Player(int startX, int startY, MazeGrid maze){
         this.x = startX;
         this.y = startY;
         this.maze = maze;
         this.direction= Direction.DOWN; //초기값
     }
 
-    private boolean canMoveTo(int nx, int ny){
-        if(ny<0 || ny>=maze.length){
-            return false;
-        }
-
-        if(nx<0 || nx>=maze[0].length){
-            return false;
-        }
+    public boolean canMoveTo(int nx, int ny){
+        return maze.isOpen(nx, ny); // 미로 밖은 벽
+    }
 
-        if(maze[ny][nx]==0){
-            return false;
+    //방향 하나로 이동 (벽이면 방향만 바뀜). 움직였으면 true
+    public boolean move(Direction d){
+        int ox = x, oy = y;
+        switch (d) {
+            case UP:    mvUP();    break;
+            case DOWN:  mvDOWN();  break;
+            case RIGHT: mvRIGHT(); break;
+            case LEFT:  mvLEFT();  break;
         }
-
-        return true;
+        return x != ox || y != oy;
     }
 
     public void mvUP(){
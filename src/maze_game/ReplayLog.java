@@ -0,0 +1,289 @@
+package maze_game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 한 판의 기록 파일(.mzr) 형식과 읽는 쪽.
+ *
+ * 파일 = 머리(HEADER_BYTES, 고정 크기) + 기록들 + (다 쓴 파일이면) 키프레임 목록.
+ *
+ *   머리   : int MAGIC, byte FORMAT, byte MakeMaze.VERSION, byte 알고리즘 코드, byte 0,
+ *            int W, int H, long seed, int checksum, int exitX, int exitY, long 시작 시각(epoch ms)
+ *   기록   : 머리 바이트 1 + varint (앞 기록부터 지난 ms) + 내용
+ *            MOVE_BASE | (player - 1) << 2 | 방향 코드   → 내용 없음 (받아들여진 이동 한 칸, 보통 2 바이트)
+ *            KEY  → varint p1x, p1y, p2x, p2y             (KEY_INTERVAL 이동마다, 처음에 한 번)
+ *            WIN  → byte player
+ *            END  → 없음 (이 뒤는 키프레임 목록)
+ *   목록   : (int 시각 ms, int 키프레임 기록 위치) x n, int n, int INDEX_MAGIC
+ *
+ * 읽을 때는 파일을 통째로 메모리에 매핑한다. seek 은 키프레임 목록을 이분 탐색해(O(log n)) 그 시각 바로 앞 키프레임
+ * 좌표에서 시작하고, 거기서부터 많아야 KEY_INTERVAL 개의 이동만 다시 적용한다.
+ * 서버가 죽어 목록 없이 끊긴 파일은 열 때 한 번 처음부터 훑어 목록을 만들고, 끝까지 온전한 기록만 쓴다.
+ * 목록이 있는데 개수나 위치가 파일 안에 맞지 않으면 깨진 파일로 보고 열지 않는다 (IOException).
+ */
+public final class ReplayLog {
+
+    public static final int MAGIC = 0x4D5A5231;         // "MZR1"
+    public static final int INDEX_MAGIC = 0x4D5A5249;   // "MZRI"
+    public static final int FORMAT = 1;
+    public static final int HEADER_BYTES = 44;
+
+    public static final int KEY_INTERVAL = 64;
+
+    public static final int KEY = 0x01;
+    public static final int WIN = 0x02;
+    public static final int END = 0x03;
+    public static final int MOVE_BASE = 0x80;           // 0x80 .. 0x87
+
+    private final MappedByteBuffer map;
+
+    public final int mazeGen;
+    public final MazeAlgorithm algorithm;
+    public final int width, height;
+    public final long seed;
+    public final int checksum;
+    public final int exitX, exitY;
+    public final long startMillis;
+
+    /* 키프레임: 시각(ms) 과 기록 위치 (시각 순) */
+    private final int[] keyTimes;
+    private final int[] keyOffsets;
+    private final int end;              // 기록이 끝나는 위치 (END 기록 또는 마지막 온전한 기록 뒤)
+    private final int duration;         // 마지막 기록의 시각
+    private final boolean complete;     // END 까지 다 쓴 파일
+
+    private ReplayLog(MappedByteBuffer map) throws IOException {
+        this.map = map;
+        if (map.limit() < HEADER_BYTES || map.getInt(0) != MAGIC || map.get(4) != FORMAT) {
+            throw new IOException("not a replay file");
+        }
+        mazeGen = map.get(5);
+        algorithm = MazeAlgorithm.of(map.get(6));
+        width = map.getInt(8);
+        height = map.getInt(12);
+        seed = map.getLong(16);
+        checksum = map.getInt(24);
+        exitX = map.getInt(28);
+        exitY = map.getInt(32);
+        startMillis = map.getLong(36);
+
+        // 다 쓴 파일이면 끝의 목록을 그대로, 아니면 처음부터 훑어 만든다
+        if (map.limit() >= HEADER_BYTES + 8 && map.getInt(map.limit() - 4) == INDEX_MAGIC) {
+            // n 은 파일에서 읽은 값: 머리와 목록 꼬리 사이에 n 개가 들어갈 때만 (n * 8 이 넘치지 않게 나눠서 비교)
+            int n = map.getInt(map.limit() - 8);
+            if (n <= 0 || n > (map.limit() - 8 - HEADER_BYTES) / 8) throw new IOException("corrupt replay index: n=" + n);
+            int indexAt = map.limit() - 8 - n * 8;
+
+            keyTimes = new int[n];
+            keyOffsets = new int[n];
+            for (int i = 0; i < n; i++) {
+                keyTimes[i] = map.getInt(indexAt + i * 8);
+                keyOffsets[i] = map.getInt(indexAt + i * 8 + 4);
+                // 키프레임은 머리와 목록 사이의 KEY 기록이고, 시각 / 위치 순이다
+                if (keyOffsets[i] < HEADER_BYTES || keyOffsets[i] >= indexAt || map.get(keyOffsets[i]) != KEY
+                        || keyTimes[i] < 0 || (i > 0 && (keyTimes[i] < keyTimes[i - 1] || keyOffsets[i] <= keyOffsets[i - 1]))) {
+                    throw new IOException("corrupt replay index: keyframe " + i);
+                }
+            }
+            end = indexAt;
+            try {
+                Cursor c = new Cursor();
+                c.reset(n - 1);
+                while (c.next()) { }
+                duration = c.time;
+                complete = c.ended;
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("corrupt replay: last keyframe", e);
+            }
+        } else {
+            Scan s = scan(map);
+            keyTimes = s.times;
+            keyOffsets = s.offsets;
+            end = s.end;
+            duration = s.time;
+            complete = false;
+        }
+        if (keyTimes.length == 0) throw new IOException("replay has no keyframe");
+    }
+
+    /* 파일을 읽기 전용으로 매핑해서 연다 (매핑은 채널을 닫아도 남는다) */
+    public static ReplayLog open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("replay too large");
+            return new ReplayLog(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    /* 기록된 시간 (ms) */
+    public int duration() {
+        return duration;
+    }
+
+    /* 판이 끝까지 기록됐는지 (서버가 중간에 죽었으면 false: 거기까지만 읽는다) */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int keyframes() {
+        return keyTimes.length;
+    }
+
+    /* 기록된 seed 로 미로를 다시 만든다. 이 클라이언트의 생성기 버전이 다르거나 checksum 이 안 맞으면 null */
+    public MazeGrid rebuildMaze() {
+        if (mazeGen != MakeMaze.VERSION || algorithm == null) return null;
+        MazeGrid maze = new MakeMaze(algorithm, width, height, seed).make();
+        return MakeMaze.checksum(maze) == checksum ? maze : null;
+    }
+
+    /* ms 시각의 상태에 놓인 커서 (그 시각까지의 기록은 적용, 그 뒤는 next() 로) */
+    public Cursor seek(int ms) {
+        // 시각이 ms 이하인 마지막 키프레임 (같은 ms 에 키프레임이 여럿이어도 O(log n))
+        int lo = 0, hi = keyTimes.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (keyTimes[mid] <= ms) lo = mid;
+            else hi = mid - 1;
+        }
+        Cursor c = new Cursor();
+        c.reset(lo);
+        c.advanceTo(ms);
+        return c;
+    }
+
+    /**
+     * 기록을 앞에서부터 하나씩 읽는다. 두 플레이어 좌표와 승자를 들고 있다.
+     * 매핑된 버퍼의 duplicate 를 따로 가지므로 커서 여러 개를 동시에 써도 된다 (커서 하나는 한 스레드에서만).
+     */
+    public final class Cursor {
+        private final ByteBuffer buf = map.duplicate();
+        private int time;
+        private final int[] xs = new int[2], ys = new int[2];
+        private int winner;
+        private boolean ended;
+        private int player;
+        private Player.Direction dir;
+
+        private Cursor() {}
+
+        /* k 번 키프레임의 좌표에서 */
+        private void reset(int k) {
+            buf.limit(end).position(keyOffsets[k]);
+            time = keyTimes[k];
+            winner = 0;
+            ended = false;
+            next();
+            time = keyTimes[k];     // 목록의 시각이 기준 (next 가 더한 dt 는 이미 들어 있다)
+        }
+
+        public int time()           { return time; }
+        public int x(int player)    { return xs[player - 1]; }
+        public int y(int player)    { return ys[player - 1]; }
+        public int winner()         { return winner; }
+        public boolean ended()      { return ended || !buf.hasRemaining(); }
+
+        /* 마지막으로 읽은 기록이 이동이면 그 플레이어와 방향 (아니면 0 / null) */
+        public int player()               { return player; }
+        public Player.Direction dir()     { return dir; }
+
+        /* 다음 기록의 시각. 더 없으면 -1 */
+        public int peekTime() {
+            if (ended()) return -1;
+            int at = buf.position();
+            buf.get();
+            int t = time + BinaryProtocol.getVarint(buf);
+            buf.position(at);
+            return t;
+        }
+
+        /* ms 까지의 기록을 모두 적용 */
+        public void advanceTo(int ms) {
+            while (true) {
+                int t = peekTime();
+                if (t < 0 || t > ms) return;
+                next();
+            }
+        }
+
+        /* 기록 하나를 읽고 적용한다. 더 없으면 false */
+        public boolean next() {
+            if (ended()) return false;
+
+            int head = buf.get() & 0xFF;
+            time += BinaryProtocol.getVarint(buf);
+            player = 0;
+            dir = null;
+
+            if (head >= MOVE_BASE && head < MOVE_BASE + 8) {
+                player = ((head >> 2) & 1) + 1;
+                dir = BinaryProtocol.dirOf(head & 3);
+                step(player - 1, dir);
+            } else if (head == KEY) {
+                for (int i = 0; i < 2; i++) {
+                    xs[i] = BinaryProtocol.getVarint(buf);
+                    ys[i] = BinaryProtocol.getVarint(buf);
+                }
+            } else if (head == WIN) {
+                winner = buf.get();
+            } else {
+                ended = true;       // END (또는 모르는 기록: 거기서 멈춘다)
+            }
+            return true;
+        }
+
+        private void step(int i, Player.Direction d) {
+            switch (d) {
+                case UP:    ys[i]--; break;
+                case DOWN:  ys[i]++; break;
+                case LEFT:  xs[i]--; break;
+                case RIGHT: xs[i]++; break;
+            }
+        }
+    }
+
+    /* ======================= 목록 없는 파일 훑기 ======================= */
+    private static final class Scan {
+        int[] times = new int[16], offsets = new int[16];
+        int n, end, time;
+    }
+
+    private static Scan scan(ByteBuffer map) {
+        Scan s = new Scan();
+        ByteBuffer b = map.duplicate();
+        b.position(HEADER_BYTES);
+        s.end = HEADER_BYTES;
+        try {
+            while (b.hasRemaining()) {
+                int at = b.position();
+                int head = b.get() & 0xFF;
+                int t = s.time + BinaryProtocol.getVarint(b);
+                if (head == KEY) {
+                    for (int i = 0; i < 4; i++) BinaryProtocol.getVarint(b);
+                    if (s.n == s.times.length) {
+                        s.times = Arrays.copyOf(s.times, s.n * 2);
+                        s.offsets = Arrays.copyOf(s.offsets, s.n * 2);
+                    }
+                    s.times[s.n] = t;
+                    s.offsets[s.n++] = at;
+                } else if (head == WIN) {
+                    b.get();
+                } else if (head < MOVE_BASE || head >= MOVE_BASE + 8) {
+                    break;          // END 또는 깨진 곳
+                }
+                s.time = t;
+                s.end = b.position();   // 여기까지는 온전한 기록
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // 쓰다 만 마지막 기록: 그 앞까지만
+        }
+        s.times = Arrays.copyOf(s.times, s.n);
+        s.offsets = Arrays.copyOf(s.offsets, s.n);
+        return s;
+    }
+}
@@ -0,0 +1,64 @@
+package maze_game;
+
+import java.util.Random;
+
+/**
+ * Wilson 알고리즘 (loop-erased random walk).
+ * 아직 미로에 안 들어간 칸에서 무작위로 걷다가 미로에 닿으면, 마지막으로 지나간 방향만 따라가며 길을 판다.
+ * 가능한 모든 미로 중 하나를 고르게(uniform spanning tree) 뽑는다. 대신 처음 몇 번의 걷기가 길어서 느리다.
+ * 메모리는 칸당 1바이트 (마지막으로 나간 방향).
+ */
+public final class WilsonMazeGenerator implements MazeGenerator {
+
+    // 0 위, 1 오른쪽, 2 아래, 3 왼쪽
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+
+    @Override
+    public MazeGrid generate(int width, int height, long seed) {
+        MazeGrid maze = new MazeGrid(width, height);
+        Random random = new Random(seed);
+
+        int cw = (width - 1) / 2;
+        int ch = (height - 1) / 2;
+        int cells = cw * ch;
+        byte[] exitDir = new byte[cells];
+
+        // 시작점 하나를 미로에 넣는다 (칸이 미로에 들어갔는지는 maze 의 길 여부로 본다)
+        int first = random.nextInt(cells);
+        maze.open(2 * (first % cw) + 1, 2 * (first / cw) + 1);
+
+        for (int start = 0; start < cells; start++) {
+            int cx = start % cw;
+            int cy = start / cw;
+            if (maze.isOpen(2 * cx + 1, 2 * cy + 1)) continue;
+
+            // 1) 미로에 닿을 때까지 걷는다. 같은 칸을 다시 지나면 방향을 덮어쓰므로 고리가 저절로 지워진다
+            while (!maze.isOpen(2 * cx + 1, 2 * cy + 1)) {
+                int d;
+                int nx, ny;
+                do {
+                    d = random.nextInt(4);
+                    nx = cx + DX[d];
+                    ny = cy + DY[d];
+                } while (nx < 0 || ny < 0 || nx >= cw || ny >= ch);
+
+                exitDir[cy * cw + cx] = (byte) d;
+                cx = nx;
+                cy = ny;
+            }
+
+            // 2) 출발점에서 다시 기록된 방향대로 따라가며 길을 판다
+            cx = start % cw;
+            cy = start / cw;
+            while (!maze.isOpen(2 * cx + 1, 2 * cy + 1)) {
+                int d = exitDir[cy * cw + cx];
+                maze.open(2 * cx + 1, 2 * cy + 1);
+                maze.open(2 * cx + 1 + DX[d], 2 * cy + 1 + DY[d]);
+                cx += DX[d];
+                cy += DY[d];
+            }
+        }
+        return maze;
+    }
+}
@@ -0,0 +1,102 @@
+package maze_game;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 소켓 입력을 텍스트 줄 또는 바이너리 프레임 단위로 읽는다.
+ * 같은 버퍼에서 둘 다 읽기 때문에, 프로토콜 협상 도중에 읽는 방식을 바꿔도 바이트를 잃지 않는다.
+ *
+ * readFrame() / readLineBuffer() 가 돌려주는 ByteBuffer 는 내부 버퍼를 재사용하므로 다음 읽기 전까지만 유효하다.
+ */
+public class WireReader {
+
+    private final InputStream in;
+
+    private byte[] buf = new byte[8192];
+    private int pos = 0;
+    private int limit = 0;
+
+    private ByteBuffer view = ByteBuffer.wrap(buf);
+
+    public WireReader(InputStream in) {
+        this.in = in;
+    }
+
+    /* 버퍼에 최소 n 바이트가 있도록 채운다. EOF 면 false */
+    private boolean fill(int n) throws IOException {
+        if (limit - pos >= n) return true;
+
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (n > buf.length) {
+            byte[] nb = new byte[Math.max(n, buf.length * 2)];
+            System.arraycopy(buf, 0, nb, 0, limit);
+            buf = nb;
+            view = ByteBuffer.wrap(buf);
+        }
+
+        while (limit < n) {
+            int r = in.read(buf, limit, buf.length - limit);
+            if (r < 0) return false;
+            limit += r;
+        }
+        return true;
+    }
+
+    /** '\n' 까지 읽어 한 줄을 돌려준다 ('\r' 제거). EOF 면 null */
+    public String readLine() throws IOException {
+        ByteBuffer line = readLineBuffer();
+        if (line == null) return null;
+        return new String(buf, line.position(), line.remaining(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * readLine() 과 같지만 String 을 만들지 않고 내부 버퍼 안의 그 줄('\n', '\r' 제외)을 돌려준다.
+     * readFrame() 처럼 다음 읽기 전까지만 유효하다. EOF 면 null
+     */
+    public ByteBuffer readLineBuffer() throws IOException {
+        int scanned = 0;
+        while (true) {
+            for (int i = pos + scanned; i < limit; i++) {
+                if (buf[i] == '\n') {
+                    int end = i;
+                    if (end > pos && buf[end - 1] == '\r') end--;
+                    view.limit(end).position(pos);
+                    pos = i + 1;
+                    return view;
+                }
+            }
+            scanned = limit - pos;
+            if (scanned >= BinaryProtocol.MAX_FRAME) throw new IOException("line too long");
+            if (!fill(scanned + 1)) return null;
+        }
+    }
+
+    /** 프레임 하나를 읽어 본문(타입 바이트부터)을 돌려준다. EOF 면 null */
+    public ByteBuffer readFrame() throws IOException {
+        int len = 0;
+        int shift = 0;
+        while (true) {
+            if (!fill(1)) return null;
+            int b = buf[pos++];
+            len |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+            if (shift >= 35) throw new IOException("bad frame length");
+        }
+
+        if (len <= 0 || len > BinaryProtocol.MAX_FRAME) throw new IOException("bad frame length " + len);
+        if (!fill(len)) throw new EOFException();
+
+        view.limit(pos + len).position(pos);
+        pos += len;
+        return view;
+    }
+}